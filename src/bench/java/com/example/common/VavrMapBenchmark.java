@@ -0,0 +1,139 @@
+package com.example.common;
+
+import com.example.cinema.domain.Seat;
+import com.example.cinema.domain.SeatStatus;
+import com.example.wallet.domain.Expense;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link VavrModule} with the previous tree based (de)serializers,
+ * for the seat map of a 100 seats show and the expenses map of a wallet with 1000 expenses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VavrMapBenchmark {
+
+  public record ShowSeats(Map<Integer, Seat> seats) {
+  }
+
+  public record WalletExpenses(Map<String, Expense> expenses) {
+  }
+
+  private ObjectMapper streaming;
+  private ObjectMapper tree;
+  private ShowSeats showSeats;
+  private WalletExpenses walletExpenses;
+  private String showSeatsJson;
+  private String walletExpensesJson;
+
+  @Setup
+  public void setup() throws IOException {
+    streaming = new ObjectMapper().registerModule(new VavrModule());
+    tree = new ObjectMapper().registerModule(new SimpleModule()
+      .addSerializer(Map.class, new TreeVavrMapSerializer())
+      .addDeserializer(Map.class, new TreeVavrMapDeserializer()));
+
+    Map<Integer, Seat> seats = HashMap.empty();
+    for (int i = 0; i < 100; i++) {
+      seats = seats.put(i, new Seat(i, SeatStatus.AVAILABLE, Money.ofUnits(100)));
+    }
+    showSeats = new ShowSeats(seats);
+
+    Map<String, Expense> expenses = HashMap.empty();
+    for (int i = 0; i < 1000; i++) {
+      String expenseId = "expense-" + i;
+      expenses = expenses.put(expenseId, new Expense(expenseId, Money.of(new BigDecimal("12.5"))));
+    }
+    walletExpenses = new WalletExpenses(expenses);
+
+    showSeatsJson = streaming.writeValueAsString(showSeats);
+    walletExpensesJson = streaming.writeValueAsString(walletExpenses);
+  }
+
+  @Benchmark
+  public String serializeShowSeatsStreaming() throws IOException {
+    return streaming.writeValueAsString(showSeats);
+  }
+
+  @Benchmark
+  public String serializeShowSeatsTree() throws IOException {
+    return tree.writeValueAsString(showSeats);
+  }
+
+  @Benchmark
+  public ShowSeats deserializeShowSeatsStreaming() throws IOException {
+    return streaming.readValue(showSeatsJson, ShowSeats.class);
+  }
+
+  @Benchmark
+  public ShowSeats deserializeShowSeatsTree() throws IOException {
+    return tree.readValue(showSeatsJson, ShowSeats.class);
+  }
+
+  @Benchmark
+  public String serializeWalletExpensesStreaming() throws IOException {
+    return streaming.writeValueAsString(walletExpenses);
+  }
+
+  @Benchmark
+  public String serializeWalletExpensesTree() throws IOException {
+    return tree.writeValueAsString(walletExpenses);
+  }
+
+  @Benchmark
+  public WalletExpenses deserializeWalletExpensesStreaming() throws IOException {
+    return streaming.readValue(walletExpensesJson, WalletExpenses.class);
+  }
+
+  @Benchmark
+  public WalletExpenses deserializeWalletExpensesTree() throws IOException {
+    return tree.readValue(walletExpensesJson, WalletExpenses.class);
+  }
+
+  // previous implementation, kept only as the benchmark baseline
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static class TreeVavrMapSerializer extends JsonSerializer<Map> {
+    @Override
+    public void serialize(Map vavrMap, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+      gen.writeObject(vavrMap.toJavaMap());
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static class TreeVavrMapDeserializer extends JsonDeserializer<Map> {
+    @Override
+    public Map deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonNode node = p.getCodec().readTree(p);
+      java.util.Map<String, Object> javaMap = p.getCodec().treeToValue(node, java.util.Map.class);
+      return HashMap.ofAll(javaMap);
+    }
+  }
+}
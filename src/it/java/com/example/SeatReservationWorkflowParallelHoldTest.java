@@ -0,0 +1,175 @@
+package com.example;
+
+import akka.javasdk.testkit.TestKit;
+import akka.javasdk.testkit.TestKitSupport;
+import com.example.cinema.api.SeatReservationEndpoint.ReserveSeatRequest;
+import com.example.cinema.application.ShowEntity;
+import com.example.cinema.domain.SeatReservation;
+import com.example.cinema.domain.SeatStatus;
+import com.example.cinema.domain.ShowCommand;
+import com.example.common.Money;
+import com.example.wallet.application.WalletEntity;
+import com.example.wallet.application.WalletResponse;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static akka.http.javadsl.model.StatusCodes.CREATED;
+import static akka.http.javadsl.model.StatusCodes.OK;
+import static com.example.ShowSeatReservationIntegrationTest.randomId;
+import static com.example.cinema.domain.SeatReservationStatus.COMPLETED;
+import static com.example.cinema.domain.SeatReservationStatus.SEAT_RESERVATION_FAILED;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatReservationWorkflowParallelHoldTest extends TestKitSupport {
+
+  @Override
+  protected TestKit.Settings testKitSettings() {
+    Config parallelHold = ConfigFactory.parseString("""
+      application.mode = "orchestration"
+      application.seat-reservation.hold-funds-in-parallel = true
+      """);
+    return super.testKitSettings()
+      .withAdditionalConfig(parallelHold);
+  }
+
+  @Test
+  public void shouldCompleteSeatReservationWithCapturedFunds() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumber = 10;
+
+    createWallet(walletId, 200);
+    createShow(showId, "pulp fiction");
+    fillSeatPriceCache(showId);
+
+    //when
+    reserveSeat(reservationId, new ReserveSeatRequest(showId, seatNumber, walletId));
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        assertThat(getSeatReservation(reservationId).status()).isEqualTo(COMPLETED);
+        assertThat(getWallet(walletId).balance()).isEqualTo(new BigDecimal(200 - 100));
+        assertThat(getSeatStatus(showId, seatNumber)).isEqualTo(SeatStatus.PAID);
+      });
+  }
+
+  @Test
+  public void shouldChargeChangedPriceAfterReleasingHeldFunds() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumber = 10;
+
+    createWallet(walletId, 200);
+    createShow(showId, "pulp fiction");
+    fillSeatPriceCache(showId);
+
+    //when
+    //the price change reaches the cache asynchronously, the funds are held for the old or for the new price,
+    //either way the wallet is charged the price from the show
+    await(componentClient.forEventSourcedEntity(showId)
+      .method(ShowEntity::changeTierPrice)
+      .invokeAsync(new ShowCommand.ChangeTierPrice(0, Money.ofUnits(150))));
+    reserveSeat(reservationId, new ReserveSeatRequest(showId, seatNumber, walletId));
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        assertThat(getSeatReservation(reservationId).status()).isEqualTo(COMPLETED);
+        assertThat(getWallet(walletId).balance()).isEqualTo(new BigDecimal(200 - 150));
+        assertThat(getSeatStatus(showId, seatNumber)).isEqualTo(SeatStatus.PAID);
+      });
+  }
+
+  @Test
+  public void shouldCancelReservationIfFundsCannotBeHeld() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumber = 10;
+
+    createWallet(walletId, 50);
+    createShow(showId, "pulp fiction");
+    fillSeatPriceCache(showId);
+
+    //when
+    reserveSeat(reservationId, new ReserveSeatRequest(showId, seatNumber, walletId));
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        assertThat(getSeatReservation(reservationId).status()).isEqualTo(SEAT_RESERVATION_FAILED);
+        assertThat(getWallet(walletId).balance()).isEqualTo(new BigDecimal(50));
+        assertThat(getSeatStatus(showId, seatNumber)).isEqualTo(SeatStatus.AVAILABLE);
+      });
+  }
+
+  /**
+   * A completed reservation puts the section prices into the cache of this node, so the next reservation
+   * of the section holds the funds in parallel.
+   */
+  private void fillSeatPriceCache(String showId) {
+    var walletId = randomId();
+    var reservationId = randomId();
+    createWallet(walletId, 100);
+    reserveSeat(reservationId, new ReserveSeatRequest(showId, 1, walletId));
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> assertThat(getSeatReservation(reservationId).status()).isEqualTo(COMPLETED));
+  }
+
+  private void reserveSeat(String reservationId, ReserveSeatRequest reserveSeat) {
+    var response = await(httpClient.POST("/seat-reservation/" + reservationId)
+      .withRequestBody(reserveSeat)
+      .invokeAsync());
+    assertThat(response.status()).isEqualTo(OK);
+  }
+
+  private SeatReservation getSeatReservation(String reservationId) {
+    return await(httpClient.GET("/seat-reservation/" + reservationId)
+      .responseBodyAs(SeatReservation.class)
+      .invokeAsync())
+      .body();
+  }
+
+  private SeatStatus getSeatStatus(String showId, int seatNumber) {
+    return await(componentClient.forEventSourcedEntity(showId)
+      .method(ShowEntity::getSeatStatus)
+      .invokeAsync(seatNumber));
+  }
+
+  private void createWallet(String walletId, int amount) {
+    var response = await(httpClient.POST("/wallet/" + walletId + "/create/" + amount).invokeAsync());
+    assertThat(response.status()).isEqualTo(CREATED);
+  }
+
+  private void createShow(String showId, String title) {
+    await(httpClient.POST("/cinema-show/" + showId)
+      .withRequestBody(new ShowCommand.CreateShow(title, 100))
+      .invokeAsync());
+  }
+
+  private WalletResponse getWallet(String walletId) {
+    return await(componentClient.forEventSourcedEntity(walletId)
+      .method(WalletEntity::get)
+      .invokeAsync());
+  }
+}
@@ -37,6 +37,7 @@ class SeatReservationWorkflowTest extends TestKitSupport {
   protected TestKit.Settings testKitSettings() {
     Config excludeChoreographyComponents = ConfigFactory.parseString("""
       application.mode = "orchestration"
+      application.seat-reservation.hold-funds-in-parallel = false
       """);
     return super.testKitSettings()
       .withAdditionalConfig(excludeChoreographyComponents);
@@ -74,6 +75,27 @@ class SeatReservationWorkflowTest extends TestKitSupport {
       });
   }
 
+  @Test
+  public void shouldWaitForReservationOutcome() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+
+    createWallet(walletId, 200);
+    createShow(showId, "pulp fiction");
+
+    //when
+    var response = await(httpClient.POST("/seat-reservation/" + reservationId + "?waitSeconds=10")
+      .withRequestBody(new ReserveSeatRequest(showId, 10, walletId))
+      .responseBodyAs(SeatReservation.class)
+      .invokeAsync());
+
+    //then
+    assertThat(response.status()).isEqualTo(OK);
+    assertThat(response.body().status()).isEqualTo(COMPLETED);
+  }
+
   private SeatStatus getSeatStatus(String showId, int seatNumber) {
     return await(componentClient.forEventSourcedEntity(showId)
       .method(ShowEntity::getSeatStatus)
@@ -0,0 +1,78 @@
+package com.example;
+
+import akka.javasdk.testkit.TestKit;
+import akka.javasdk.testkit.TestKitSupport;
+import com.example.cinema.application.ReservationEntity;
+import com.example.cinema.application.ReservationEntity.CreateReservation;
+import com.example.cinema.application.ShowByReservationView;
+import com.example.cinema.domain.Reservation;
+import com.example.cinema.domain.ShowByReservation;
+import com.example.common.Money;
+import com.typesafe.config.ConfigFactory;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.ShowSeatReservationIntegrationTest.randomId;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShowByReservationViewIntegrationTest extends TestKitSupport {
+
+  @Override
+  protected TestKit.Settings testKitSettings() {
+    return super.testKitSettings()
+      .withAdditionalConfig(ConfigFactory.parseString("""
+        application.mode = "choreography"
+        """));
+  }
+
+  @Test
+  public void shouldKeepOneRowForReservationUntilDeleted() {
+    //given
+    var reservationId = randomId();
+    var showId = randomId();
+
+    //when
+    await(componentClient.forKeyValueEntity(reservationId)
+      .method(ReservationEntity::create)
+      .invokeAsync(new CreateReservation(showId, randomId(), Money.ofUnits(100))));
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> assertThat(getShow(reservationId))
+        .isEqualTo(new ShowByReservation(reservationId, showId, Reservation.Status.PENDING)));
+
+    //when
+    await(componentClient.forKeyValueEntity(reservationId)
+      .method(ReservationEntity::cancel)
+      .invokeAsync());
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> assertThat(getShow(reservationId))
+        .isEqualTo(new ShowByReservation(reservationId, showId, Reservation.Status.CANCELLED)));
+
+    //when
+    await(componentClient.forKeyValueEntity(reservationId)
+      .method(ReservationEntity::delete)
+      .invokeAsync());
+
+    //then
+    Awaitility.await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .untilAsserted(() -> assertThatThrownBy(() -> getShow(reservationId)).isInstanceOf(RuntimeException.class));
+  }
+
+  private ShowByReservation getShow(String reservationId) {
+    return await(componentClient.forView()
+      .method(ShowByReservationView::getShow)
+      .invokeAsync(reservationId));
+  }
+}
@@ -7,6 +7,7 @@ import akka.javasdk.testkit.TestKitSupport;
 import akka.util.ByteString;
 import com.example.cinema.domain.SeatStatus;
 import com.example.cinema.domain.ShowCommand;
+import com.example.common.Money;
 import com.example.wallet.application.WalletEntity;
 import com.example.wallet.application.WalletResponse;
 import com.example.wallet.domain.WalletCommand;
@@ -108,7 +109,7 @@ public class ShowSeatReservationIntegrationTest extends TestKitSupport {
       });
 
     //simulating that the wallet was actually charged
-    chargeWallet(walletId, new WalletCommand.ChargeWallet(new BigDecimal(100), reservationId, randomId()));
+    chargeWallet(walletId, new WalletCommand.ChargeWallet(Money.ofUnits(100), reservationId, randomId()));
 
     Awaitility.await()
       .atMost(20, TimeUnit.of(SECONDS))
@@ -142,7 +143,7 @@ public class ShowSeatReservationIntegrationTest extends TestKitSupport {
       });
 
     //simulating that the wallet charging was rejected for this reservation
-    chargeWallet(walletId, new WalletCommand.ChargeWallet(new BigDecimal(400), reservationId, randomId()));
+    chargeWallet(walletId, new WalletCommand.ChargeWallet(Money.ofUnits(400), reservationId, randomId()));
 
     Awaitility.await()
       .atMost(20, TimeUnit.of(SECONDS))
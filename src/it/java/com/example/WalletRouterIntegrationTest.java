@@ -0,0 +1,132 @@
+package com.example;
+
+import akka.javasdk.testkit.TestKitSupport;
+import com.example.common.Money;
+import com.example.common.Response;
+import com.example.wallet.application.WalletRouter;
+import com.example.wallet.domain.WalletCommand.ChargeWallet;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static com.example.ShowSeatReservationIntegrationTest.randomId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletRouterIntegrationTest extends TestKitSupport {
+
+  private final Config cacheConfig = ConfigFactory.parseString("""
+    max-size = 100
+    time-to-live = 1 hour
+    """);
+
+  @Test
+  public void shouldChargeStripedWalletAboveStripeBalance() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100), 4));
+
+    //when
+    var response = await(walletRouter.charge(walletId, new ChargeWallet(Money.ofUnits(60), randomId(), randomId())));
+
+    //then
+    assertThat(response).isInstanceOf(Response.Success.class);
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(40));
+  }
+
+  @Test
+  public void shouldRejectChargeAboveWalletBalance() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100), 4));
+
+    //when
+    var response = await(walletRouter.charge(walletId, new ChargeWallet(Money.ofUnits(101), randomId(), randomId())));
+
+    //then
+    assertThat(response).isInstanceOf(Response.Failure.class);
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(100));
+  }
+
+  @Test
+  public void shouldChargeStripedWalletOnceForRepeatedCharge() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100), 4));
+    var chargeWallet = new ChargeWallet(Money.ofUnits(10), randomId(), randomId());
+
+    //when
+    await(walletRouter.charge(walletId, chargeWallet));
+    await(walletRouter.charge(walletId, chargeWallet));
+
+    //then
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(90));
+  }
+
+  @Test
+  public void shouldRouteToStripesOfWalletStripedAfterFirstLookup() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var otherNodeRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    assertThat(await(walletRouter.stripes(walletId))).isEqualTo(1);
+
+    //when
+    await(otherNodeRouter.create(walletId, Money.ofUnits(100), 2));
+
+    //then
+    assertThat(await(walletRouter.stripes(walletId))).isEqualTo(2);
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(100));
+  }
+
+  @Test
+  public void shouldRejectStripedCreationOfWalletThatIsNotStriped() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100)));
+
+    //when
+    var response = await(walletRouter.create(walletId, Money.ofUnits(100), 2));
+
+    //then
+    assertThat(response).isInstanceOf(Response.Failure.class);
+    assertThat(await(walletRouter.stripes(walletId))).isEqualTo(1);
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(100));
+  }
+
+  @Test
+  public void shouldRejectPlainCreationOfStripedWallet() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100), 2));
+
+    //when
+    var response = await(walletRouter.create(walletId, Money.ofUnits(100)));
+
+    //then
+    assertThat(response).isInstanceOf(Response.Failure.class);
+    assertThat(await(walletRouter.stripes(walletId))).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCompleteStripedWalletCreatedAgain() {
+    //given
+    var walletRouter = new WalletRouter(componentClient, cacheConfig);
+    var walletId = randomId();
+    await(walletRouter.create(walletId, Money.ofUnits(100), 4));
+
+    //when
+    var response = await(walletRouter.create(walletId, Money.ofUnits(100), 4));
+
+    //then
+    assertThat(response).isInstanceOf(Response.Success.class);
+    assertThat(await(walletRouter.get(walletId)).balance()).isEqualTo(new BigDecimal(100));
+    assertThat(await(walletRouter.create(walletId, Money.ofUnits(100), 2))).isInstanceOf(Response.Failure.class);
+  }
+}
@@ -1,14 +1,25 @@
 package com.example;
 
+import akka.javasdk.DependencyProvider;
+import akka.javasdk.JsonSupport;
 import akka.javasdk.ServiceSetup;
 import akka.javasdk.annotations.Setup;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timer.TimerScheduler;
 import com.example.cinema.api.SeatReservationEndpoint;
 import com.example.cinema.application.ChargeForReservation;
 import com.example.cinema.application.CompleteReservation;
+import com.example.cinema.application.ExpireReservations;
 import com.example.cinema.application.HandleWalletFailures;
 import com.example.cinema.application.RefundForReservation;
+import com.example.cinema.application.RetryWalletCharge;
+import com.example.cinema.application.SeatPriceCache;
+import com.example.cinema.application.SeatReservationView;
 import com.example.cinema.application.SeatReservationWorkflow;
 import com.example.cinema.application.WalletFailureEntity;
+import com.example.common.Retries;
+import com.example.common.VavrModule;
+import com.example.wallet.application.WalletRouter;
 import com.typesafe.config.Config;
 
 import java.util.Set;
@@ -17,17 +28,53 @@ import java.util.Set;
 public class AppSetup implements ServiceSetup {
 
   private final Config config;
+  private final ComponentClient componentClient;
+  private final TimerScheduler timerScheduler;
+  private final SeatPriceCache seatPriceCache;
+  private final WalletRouter walletRouter;
+  private final Retries retries;
 
-  public AppSetup(Config config) {
+  public AppSetup(Config config, ComponentClient componentClient, TimerScheduler timerScheduler) {
     this.config = config;
+    this.componentClient = componentClient;
+    this.timerScheduler = timerScheduler;
+    this.seatPriceCache = new SeatPriceCache(config.getConfig("application.seat-price-cache"));
+    this.walletRouter = new WalletRouter(componentClient, config.getConfig("application.wallet-stripes-cache"));
+    this.retries = new Retries(config.getConfig("application.retry-policies"));
+    JsonSupport.getObjectMapper().registerModule(new VavrModule());
+  }
+
+  @Override
+  public void onStartup() {
+    ExpireReservations.scheduleNextSweep(timerScheduler, componentClient,
+      config.getDuration("application.reservation-retention.sweep-interval"));
+  }
+
+  @Override
+  public DependencyProvider createDependencyProvider() {
+    return new DependencyProvider() {
+      @Override
+      public <T> T getDependency(Class<T> clazz) {
+        if (clazz == SeatPriceCache.class) {
+          return clazz.cast(seatPriceCache);
+        } else if (clazz == WalletRouter.class) {
+          return clazz.cast(walletRouter);
+        } else if (clazz == Retries.class) {
+          return clazz.cast(retries);
+        } else {
+          throw new IllegalArgumentException("Unknown dependency: " + clazz);
+        }
+      }
+    };
   }
 
   @Override
   public Set<Class<?>> disabledComponents() {
     if (config.getString("application.mode").equals("choreography")) {
-      return Set.of(SeatReservationWorkflow.class, SeatReservationEndpoint.class);
+      return Set.of(SeatReservationWorkflow.class, SeatReservationEndpoint.class, SeatReservationView.class);
     } else if (config.getString("application.mode").equals("orchestration")) {
-      return Set.of(ChargeForReservation.class, CompleteReservation.class, HandleWalletFailures.class, RefundForReservation.class, WalletFailureEntity.class);
+      return Set.of(ChargeForReservation.class, CompleteReservation.class, HandleWalletFailures.class, RefundForReservation.class, RetryWalletCharge.class,
+        WalletFailureEntity.class);
     } else {
       throw new RuntimeException("Unknown profile: " + config.getString("application.mode"));
     }
@@ -0,0 +1,53 @@
+package com.example.cinema.api;
+
+import akka.javasdk.client.ComponentClient;
+import com.example.cinema.application.ShowEntity;
+import com.example.cinema.application.ShowEntity.BestSeats;
+import com.example.cinema.application.ShowSeatsView;
+import com.example.cinema.application.ShowSeatsView.SectionsWithRun;
+import com.example.cinema.domain.SectionSeats;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Looks for N adjacent available seats in the sections that the view indexes with a long enough run, so the search
+ * doesn't depend on the number of sections. The view can lag behind, each candidate section picks the seats itself
+ * and the next candidate is tried if it has no such run anymore.
+ */
+class BestSeatsSearch {
+
+  private final ComponentClient componentClient;
+
+  BestSeatsSearch(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  /**
+   * @return seat numbers of the best seats, empty if no section has enough adjacent available seats
+   */
+  CompletionStage<List<Integer>> find(String showId, int numberOfSeats) {
+    return componentClient.forView()
+      .method(ShowSeatsView::getSectionsWithRun)
+      .invokeAsync(new SectionsWithRun(showId, numberOfSeats))
+      .thenCompose(candidates -> search(candidates.sections(), 0, numberOfSeats));
+  }
+
+  private CompletionStage<List<Integer>> search(List<SectionSeats> candidates, int candidate, int numberOfSeats) {
+    if (candidate >= candidates.size()) {
+      return CompletableFuture.completedFuture(List.of());
+    } else {
+      return findInSection(candidates.get(candidate).sectionId(), numberOfSeats)
+        .thenCompose(bestSeats -> bestSeats.seatNumbers().isEmpty()
+          ? search(candidates, candidate + 1, numberOfSeats)
+          : CompletableFuture.completedFuture(bestSeats.seatNumbers()));
+    }
+  }
+
+  private CompletionStage<BestSeats> findInSection(String sectionId, int numberOfSeats) {
+    return componentClient.forEventSourcedEntity(sectionId)
+      .method(ShowEntity::findBestSeats)
+      .invokeAsync(numberOfSeats);
+  }
+}
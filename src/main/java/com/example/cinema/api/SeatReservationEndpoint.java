@@ -6,43 +6,114 @@ import akka.javasdk.annotations.http.Get;
 import akka.javasdk.annotations.http.HttpEndpoint;
 import akka.javasdk.annotations.http.Post;
 import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.AbstractHttpEndpoint;
+import akka.javasdk.http.HttpException;
+import akka.javasdk.http.HttpResponses;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import com.example.cinema.application.SeatReservationView;
 import com.example.cinema.application.SeatReservationWorkflow;
-import com.example.cinema.application.ShowEntity;
 import com.example.cinema.domain.SeatReservation;
+import com.example.cinema.domain.ShowSections;
+import com.typesafe.config.Config;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import static akka.javasdk.http.HttpResponses.ok;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
 @HttpEndpoint("/seat-reservation")
-public class SeatReservationEndpoint {
+public class SeatReservationEndpoint extends AbstractHttpEndpoint {
+
+  public static final String WAIT_SECONDS_PARAM = "waitSeconds";
 
   private final ComponentClient componentClient;
 
-  public SeatReservationEndpoint(ComponentClient componentClient) {
+  private final BestSeatsSearch bestSeatsSearch;
+
+  private final Materializer materializer;
+
+  private final Duration maxWait;
+
+  public SeatReservationEndpoint(ComponentClient componentClient, Materializer materializer, Config config) {
     this.componentClient = componentClient;
+    this.bestSeatsSearch = new BestSeatsSearch(componentClient);
+    this.materializer = materializer;
+    this.maxWait = config.getDuration("application.seat-reservation.max-wait");
   }
 
   public record ReserveSeatRequest(String showId, int seatNumber, String walletId) {
   }
 
+  public record ReserveSeatsRequest(String showId, List<Integer> seatNumbers, String walletId) {
+  }
+
+  public record ReserveBestSeatsRequest(String showId, int numberOfSeats, String walletId) {
+  }
+
+  /**
+   * With the {@value #WAIT_SECONDS_PARAM} query parameter (for all reservation requests), the response is the final
+   * reservation state, or the current one with 202 status if the reservation is not finished in time.
+   */
   @Post("/{reservationId}")
   public CompletionStage<HttpResponse> reserve(String reservationId, ReserveSeatRequest reserveSeat) {
-    return getPrice(reserveSeat)
-      .thenCompose(price ->
-        componentClient.forWorkflow(reservationId)
-          .method(SeatReservationWorkflow::start)
-          .invokeAsync(new SeatReservationWorkflow.ReserveSeat(reserveSeat.showId(), reserveSeat.seatNumber(), price, reserveSeat.walletId()))
-          .thenApply(__ -> ok())
-      );
-  }
-
-  private CompletionStage<BigDecimal> getPrice(ReserveSeatRequest reserveSeat) {
-    return componentClient.forEventSourcedEntity(reserveSeat.showId())
-      .method(ShowEntity::getPrice)
-      .invokeAsync(reserveSeat.seatNumber());
+    return reserveGroup(reservationId, new ReserveSeatsRequest(reserveSeat.showId(), List.of(reserveSeat.seatNumber()), reserveSeat.walletId()));
+  }
+
+  @Post("/group/{reservationId}")
+  public CompletionStage<HttpResponse> reserveGroup(String reservationId, ReserveSeatsRequest reserveSeats) {
+    if (reserveSeats.seatNumbers().isEmpty() || !ShowSections.inSameSection(reserveSeats.seatNumbers())) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("Seats must be selected from one section"));
+    }
+    Optional<Duration> waitForOutcome = waitForOutcome();
+    return componentClient.forWorkflow(reservationId)
+      .method(SeatReservationWorkflow::start)
+      .invokeAsync(new SeatReservationWorkflow.ReserveSeat(reserveSeats.showId(), reserveSeats.seatNumbers(), reserveSeats.walletId()))
+      .thenCompose(__ -> waitForOutcome
+        .map(wait -> awaitOutcome(reservationId, wait))
+        .orElseGet(() -> CompletableFuture.completedFuture(ok())));
+  }
+
+  @Post("/best/{reservationId}")
+  public CompletionStage<HttpResponse> reserveBest(String reservationId, ReserveBestSeatsRequest reserveBestSeats) {
+    return bestSeatsSearch.find(reserveBestSeats.showId(), reserveBestSeats.numberOfSeats()).thenCompose(seatNumbers -> {
+      if (seatNumbers.isEmpty()) {
+        return CompletableFuture.completedFuture(HttpResponses.badRequest("Not enough adjacent seats available"));
+      } else {
+        return reserveGroup(reservationId, new ReserveSeatsRequest(reserveBestSeats.showId(), seatNumbers, reserveBestSeats.walletId()));
+      }
+    });
+  }
+
+  //notified by the view about workflow state changes, instead of polling the workflow
+  private CompletionStage<HttpResponse> awaitOutcome(String reservationId, Duration wait) {
+    return componentClient.forView()
+      .stream(SeatReservationView::getReservationUpdates)
+      .source(reservationId)
+      .filter(reservation -> reservation.status().isFinal())
+      .takeWithin(wait)
+      .runWith(Sink.headOption(), materializer)
+      .thenCompose(finalReservation -> finalReservation
+        .<CompletionStage<HttpResponse>>map(reservation -> CompletableFuture.completedFuture(HttpResponses.ok(reservation)))
+        .orElseGet(() -> get(reservationId).thenApply(HttpResponses::accepted)));
+  }
+
+  private Optional<Duration> waitForOutcome() {
+    return requestContext().queryParams().getString(WAIT_SECONDS_PARAM).map(waitSeconds -> {
+      try {
+        Duration wait = Duration.ofSeconds(Long.parseLong(waitSeconds));
+        if (wait.isNegative()) {
+          throw HttpException.badRequest("Invalid " + WAIT_SECONDS_PARAM + ": " + waitSeconds);
+        }
+        return wait.compareTo(maxWait) > 0 ? maxWait : wait;
+      } catch (NumberFormatException e) {
+        throw HttpException.badRequest("Invalid " + WAIT_SECONDS_PARAM + ": " + waitSeconds);
+      }
+    });
   }
 
   @Get("/{reservationId}")
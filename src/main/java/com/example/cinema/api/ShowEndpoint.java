@@ -1,49 +1,96 @@
 package com.example.cinema.api;
 
 import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.StatusCodes;
+import akka.http.javadsl.model.headers.ETag;
+import akka.http.javadsl.model.headers.EntityTag;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.Get;
 import akka.javasdk.annotations.http.HttpEndpoint;
 import akka.javasdk.annotations.http.Patch;
 import akka.javasdk.annotations.http.Post;
 import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.AbstractHttpEndpoint;
+import akka.javasdk.http.HttpException;
 import akka.javasdk.http.HttpResponses;
+import com.example.cinema.application.ShowAvailability;
 import com.example.cinema.application.ShowEntity;
 import com.example.cinema.application.ShowResponse;
+import com.example.cinema.application.ShowSeatsView;
+import com.example.cinema.domain.Seat;
 import com.example.cinema.domain.SeatStatus;
+import com.example.cinema.domain.SectionSeats;
 import com.example.cinema.domain.ShowCommand;
+import com.example.cinema.domain.ShowCommand.ChangeTierPrice;
+import com.example.cinema.domain.ShowCommand.ReserveBestSeats;
 import com.example.cinema.domain.ShowCommand.ReserveSeat;
+import com.example.cinema.domain.ShowCommand.ReserveSeats;
+import com.example.cinema.domain.ShowSections;
+import com.example.common.Money;
+import com.example.common.Response;
 import com.typesafe.config.Config;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import static akka.javasdk.http.HttpResponses.ok;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
 @HttpEndpoint("/cinema-show")
-public class ShowEndpoint {
+public class ShowEndpoint extends AbstractHttpEndpoint {
 
   private final ComponentClient componentClient;
   private final Config config;
+  private final BestSeatsSearch bestSeatsSearch;
 
   public ShowEndpoint(ComponentClient componentClient, Config config) {
     this.componentClient = componentClient;
     this.config = config;
+    this.bestSeatsSearch = new BestSeatsSearch(componentClient);
   }
 
+  /**
+   * Sections already created with the same title and size are accepted, so a partially created show is completed
+   * by repeating the request.
+   */
   @Post("/{showId}")
   public CompletionStage<HttpResponse> createShow(String showId, ShowCommand.CreateShow createShow) {
-    return componentClient.forEventSourcedEntity(showId)
-      .method(ShowEntity::create)
-      .invokeAsync(createShow)
-      .thenApply(__ -> ok());
+    if (!ShowSections.isValidShowId(showId)) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("Show id must not contain a section separator"));
+    }
+    List<CompletableFuture<Response>> sections = ShowSections.split(createShow).stream()
+      .map(createShowSection -> componentClient.forEventSourcedEntity(ShowSections.sectionId(showId, createShowSection.section()))
+        .method(ShowEntity::createSection)
+        .invokeAsync(createShowSection)
+        .exceptionally(throwable -> Response.Failure.of("section " + createShowSection.section() + " not created: " + throwable))
+        .toCompletableFuture())
+      .toList();
+
+    return CompletableFuture.allOf(sections.toArray(CompletableFuture[]::new))
+      .thenApply(__ -> {
+        List<Response.Failure> failures = sections.stream()
+          .map(CompletableFuture::join)
+          .filter(Response.Failure.class::isInstance)
+          .map(Response.Failure.class::cast)
+          .toList();
+        if (failures.isEmpty()) {
+          return ok();
+        } else if (failures.size() == sections.size()) {
+          return HttpResponses.badRequest(failures.get(0).message());
+        } else {
+          return HttpResponses.internalServerError("show partially created, " + failures.size() + " of " + sections.size()
+            + " sections failed, repeat the request to resume: " + failures.get(0).message());
+        }
+      });
   }
 
   @Patch("/{showId}/reserve")
   public CompletionStage<HttpResponse> reserveSeat(String showId, ReserveSeat reserveSeat) {
     if (config.getString("application.mode").equals("choreography")) {
-      return componentClient.forEventSourcedEntity(showId)
+      return componentClient.forEventSourcedEntity(ShowSections.entityId(showId, reserveSeat.seatNumber()))
         .method(ShowEntity::reserve)
         .invokeAsync(reserveSeat)
         .thenApply(__ -> ok());
@@ -52,17 +99,114 @@ public class ShowEndpoint {
     }
   }
 
+  @Patch("/{showId}/reserve-seats")
+  public CompletionStage<HttpResponse> reserveSeats(String showId, ReserveSeats reserveSeats) {
+    if (!config.getString("application.mode").equals("choreography")) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("This endpoint is disabled in orchestration mode"));
+    } else if (reserveSeats.seatNumbers().isEmpty() || !ShowSections.inSameSection(reserveSeats.seatNumbers())) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("Seats must be selected from one section"));
+    } else {
+      return componentClient.forEventSourcedEntity(ShowSections.entityId(showId, reserveSeats.seatNumbers().get(0)))
+        .method(ShowEntity::reserveSeats)
+        .invokeAsync(reserveSeats)
+        .thenApply(__ -> ok());
+    }
+  }
+
+  @Patch("/{showId}/reserve-best-seats")
+  public CompletionStage<HttpResponse> reserveBestSeats(String showId, ReserveBestSeats reserveBestSeats) {
+    if (!config.getString("application.mode").equals("choreography")) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("This endpoint is disabled in orchestration mode"));
+    } else {
+      return bestSeatsSearch.find(showId, reserveBestSeats.numberOfSeats()).thenCompose(seatNumbers -> {
+        if (seatNumbers.isEmpty()) {
+          return CompletableFuture.completedFuture(HttpResponses.badRequest("Not enough adjacent seats available"));
+        } else {
+          //the section picks the seats again, they could be taken in the meantime
+          return componentClient.forEventSourcedEntity(ShowSections.entityId(showId, seatNumbers.get(0)))
+            .method(ShowEntity::reserveBestSeats)
+            .invokeAsync(reserveBestSeats)
+            .thenApply(__ -> ok());
+        }
+      });
+    }
+  }
+
+  public record ChangeTierPriceRequest(int tier, BigDecimal price) {
+  }
+
+  @Patch("/{showId}/sections/{section}/tier-price")
+  public CompletionStage<HttpResponse> changeTierPrice(String showId, int section, ChangeTierPriceRequest request) {
+    if (!Money.isValid(request.price())) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("Invalid price: " + request.price()));
+    }
+    return componentClient.forEventSourcedEntity(ShowSections.sectionId(showId, section))
+      .method(ShowEntity::changeTierPrice)
+      .invokeAsync(new ChangeTierPrice(request.tier(), Money.of(request.price())))
+      .thenApply(response -> switch (response) {
+        case Response.Failure failure -> HttpResponses.badRequest(failure.message());
+        case Response.Success __ -> ok();
+      });
+  }
+
   @Get("/{showId}/seat-status/{seatNumber}")
   public CompletionStage<SeatStatus> getSeat(String showId, int seatNumber) {
-    return componentClient.forEventSourcedEntity(showId)
-      .method(ShowEntity::getSeatStatus)
-      .invokeAsync(seatNumber);
+    return getSection(ShowSections.entityId(showId, seatNumber))
+      .thenApply(section -> section.seats().get(seatNumber)
+        .map(Seat::status)
+        .getOrElseThrow(HttpException::notFound));
   }
 
   @Get("/{showId}")
   public CompletionStage<ShowResponse> get(String showId) {
-    return componentClient.forEventSourcedEntity(showId)
-      .method(ShowEntity::get)
-      .invokeAsync();
+    return getShow(showId).thenApply(sections -> ShowResponse.from(showId, sections));
+  }
+
+  /**
+   * Seat counts and runs of available seats, much smaller than the full show. The version is sent as an ETag,
+   * a poll with a matching If-None-Match gets 304 without the body.
+   */
+  @Get("/{showId}/availability")
+  public CompletionStage<HttpResponse> getAvailability(String showId) {
+    return getShow(showId).thenApply(sections -> {
+      var availability = sections.stream()
+        .map(ShowAvailability::from)
+        .reduce(ShowAvailability::merge)
+        .orElseThrow();
+      var eTag = ETag.create(EntityTag.create(String.valueOf(availability.version()), false));
+      if (isNotModified(eTag.etag())) {
+        return HttpResponse.create().withStatus(StatusCodes.NOT_MODIFIED).addHeader(eTag);
+      } else {
+        return ok(availability).addHeader(eTag);
+      }
+    });
+  }
+
+  private boolean isNotModified(EntityTag eTag) {
+    return requestContext().requestHeader("If-None-Match")
+      .map(ifNoneMatch -> Stream.of(ifNoneMatch.value().split(","))
+        .map(String::trim)
+        .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+        .anyMatch(tag -> tag.equals("*") || tag.equals("\"" + eTag.tag() + "\"")))
+      .orElse(false);
+  }
+
+  //reads are served from the view, so they don't compete with reservations on the show entities
+  private CompletionStage<List<SectionSeats>> getShow(String showId) {
+    return componentClient.forView()
+      .method(ShowSeatsView::getShow)
+      .invokeAsync(showId)
+      .thenApply(showSeats -> {
+        if (showSeats.sections().isEmpty()) {
+          throw HttpException.notFound();
+        }
+        return showSeats.sections();
+      });
+  }
+
+  private CompletionStage<SectionSeats> getSection(String sectionId) {
+    return componentClient.forView()
+      .method(ShowSeatsView::getSection)
+      .invokeAsync(sectionId);
   }
-}
\ No newline at end of file
+}
@@ -1,22 +1,19 @@
 package com.example.cinema.application;
 
-import akka.Done;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.Consume;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
-import akka.pattern.Patterns;
-import akka.stream.Materializer;
 import com.example.cinema.domain.ShowEvent.SeatReserved;
-import com.example.common.Response;
-import com.example.wallet.application.WalletEntity;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
+import com.example.common.Money;
+import com.example.common.Retries;
+import com.example.wallet.application.WalletRouter;
 import com.example.wallet.domain.WalletCommand.ChargeWallet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
 import java.util.UUID;
-import java.util.concurrent.CompletionStage;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -27,50 +24,39 @@ public class ChargeForReservation extends Consumer {
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private final ComponentClient componentClient;
-  private final Materializer materializer;
+  private final WalletRouter walletRouter;
+  private final Retries retries;
 
-  public ChargeForReservation(ComponentClient componentClient, Materializer materializer) {
+  public ChargeForReservation(ComponentClient componentClient, WalletRouter walletRouter, Retries retries) {
     this.componentClient = componentClient;
-    this.materializer = materializer;
+    this.walletRouter = walletRouter;
+    this.retries = retries;
   }
 
   public Effect charge(SeatReserved seatReserved) {
     logger.info("charging for reservation, triggered by {}", seatReserved);
-    String expenseId = seatReserved.reservationId();
+    return chargeForReservation(seatReserved.showId(), seatReserved.walletId(), seatReserved.reservationId(), seatReserved.price());
+  }
+
+  public Effect charge(SeatsReserved seatsReserved) {
+    logger.info("charging for group reservation, triggered by {}", seatsReserved);
+    return chargeForReservation(seatsReserved.showId(), seatsReserved.walletId(), seatsReserved.reservationId(), seatsReserved.price());
+  }
+
+  private Effect chargeForReservation(String showId, String walletId, String reservationId, Money price) {
+    String expenseId = reservationId;
     String entityId = messageContext().eventSubject().get();
     Long sequenceNum = messageContext().metadata().asCloudEvent().sequence().get();
     String commandId = UUID.nameUUIDFromBytes((entityId + sequenceNum).getBytes()).toString();
-    var chargeWallet = new ChargeWallet(seatReserved.price(), expenseId, commandId);
-    var walletId = seatReserved.walletId();
-
-
-    var attempts = 3;
-    var retryDelay = Duration.ofSeconds(1);
+    var chargeWallet = new ChargeWallet(price, expenseId, commandId, ReservationContext.of(showId));
 
+    //a failed charge is retried later, so the consumer can process the next events
     return effects().asyncDone(
-      Patterns.retry(() -> chargeWallet(walletId, chargeWallet),
-          attempts,
-          retryDelay,
-          materializer.system())
-        .exceptionallyComposeAsync(throwable ->
-          registerFailure(throwable, walletId, chargeWallet)
-        )
+      RetryWalletCharge.charge(walletRouter, retries, walletId, chargeWallet)
+        .exceptionallyCompose(throwable -> {
+          logger.info("charge {} failed, scheduling retry", chargeWallet);
+          return RetryWalletCharge.schedule(timers(), componentClient, retries, walletId, chargeWallet, 1);
+        })
     );
-
-  }
-
-  private CompletionStage<Done> chargeWallet(String walletId, ChargeWallet chargeWallet) {
-    return componentClient.forEventSourcedEntity(walletId)
-      .method(WalletEntity::charge)
-      .invokeAsync(chargeWallet)
-      .thenApply(Response::toDone);
-  }
-
-  private CompletionStage<Done> registerFailure(Throwable throwable, String walletId, ChargeWallet chargeWallet) {
-    var msg = throwable.getMessage(); //TODO
-
-    return componentClient.forEventSourcedEntity(walletId)
-      .method(WalletFailureEntity::registerFailure)
-      .invokeAsync(new WalletFailureEntity.RegisterChargeFailure(chargeWallet, msg));
   }
 }
@@ -5,17 +5,19 @@ import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.Consume;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
-import com.example.cinema.domain.Reservation;
 import com.example.cinema.domain.ShowByReservation;
 import com.example.cinema.domain.ShowCommand;
 import com.example.cinema.domain.ShowCommand.CancelSeatReservation;
 import com.example.common.Response;
 import com.example.wallet.application.WalletEntity;
+import com.example.wallet.domain.WalletStripes;
 import com.example.wallet.domain.WalletEvent.WalletChargeRejected;
 import com.example.wallet.domain.WalletEvent.WalletCharged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 @ComponentId("complete-reservation")
@@ -34,10 +36,12 @@ public class CompleteReservation extends Consumer {
     logger.info("confirming reservation, triggered by {}", walletCharged);
 
     String reservationId = walletCharged.expenseId();
+    var confirmReservationPayment = new ShowCommand.ConfirmReservationPayment(reservationId,
+      WalletStripes.walletIdOf(walletCharged.walletId()), walletCharged.amount());
 
     return effects().asyncDone(
-      getShowIdBy(reservationId)
-        .thenCompose(showId -> confirmReservation(showId, reservationId))
+      getShowIdBy(reservationId, walletCharged.context())
+        .thenCompose(showId -> confirmReservation(showId, confirmReservationPayment))
     );
   }
 
@@ -47,16 +51,20 @@ public class CompleteReservation extends Consumer {
     String reservationId = walletChargeRejected.expenseId();
 
     return effects().asyncDone(
-      getShowIdBy(reservationId)
+      getShowIdBy(reservationId, walletChargeRejected.context())
         .thenCompose(showId -> cancelReservation(showId, reservationId))
     );
   }
 
-  private CompletionStage<Done> confirmReservation(String showId, String reservationId) {
+  private CompletionStage<Done> confirmReservation(String showId, ShowCommand.ConfirmReservationPayment confirmReservationPayment) {
     return componentClient.forEventSourcedEntity(showId)
       .method(ShowEntity::confirmPayment)
-      .invokeAsync(new ShowCommand.ConfirmReservationPayment(reservationId))
-      .thenApply(Response::toDone);
+      .invokeAsync(confirmReservationPayment)
+      .thenApply(response -> switch (response) {
+        //the seat hold expired, refund is triggered by the CancelledReservationConfirmed event
+        case Response.Failure failure when failure.message().equals(ShowEntity.RESERVATION_CANCELLED) -> Done.done();
+        default -> response.toDone();
+      });
   }
 
   private CompletionStage<Done> cancelReservation(String showId, String reservationId) {
@@ -66,16 +74,14 @@ public class CompleteReservation extends Consumer {
       .thenApply(Response::toDone);
   }
 
-  //Key Value Entity as a read model
-  private CompletionStage<String> getShowIdBy(String reservationId) {
-    return componentClient.forKeyValueEntity(reservationId)
-      .method(ReservationEntity::get)
-      .invokeAsync()
-      .thenApply(Reservation::showId);
+  private CompletionStage<String> getShowIdBy(String reservationId, Map<String, String> context) {
+    return ReservationContext.showId(context)
+      .<CompletionStage<String>>map(CompletableFuture::completedFuture)
+      .orElseGet(() -> getShowIdBy(reservationId));
   }
 
-  //View as a read model
-  private CompletionStage<String> getShowIdBy2(String reservationId) {
+  //View as a read model, a point read of the reservation row
+  private CompletionStage<String> getShowIdBy(String reservationId) {
     return componentClient.forView()
       .method(ShowByReservationView::getShow)
       .invokeAsync(reservationId)
@@ -0,0 +1,86 @@
+package com.example.cinema.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+import akka.javasdk.timer.TimerScheduler;
+import com.example.cinema.domain.Reservation;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Periodic sweep of reservations finished before the retention period, the reservation entities are deleted in batches.
+ * Each sweep schedules the next one. Timer names are derived from the sweep interval, so scheduling the same sweep
+ * again, like on startup of each node, replaces the timer instead of starting another chain of sweeps.
+ */
+@ComponentId("expire-reservations")
+public class ExpireReservations extends TimedAction {
+
+  static final int BATCH_SIZE = 100;
+  //the view could still return deleted reservations, the rest is left for the next sweep
+  private static final int MAX_BATCHES = 10;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+  private final Duration retention;
+  private final Duration sweepInterval;
+
+  public ExpireReservations(ComponentClient componentClient, Config config) {
+    this.componentClient = componentClient;
+    this.retention = config.getDuration("application.reservation-retention.period");
+    this.sweepInterval = config.getDuration("application.reservation-retention.sweep-interval");
+  }
+
+  public Effect expire() {
+    return effects().asyncDone(
+      expireBatches(Instant.now().minus(retention), 1)
+        .thenCompose(__ -> scheduleNextSweep(timers(), componentClient, sweepInterval)));
+  }
+
+  //a full batch means there could be more finished reservations
+  private CompletionStage<Done> expireBatches(Instant finishedBefore, int batch) {
+    return componentClient.forView()
+      .method(ShowByReservationView::getFinishedBefore)
+      .invokeAsync(finishedBefore)
+      .thenCompose(finished -> {
+        var deletes = finished.reservations().stream()
+          .map(Reservation::reservationId)
+          .map(this::delete)
+          .map(CompletionStage::toCompletableFuture)
+          .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(deletes).thenCompose(__ -> {
+          if (finished.reservations().size() < BATCH_SIZE || batch == MAX_BATCHES) {
+            return CompletableFuture.completedFuture(Done.done());
+          } else {
+            logger.info("expiring next batch of reservations finished before {}", finishedBefore);
+            return expireBatches(finishedBefore, batch + 1);
+          }
+        });
+      });
+  }
+
+  private CompletionStage<Done> delete(String reservationId) {
+    return componentClient.forKeyValueEntity(reservationId)
+      .method(ReservationEntity::delete)
+      .invokeAsync();
+  }
+
+  public static CompletionStage<Done> scheduleNextSweep(TimerScheduler timers, ComponentClient componentClient, Duration sweepInterval) {
+    long next = Instant.now().toEpochMilli() / sweepInterval.toMillis() + 1;
+    Duration delay = Duration.between(Instant.now(), Instant.ofEpochMilli(next * sweepInterval.toMillis()));
+    return timers.createSingleTimer(
+      "expire-reservations-" + next,
+      delay.isNegative() ? Duration.ZERO : delay,
+      componentClient.forTimedAction()
+        .method(ExpireReservations::expire)
+        .deferred());
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.cinema.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static com.example.cinema.application.ShowEntity.EXPIRE_HOLDS_BATCH_SIZE;
+
+@ComponentId("expire-seat-holds")
+public class ExpireSeatHolds extends TimedAction {
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+
+  public ExpireSeatHolds(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  static String timerName(String showEntityId, long bucket) {
+    return "expire-holds-" + showEntityId + "-" + bucket;
+  }
+
+  public Effect expire(String showEntityId) {
+    return effects().asyncDone(expireBatches(showEntityId));
+  }
+
+  //each batch is persisted separately, a full batch means there could be more expired holds
+  private CompletionStage<Done> expireBatches(String showEntityId) {
+    return componentClient.forEventSourcedEntity(showEntityId)
+      .method(ShowEntity::expireHolds)
+      .invokeAsync()
+      .thenCompose(expired -> {
+        if (expired < EXPIRE_HOLDS_BATCH_SIZE) {
+          return CompletableFuture.completedFuture(Done.done());
+        } else {
+          logger.info("expiring next batch of seat holds for {}", showEntityId);
+          return expireBatches(showEntityId);
+        }
+      });
+  }
+}
@@ -12,6 +12,8 @@ import com.example.common.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 @ComponentId("handle-wallet-failures")
@@ -31,7 +33,7 @@ public class HandleWalletFailures extends Consumer {
 
     String reservationId = walletChargeFailureOccurred.source().expenseId();
 
-    return effects().asyncDone(getShowIdBy(reservationId).thenCompose(showId ->
+    return effects().asyncDone(getShowIdBy(reservationId, walletChargeFailureOccurred.source().context()).thenCompose(showId ->
       cancelReservation(reservationId, showId)
     ));
   }
@@ -43,6 +45,12 @@ public class HandleWalletFailures extends Consumer {
       .thenApply(Response::toDone);
   }
 
+  private CompletionStage<String> getShowIdBy(String reservationId, Map<String, String> context) {
+    return ReservationContext.showId(context)
+      .<CompletionStage<String>>map(CompletableFuture::completedFuture)
+      .orElseGet(() -> getShowIdBy(reservationId));
+  }
+
   private CompletionStage<String> getShowIdBy(String reservationId) {
     return componentClient.forKeyValueEntity(reservationId).method(ReservationEntity::get)
       .invokeAsync()
@@ -7,13 +7,13 @@ import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
 import com.example.cinema.domain.Reservation;
 import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
+import com.example.common.Money;
 import com.example.common.Response;
-import com.example.wallet.application.WalletEntity;
+import com.example.wallet.application.WalletRouter;
 import com.example.wallet.domain.WalletCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
 
@@ -26,9 +26,11 @@ public class RefundForReservation extends Consumer {
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private final ComponentClient componentClient;
+  private final WalletRouter walletRouter;
 
-  public RefundForReservation(ComponentClient componentClient) {
+  public RefundForReservation(ComponentClient componentClient, WalletRouter walletRouter) {
     this.componentClient = componentClient;
+    this.walletRouter = walletRouter;
   }
 
   public Effect refund(CancelledReservationConfirmed cancelledReservationConfirmed) {
@@ -37,6 +39,11 @@ public class RefundForReservation extends Consumer {
     String sequenceNum = messageContext().metadata().get("ce-sequence").orElseThrow();
     String commandId = UUID.nameUUIDFromBytes(sequenceNum.getBytes(UTF_8)).toString();
 
+    if (cancelledReservationConfirmed.walletId() != null && cancelledReservationConfirmed.price() != null) {
+      return effects().asyncDone(
+        refund(cancelledReservationConfirmed.walletId(), cancelledReservationConfirmed.price(), commandId));
+    }
+
     return effects().asyncDone(
       getReservation(cancelledReservationConfirmed.reservationId()).thenCompose(reservation ->
         refund(reservation.walletId(), reservation.price(), commandId)
@@ -50,10 +57,8 @@ public class RefundForReservation extends Consumer {
       .invokeAsync();
   }
 
-  private CompletionStage<Done> refund(String walletId, BigDecimal amount, String commandId) {
-    return componentClient.forEventSourcedEntity(walletId)
-      .method(WalletEntity::deposit)
-      .invokeAsync(new WalletCommand.DepositFunds(amount, commandId))
+  private CompletionStage<Done> refund(String walletId, Money amount, String commandId) {
+    return walletRouter.deposit(walletId, new WalletCommand.DepositFunds(amount, commandId))
       .thenApply(Response::toDone);
   }
 }
@@ -0,0 +1,24 @@
+package com.example.cinema.application;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Saga context of a reservation charge, carried by the wallet events and failures, so the choreography
+ * doesn't look up the reservation for every step. Charges without a context fall back to the lookup.
+ */
+final class ReservationContext {
+
+  static final String SHOW_ID = "showId";
+
+  private ReservationContext() {
+  }
+
+  static Map<String, String> of(String showId) {
+    return Map.of(SHOW_ID, showId);
+  }
+
+  static Optional<String> showId(Map<String, String> context) {
+    return Optional.ofNullable(context.get(SHOW_ID));
+  }
+}
@@ -4,18 +4,23 @@ import akka.Done;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.keyvalueentity.KeyValueEntity;
 import com.example.cinema.domain.Reservation;
+import com.example.common.Money;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 
 import static akka.Done.done;
 
 @ComponentId("reservation")
 public class ReservationEntity extends KeyValueEntity<Reservation> {
 
-  public record CreateReservation(String showId, String walletId, BigDecimal price) {
+  public record CreateReservation(String showId, String walletId, Money price) {
   }
 
   public Effect<Done> create(CreateReservation createReservation) {
+    if (currentState() != null) {
+      //redelivered event, the reservation could be finished already
+      return effects().reply(done());
+    }
     String reservationId = commandContext().entityId();
     return effects().updateState(new Reservation(reservationId, createReservation.showId, createReservation.walletId, createReservation.price)).thenReply(done());
   }
@@ -28,6 +33,22 @@ public class ReservationEntity extends KeyValueEntity<Reservation> {
     }
   }
 
+  public Effect<Done> confirm() {
+    if (currentState() == null) {
+      return effects().reply(done());
+    } else {
+      return effects().updateState(currentState().asConfirmed(Instant.now())).thenReply(done());
+    }
+  }
+
+  public Effect<Done> cancel() {
+    if (currentState() == null) {
+      return effects().reply(done());
+    } else {
+      return effects().updateState(currentState().asCancelled(Instant.now())).thenReply(done());
+    }
+  }
+
   public Effect<Done> delete() {
     return effects().deleteEntity().thenReply(done());
   }
@@ -0,0 +1,99 @@
+package com.example.cinema.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+import akka.javasdk.timer.TimerScheduler;
+import com.example.common.Response;
+import com.example.common.Retries;
+import com.example.wallet.application.WalletRouter;
+import com.example.wallet.domain.WalletCommand.ChargeWallet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Durable delayed retries of wallet charges that failed in {@link ChargeForReservation}, so a few unhealthy wallets
+ * don't hold up the show events stream. Each retry is a timer, the next one is scheduled with a growing backoff
+ * and after the last one the failure is registered.
+ */
+@ComponentId("retry-wallet-charge")
+public class RetryWalletCharge extends TimedAction {
+
+  static final String CHARGE_POLICY = "charge-for-reservation";
+  static final String RETRY_POLICY = "retry-wallet-charge";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+  private final WalletRouter walletRouter;
+  private final Retries retries;
+
+  public RetryWalletCharge(ComponentClient componentClient, WalletRouter walletRouter, Retries retries) {
+    this.componentClient = componentClient;
+    this.walletRouter = walletRouter;
+    this.retries = retries;
+  }
+
+  /**
+   * @param attempt retries so far, from 1
+   */
+  public record RetryCharge(String walletId, ChargeWallet chargeWallet, int attempt) {
+  }
+
+  static String timerName(String commandId, int attempt) {
+    return "retry-wallet-charge-" + commandId + "-" + attempt;
+  }
+
+  public Effect retry(RetryCharge retryCharge) {
+    logger.info("retrying wallet charge {}", retryCharge);
+    return effects().asyncDone(
+      charge(walletRouter, retries, retryCharge.walletId(), retryCharge.chargeWallet())
+        .exceptionallyCompose(throwable -> {
+          if (retryCharge.attempt() >= retries.policy(RETRY_POLICY).maxAttempts()) {
+            return registerFailure(throwable, retryCharge.walletId(), retryCharge.chargeWallet());
+          } else {
+            return schedule(timers(), componentClient, retries, retryCharge.walletId(), retryCharge.chargeWallet(), retryCharge.attempt() + 1);
+          }
+        }));
+  }
+
+  static CompletionStage<Done> charge(WalletRouter walletRouter, Retries retries, String walletId, ChargeWallet chargeWallet) {
+    return retries.call(CHARGE_POLICY, () -> walletRouter.charge(walletId, chargeWallet))
+      .thenApply(Response::toDone);
+  }
+
+  /**
+   * Re-scheduling the same attempt, like after a redelivered event, replaces the timer.
+   */
+  static CompletionStage<Done> schedule(TimerScheduler timers, ComponentClient componentClient, Retries retries,
+                                        String walletId, ChargeWallet chargeWallet, int attempt) {
+    var backoff = retries.policy(RETRY_POLICY).backoff(attempt, ThreadLocalRandom.current().nextDouble());
+    return timers.createSingleTimer(
+      timerName(chargeWallet.commandId(), attempt),
+      backoff,
+      componentClient.forTimedAction()
+        .method(RetryWalletCharge::retry)
+        .deferred(new RetryCharge(walletId, chargeWallet, attempt)));
+  }
+
+  private CompletionStage<Done> registerFailure(Throwable throwable, String walletId, ChargeWallet chargeWallet) {
+    logger.info("wallet charge {} failed after retries", chargeWallet);
+    var msg = failureMessage(throwable, retries.policy(RETRY_POLICY).maxAttempts());
+
+    return componentClient.forEventSourcedEntity(walletId)
+      .method(WalletFailureEntity::registerFailure)
+      .invokeAsync(new WalletFailureEntity.RegisterChargeFailure(chargeWallet, msg));
+  }
+
+  //the cause of a failed stage is wrapped and its message can be null, the type of the cause is always known
+  static String failureMessage(Throwable throwable, int retries) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    String reason = cause.getMessage() == null ? cause.getClass().getName() : cause.getClass().getName() + ": " + cause.getMessage();
+    return "wallet charge failed after " + retries + " retries, last failure: " + reason;
+  }
+}
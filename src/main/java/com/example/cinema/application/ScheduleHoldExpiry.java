@@ -0,0 +1,53 @@
+package com.example.cinema.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import com.example.cinema.domain.ShowEvent.SeatReserved;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Schedules expiry of seat holds. Deadlines are grouped into buckets, all holds of a show section with a deadline in
+ * the same bucket share one timer, so a busy show has at most one pending timer per bucket and not one per reservation.
+ */
+@ComponentId("schedule-hold-expiry")
+@Consume.FromEventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class ScheduleHoldExpiry extends Consumer {
+
+  static final Duration BUCKET = Duration.ofMinutes(1);
+
+  private final ComponentClient componentClient;
+
+  public ScheduleHoldExpiry(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect onEvent(SeatReserved reserved) {
+    return scheduleExpiry(reserved.showId(), reserved.expiresAt());
+  }
+
+  public Effect onEvent(SeatsReserved reserved) {
+    return scheduleExpiry(reserved.showId(), reserved.expiresAt());
+  }
+
+  private Effect scheduleExpiry(String showEntityId, Instant expiresAt) {
+    if (expiresAt == null) {
+      return effects().done();
+    }
+    long bucket = expiresAt.toEpochMilli() / BUCKET.toMillis();
+    Instant bucketEnd = Instant.ofEpochMilli((bucket + 1) * BUCKET.toMillis());
+    Duration delay = Duration.between(Instant.now(), bucketEnd);
+    //re-registering the same timer name replaces the timer with an identical one
+    return effects().asyncDone(
+      timers().createSingleTimer(
+        ExpireSeatHolds.timerName(showEntityId, bucket),
+        delay.isNegative() ? Duration.ZERO : delay,
+        componentClient.forTimedAction()
+          .method(ExpireSeatHolds::expire)
+          .deferred(showEntityId)));
+  }
+}
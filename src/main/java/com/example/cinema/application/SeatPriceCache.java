@@ -0,0 +1,34 @@
+package com.example.cinema.application;
+
+import com.example.cinema.domain.SectionPrices;
+import com.example.common.BoundedCache;
+import com.example.common.Money;
+import com.typesafe.config.Config;
+
+import java.util.Optional;
+
+/**
+ * Node-local seat prices of show sections, so the reservation workflow can hold wallet funds before the show replies with the price.
+ * Only an estimate, the wallet is always charged the price from the show reply. Filled from show events and from the prices
+ * in every seats reservation reply, which also replace an entry that turned out to be stale.
+ */
+public class SeatPriceCache {
+
+  private final BoundedCache<String, SectionPrices> cache;
+
+  public SeatPriceCache(Config config) {
+    this.cache = new BoundedCache<>(config.getInt("max-size"), config.getDuration("time-to-live"));
+  }
+
+  public Optional<SectionPrices> get(String sectionId) {
+    return cache.get(sectionId);
+  }
+
+  public void put(String sectionId, SectionPrices prices) {
+    cache.put(sectionId, prices);
+  }
+
+  public void changeTierPrice(String sectionId, int tier, Money price) {
+    cache.computeIfPresent(sectionId, prices -> prices.withTierPrice(tier, price));
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.cinema.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import com.example.cinema.domain.SeatReservation;
+
+/**
+ * Seat reservation workflow states, streamed to clients waiting for the outcome of a reservation.
+ */
+@ComponentId("seat-reservation-view")
+public class SeatReservationView extends View {
+
+  @Query(value = "SELECT * FROM seat_reservations WHERE reservationId = :reservationId", streamUpdates = true)
+  public QueryStreamEffect<SeatReservation> getReservationUpdates(String reservationId) {
+    return queryStreamResult();
+  }
+
+  @Consume.FromWorkflow(SeatReservationWorkflow.class)
+  public static class SeatReservationUpdater extends TableUpdater<SeatReservation> {
+  }
+}
@@ -5,24 +5,36 @@ import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.workflow.Workflow;
 import akka.javasdk.workflow.Workflow.Effect.TransitionalEffect;
+import com.example.cinema.application.SeatsReservationResponse.Rejected;
+import com.example.cinema.application.SeatsReservationResponse.Reserved;
 import com.example.cinema.domain.SeatReservation;
 import com.example.cinema.domain.ShowCommand;
 import com.example.cinema.domain.ShowCommand.CancelSeatReservation;
 import com.example.cinema.domain.ShowCommand.ConfirmReservationPayment;
+import com.example.cinema.domain.ShowSections;
+import com.example.common.Money;
 import com.example.common.Response;
-import com.example.wallet.application.WalletEntity;
+import com.example.common.Retries;
+import com.example.wallet.application.WalletRouter;
 import com.example.wallet.domain.WalletCommand;
+import com.example.wallet.domain.WalletCommand.AuthorizeCharge;
+import com.example.wallet.domain.WalletCommand.CaptureCharge;
 import com.example.wallet.domain.WalletCommand.Refund;
+import com.example.wallet.domain.WalletCommand.VoidCharge;
+import com.typesafe.config.Config;
+import io.vavr.control.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import static akka.Done.done;
 import static com.example.cinema.domain.SeatReservationStatus.STARTED;
+import static com.example.wallet.domain.WalletCommandError.EXPENSE_NOT_FOUND;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 @ComponentId("seat-reservation")
@@ -33,54 +45,122 @@ public class SeatReservationWorkflow extends Workflow<SeatReservation> {
   public static final String CANCEL_RESERVATION_STEP = "cancel-reservation";
   public static final String CONFIRM_RESERVATION_STEP = "confirm-reservation";
   public static final String REFUND_STEP = "refund";
+  public static final String RESERVE_SEAT_AND_HOLD_FUNDS_STEP = "reserve-seat-and-hold-funds";
+  public static final String CAPTURE_FUNDS_AND_CONFIRM_RESERVATION_STEP = "capture-funds-and-confirm-reservation";
+  public static final String VOID_FUNDS_STEP = "void-funds";
+  public static final String VOID_AND_REFUND_FUNDS_STEP = "void-and-refund-funds";
+  public static final String VOID_FUNDS_AND_CHARGE_STEP = "void-funds-and-charge";
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final ComponentClient componentClient;
+  private final WalletRouter walletRouter;
+  private final SeatPriceCache seatPriceCache;
+  private final Retries retries;
+  private final boolean holdFundsInParallel;
 
-  public SeatReservationWorkflow(ComponentClient componentClient) {
+  public SeatReservationWorkflow(ComponentClient componentClient, WalletRouter walletRouter, SeatPriceCache seatPriceCache,
+                                 Retries retries, Config config) {
     this.componentClient = componentClient;
+    this.walletRouter = walletRouter;
+    this.seatPriceCache = seatPriceCache;
+    this.retries = retries;
+    this.holdFundsInParallel = config.getBoolean("application.seat-reservation.hold-funds-in-parallel");
   }
 
-  public record ReserveSeat(String showId, int seatNumber, BigDecimal price, String walletId) {
+  /**
+   * The price is taken from the show when the seats are reserved.
+   */
+  public record ReserveSeat(String showId, List<Integer> seatNumbers, String walletId) {
   }
 
+  public record SeatReservedAndFundsHeld(SeatsReservationResponse seatReservation, Response fundsHold) {
+  }
+
+  /**
+   * The confirmation is null when the capture failed, since the reservation is confirmed only for captured funds.
+   */
+  public record FundsCapturedAndReservationConfirmed(Response capture, Response confirmation) {
+  }
+
+  /**
+   * Each step retries failed calls with the retry policy of the step, the step timeout covers all attempts.
+   * A step that still fails is retried once more by the workflow before the failover.
+   */
   @Override
   public WorkflowDef<SeatReservation> definition() {
     var reserveSeat = step(RESERVE_SEAT_STEP)
-      .asyncCall(this::reserveSeat)
-      .andThen(Response.class, this::chargeWalletOrStop);
+      .asyncCall(() -> retries.call(RESERVE_SEAT_STEP, this::reserveSeat))
+      .andThen(SeatsReservationResponse.class, this::chargeWalletOrStop)
+      .timeout(retries.policy(RESERVE_SEAT_STEP).budget());
 
     var chargeWallet = step(CHARGE_WALLET_STEP)
-      .asyncCall(this::chargeWallet)
-      .andThen(Response.class, this::confirmOrCancelReservation);
+      .asyncCall(() -> retries.call(CHARGE_WALLET_STEP, this::chargeWallet))
+      .andThen(Response.class, this::confirmOrCancelReservation)
+      .timeout(retries.policy(CHARGE_WALLET_STEP).budget());
 
     var confirmReservation = step(CONFIRM_RESERVATION_STEP)
-      .asyncCall(this::confirmReservation)
-      .andThen(Response.class, this::endAsCompleted);
+      .asyncCall(() -> retries.call(CONFIRM_RESERVATION_STEP, this::confirmReservation))
+      .andThen(Response.class, this::endAsCompleted)
+      .timeout(retries.policy(CONFIRM_RESERVATION_STEP).budget());
 
     var cancelReservation = step(CANCEL_RESERVATION_STEP)
-      .asyncCall(this::cancelReservation)
-      .andThen(Response.class, this::endAsFailed);
+      .asyncCall(() -> retries.call(CANCEL_RESERVATION_STEP, this::cancelReservation))
+      .andThen(Response.class, this::endAsFailed)
+      .timeout(retries.policy(CANCEL_RESERVATION_STEP).budget());
 
     var refund = step(REFUND_STEP)
-      .asyncCall(this::refund)
-      .andThen(Response.class, this::cancelReservation);
+      .asyncCall(() -> retries.call(REFUND_STEP, this::refund))
+      .andThen(Response.class, this::cancelReservation)
+      .timeout(retries.policy(REFUND_STEP).budget());
+
+    var reserveSeatAndHoldFunds = step(RESERVE_SEAT_AND_HOLD_FUNDS_STEP)
+      .asyncCall(() -> retries.call(RESERVE_SEAT_AND_HOLD_FUNDS_STEP, this::reserveSeatAndHoldFunds))
+      .andThen(SeatReservedAndFundsHeld.class, this::confirmOrCompensate)
+      .timeout(retries.policy(RESERVE_SEAT_AND_HOLD_FUNDS_STEP).budget());
+
+    var captureFundsAndConfirmReservation = step(CAPTURE_FUNDS_AND_CONFIRM_RESERVATION_STEP)
+      .asyncCall(() -> retries.call(CAPTURE_FUNDS_AND_CONFIRM_RESERVATION_STEP, this::captureFundsAndConfirmReservation))
+      .andThen(FundsCapturedAndReservationConfirmed.class, this::endAsCompletedOrCompensate)
+      .timeout(retries.policy(CAPTURE_FUNDS_AND_CONFIRM_RESERVATION_STEP).budget());
+
+    var voidFunds = step(VOID_FUNDS_STEP)
+      .asyncCall(() -> retries.call(VOID_FUNDS_STEP, this::voidFunds))
+      .andThen(Response.class, this::cancelReservationAfterVoid)
+      .timeout(retries.policy(VOID_FUNDS_STEP).budget());
+
+    var voidAndRefundFunds = step(VOID_AND_REFUND_FUNDS_STEP)
+      .asyncCall(() -> retries.call(VOID_AND_REFUND_FUNDS_STEP, this::voidAndRefundFunds))
+      .andThen(Response.class, this::cancelReservationAfterVoid)
+      .timeout(retries.policy(VOID_AND_REFUND_FUNDS_STEP).budget());
+
+    var voidFundsAndCharge = step(VOID_FUNDS_AND_CHARGE_STEP)
+      .asyncCall(() -> retries.call(VOID_FUNDS_AND_CHARGE_STEP, this::voidFunds))
+      .andThen(Response.class, this::chargeWalletAfterVoid)
+      .timeout(retries.policy(VOID_FUNDS_AND_CHARGE_STEP).budget());
 
     return workflow()
-      .defaultStepTimeout(Duration.ofSeconds(3))
-      .addStep(reserveSeat, maxRetries(3).failoverTo(CANCEL_RESERVATION_STEP))
-      .addStep(chargeWallet, maxRetries(3).failoverTo(REFUND_STEP))
+      .defaultStepTimeout(retries.policy(Retries.DEFAULT_POLICY).budget())
+      .addStep(reserveSeat, maxRetries(1).failoverTo(CANCEL_RESERVATION_STEP))
+      .addStep(chargeWallet, maxRetries(1).failoverTo(REFUND_STEP))
       .addStep(confirmReservation)
       .addStep(cancelReservation)
-      .addStep(refund);
+      .addStep(refund)
+      .addStep(reserveSeatAndHoldFunds, maxRetries(1).failoverTo(VOID_FUNDS_STEP))
+      .addStep(captureFundsAndConfirmReservation, maxRetries(1).failoverTo(VOID_AND_REFUND_FUNDS_STEP))
+      .addStep(voidFunds)
+      .addStep(voidAndRefundFunds)
+      .addStep(voidFundsAndCharge);
   }
 
   private CompletionStage<Response> refund() {
     logger.info("refunding");
     //we can't use reservationId for refund, because it was used for charging.
-    var commandId = UUID.nameUUIDFromBytes(currentState().reservationId().getBytes(UTF_8)).toString();
-    return componentClient.forEventSourcedEntity(currentState().walletId())
-      .method(WalletEntity::refund)
-      .invokeAsync(new Refund(currentState().reservationId(), commandId));
+    var commandId = UUID.nameUUIDFromBytes((currentState().reservationId() + "-refund").getBytes(UTF_8)).toString();
+    return walletRouter.refund(currentState().walletId(), new Refund(currentState().reservationId(), commandId))
+      .thenApply(response -> switch (response) {
+        //the charge failed before it reached the wallet, nothing to refund
+        case Response.Failure failure when failure.message().equals(EXPENSE_NOT_FOUND.name()) -> Response.Success.of("nothing to refund");
+        default -> response;
+      });
   }
 
   private TransitionalEffect<Void> cancelReservation(Response response) {
@@ -95,7 +175,7 @@ public class SeatReservationWorkflow extends Workflow<SeatReservation> {
 
   private CompletionStage<Response> cancelReservation() {
     logger.info("cancelling reservation");
-    return componentClient.forEventSourcedEntity(currentState().showId())
+    return componentClient.forEventSourcedEntity(showEntityId())
       .method(ShowEntity::cancelReservation)
       .invokeAsync(new CancelSeatReservation(currentState().reservationId()));
   }
@@ -112,13 +192,18 @@ public class SeatReservationWorkflow extends Workflow<SeatReservation> {
 
   private CompletionStage<Response> confirmReservation() {
     logger.info("confirming reservation");
-    return componentClient.forEventSourcedEntity(currentState().showId())
+    return componentClient.forEventSourcedEntity(showEntityId())
       .method(ShowEntity::confirmPayment)
-      .invokeAsync(new ConfirmReservationPayment(currentState().reservationId()));
+      .invokeAsync(new ConfirmReservationPayment(currentState().reservationId(), currentState().walletId(), currentState().price()));
   }
 
   private TransitionalEffect<Void> endAsCompleted(Response response) {
     return switch (response) {
+      case Response.Failure failure when failure.message().equals(ShowEntity.RESERVATION_CANCELLED) -> {
+        //the seat hold expired while charging the wallet
+        logger.warn("reservation cancelled before confirmation, refunding");
+        yield effects().transitionTo(REFUND_STEP);
+      }
       case Response.Failure failure ->
         throw new IllegalStateException("Expecting successful response, but got: " + failure);
       case Response.Success __ -> effects()
@@ -127,13 +212,143 @@ public class SeatReservationWorkflow extends Workflow<SeatReservation> {
     };
   }
 
+  /**
+   * The seat reservation and the funds hold are independent, so they are sent at the same time.
+   * The funds are held for the cached price, the show replies with the price it charges for. Only the held funds
+   * for the same price are captured, otherwise they are released and the wallet is charged the show price.
+   */
+  private CompletionStage<SeatReservedAndFundsHeld> reserveSeatAndHoldFunds() {
+    logger.info("reserving seats {} and holding funds", currentState().seatNumbers());
+    var expenseId = currentState().reservationId();
+    //we can't use reservationId for the hold, because it is used for charging after the hold is released.
+    var commandId = UUID.nameUUIDFromBytes((currentState().reservationId() + "-hold").getBytes(UTF_8)).toString();
+    var fundsHold = walletRouter.authorize(currentState().walletId(), new AuthorizeCharge(currentState().price(), expenseId, commandId));
+    return reserveSeat().thenCombine(fundsHold, SeatReservedAndFundsHeld::new);
+  }
+
+  private TransitionalEffect<Void> confirmOrCompensate(SeatReservedAndFundsHeld result) {
+    return switch (result) {
+      case SeatReservedAndFundsHeld(Reserved reserved, Response.Success __) when reserved.price().equals(currentState().price()) -> {
+        seatPriceCache.put(showEntityId(), reserved.prices());
+        yield effects()
+          .updateState(currentState().asFundsHeld())
+          .transitionTo(CAPTURE_FUNDS_AND_CONFIRM_RESERVATION_STEP);
+      }
+      case SeatReservedAndFundsHeld(Reserved reserved, Response.Success __) -> {
+        logger.info("seat price changed to {}, releasing held funds and charging the wallet", reserved.price());
+        seatPriceCache.put(showEntityId(), reserved.prices());
+        yield effects()
+          .updateState(currentState().asSeatReserved(reserved.price()))
+          .transitionTo(VOID_FUNDS_AND_CHARGE_STEP);
+      }
+      case SeatReservedAndFundsHeld(Reserved reserved, Response.Failure __) when !reserved.price().equals(currentState().price()) -> {
+        logger.info("seat price changed to {}, charging the wallet", reserved.price());
+        seatPriceCache.put(showEntityId(), reserved.prices());
+        yield effects()
+          .updateState(currentState().asSeatReserved(reserved.price()))
+          .transitionTo(CHARGE_WALLET_STEP);
+      }
+      case SeatReservedAndFundsHeld(Reserved reserved, Response.Failure fundsHoldFailure) -> {
+        logger.warn("holding funds failed with: " + fundsHoldFailure);
+        seatPriceCache.put(showEntityId(), reserved.prices());
+        yield effects()
+          .updateState(currentState().asSeatReserved(reserved.price()).asWalletChargeRejected())
+          .transitionTo(CANCEL_RESERVATION_STEP);
+      }
+      case SeatReservedAndFundsHeld(Rejected seatReservationFailure, Response.Success __) -> {
+        logger.warn("seat reservation failed with: " + seatReservationFailure);
+        yield effects().transitionTo(VOID_FUNDS_STEP);
+      }
+      case SeatReservedAndFundsHeld(Rejected seatReservationFailure, Response.Failure __) -> {
+        logger.warn("seat reservation failed with: " + seatReservationFailure);
+        yield effects()
+          .updateState(currentState().asSeatReservationFailed())
+          .end();
+      }
+    };
+  }
+
+  /**
+   * The held funds are for the reserved price, the reservation is confirmed only after they are captured,
+   * so a confirmed seat is always paid. The rare confirmation of a reservation cancelled in the meantime
+   * is compensated with a refund.
+   */
+  private CompletionStage<FundsCapturedAndReservationConfirmed> captureFundsAndConfirmReservation() {
+    return captureFunds().thenCompose(capture -> switch (capture) {
+      case Response.Success __ -> confirmReservation()
+        .thenApply(confirmation -> new FundsCapturedAndReservationConfirmed(capture, confirmation));
+      case Response.Failure __ -> CompletableFuture.completedFuture(new FundsCapturedAndReservationConfirmed(capture, null));
+    });
+  }
+
+  private TransitionalEffect<Void> endAsCompletedOrCompensate(FundsCapturedAndReservationConfirmed result) {
+    return switch (result) {
+      case FundsCapturedAndReservationConfirmed(Response.Success captured, Response.Success confirmed) -> effects()
+        .updateState(currentState().asCompleted())
+        .end();
+      case FundsCapturedAndReservationConfirmed(Response.Success captured, Response.Failure failure)
+        when failure.message().equals(ShowEntity.RESERVATION_CANCELLED) -> {
+        logger.warn("reservation cancelled before confirmation, refunding captured funds");
+        yield effects()
+          .updateState(currentState().asWalletCharged())
+          .transitionTo(REFUND_STEP);
+      }
+      case FundsCapturedAndReservationConfirmed(Response.Failure notCaptured, var __) -> {
+        logger.warn("capturing funds failed with: " + notCaptured);
+        yield effects().transitionTo(VOID_FUNDS_STEP);
+      }
+      case FundsCapturedAndReservationConfirmed(var capture, var confirmation) ->
+        throw new IllegalStateException("Expecting successful responses, but got: " + capture + " and " + confirmation);
+    };
+  }
+
+  private CompletionStage<Response> captureFunds() {
+    logger.info("capturing funds");
+    var commandId = UUID.nameUUIDFromBytes((currentState().reservationId() + "-capture").getBytes(UTF_8)).toString();
+    return walletRouter.capture(currentState().walletId(), new CaptureCharge(currentState().reservationId(), commandId));
+  }
+
+  private CompletionStage<Response> voidFunds() {
+    logger.info("releasing funds");
+    var commandId = UUID.nameUUIDFromBytes((currentState().reservationId() + "-void").getBytes(UTF_8)).toString();
+    return walletRouter.voidCharge(currentState().walletId(), new VoidCharge(currentState().reservationId(), commandId));
+  }
+
+  /**
+   * It's not known if the funds were captured before the failure, so the hold is voided and the expense is refunded,
+   * both of them tolerate the missing counterpart.
+   */
+  private CompletionStage<Response> voidAndRefundFunds() {
+    return voidFunds().thenCompose(voided -> switch (voided) {
+      case Response.Success __ -> refund();
+      case Response.Failure __ -> CompletableFuture.completedFuture(voided);
+    });
+  }
+
+  private TransitionalEffect<Void> chargeWalletAfterVoid(Response response) {
+    return switch (response) {
+      case Response.Failure failure ->
+        throw new IllegalStateException("Expecting successful response, but got: " + failure);
+      case Response.Success __ -> effects().transitionTo(CHARGE_WALLET_STEP);
+    };
+  }
+
+  //cancelling a reservation that was not made is a no-op
+  private TransitionalEffect<Void> cancelReservationAfterVoid(Response response) {
+    return switch (response) {
+      case Response.Failure failure ->
+        throw new IllegalStateException("Expecting successful response, but got: " + failure);
+      case Response.Success __ -> effects()
+        .updateState(currentState().asFundsReleased())
+        .transitionTo(CANCEL_RESERVATION_STEP);
+    };
+  }
+
   private CompletionStage<Response> chargeWallet() {
     logger.info("charging wallet");
     var expenseId = currentState().reservationId();
     var commandId = expenseId; //reusing the same id, since we know that it will be unique
-    return componentClient.forEventSourcedEntity(currentState().walletId())
-      .method(WalletEntity::charge)
-      .invokeAsync(new WalletCommand.ChargeWallet(currentState().price(), expenseId, commandId));
+    return walletRouter.charge(currentState().walletId(), new WalletCommand.ChargeWallet(currentState().price(), expenseId, commandId));
   }
 
   private TransitionalEffect<Void> confirmOrCancelReservation(Response response) {
@@ -151,42 +366,66 @@ public class SeatReservationWorkflow extends Workflow<SeatReservation> {
     };
   }
 
-  private CompletionStage<Response> reserveSeat() {
-    logger.info("reserving seat");
-    return componentClient.forEventSourcedEntity(currentState().showId())
-      .method(ShowEntity::reserve)
-      .invokeAsync(new ShowCommand.ReserveSeat(currentState().walletId(), currentState().reservationId(), currentState().seatNumber()));
+  private CompletionStage<SeatsReservationResponse> reserveSeat() {
+    logger.info("reserving seats {}", currentState().seatNumbers());
+    return componentClient.forEventSourcedEntity(showEntityId())
+      .method(ShowEntity::reserveSeatsWithPrice)
+      .invokeAsync(new ShowCommand.ReserveSeats(currentState().walletId(), currentState().reservationId(), currentState().seatNumbers()));
   }
 
-  private TransitionalEffect<Void> chargeWalletOrStop(Response response) {
+  private TransitionalEffect<Void> chargeWalletOrStop(SeatsReservationResponse response) {
     return switch (response) {
-      case Response.Failure failure -> {
-        logger.warn("seat reservation failed with: " + failure);
+      case Rejected rejected -> {
+        logger.warn("seat reservation failed with: " + rejected);
         yield effects()
           .updateState(currentState().asSeatReservationFailed())
           .end();
       }
-      case Response.Success __ -> effects()
-        .updateState(currentState().asSeatReserved())
-        .transitionTo(CHARGE_WALLET_STEP);
+      case Reserved reserved -> {
+        //the next reservation of the section can hold the funds in parallel
+        seatPriceCache.put(showEntityId(), reserved.prices());
+        yield effects()
+          .updateState(currentState().asSeatReserved(reserved.price()))
+          .transitionTo(CHARGE_WALLET_STEP);
+      }
     };
   }
 
   public Effect<Done> start(ReserveSeat reserveSeat) {
     if (currentState() != null) {
       return effects().error("seat reservation already exists");
+    } else if (reserveSeat.seatNumbers().isEmpty() || !ShowSections.inSameSection(reserveSeat.seatNumbers())) {
+      return effects().error("seats must be selected from one section");
+    } else if (holdFundsInParallel && cachedPrice(reserveSeat).isPresent()) {
+      return effects()
+        .updateState(new SeatReservation(reservationId(), reserveSeat.showId, reserveSeat.seatNumbers, reserveSeat.walletId, cachedPrice(reserveSeat).get(), STARTED))
+        .transitionTo(RESERVE_SEAT_AND_HOLD_FUNDS_STEP)
+        .thenReply(done());
     } else {
+      //the price is not known until the seats are reserved
       return effects()
-        .updateState(new SeatReservation(reservationId(), reserveSeat.showId, reserveSeat.seatNumber, reserveSeat.walletId, reserveSeat.price, STARTED))
+        .updateState(new SeatReservation(reservationId(), reserveSeat.showId, reserveSeat.seatNumbers, reserveSeat.walletId, null, STARTED))
         .transitionTo(RESERVE_SEAT_STEP)
         .thenReply(done());
     }
   }
 
+  private Optional<Money> cachedPrice(ReserveSeat reserveSeat) {
+    return seatPriceCache.get(ShowSections.entityId(reserveSeat.showId(), reserveSeat.seatNumbers().get(0)))
+      .flatMap(prices -> reserveSeat.seatNumbers().stream()
+        .map(prices::priceOf)
+        .reduce(Option.of(Money.ZERO), (total, price) -> total.flatMap(sum -> price.map(sum::plus)))
+        .toJavaOptional());
+  }
+
   private String reservationId() {
     return commandContext().workflowId();
   }
 
+  private String showEntityId() {
+    return ShowSections.entityId(currentState().showId(), currentState().seatNumber());
+  }
+
   public Effect<SeatReservation> getState() {
     if (currentState() == null) {
       return effects().error("seat reservation not found");
@@ -0,0 +1,23 @@
+package com.example.cinema.application;
+
+import com.example.cinema.domain.SectionPrices;
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Reply to a seats reservation, with the price of the reserved seats as the show charges for them
+ * and the current prices of the show section for the next reservations.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
+@JsonSubTypes({
+  @JsonSubTypes.Type(value = SeatsReservationResponse.Reserved.class),
+  @JsonSubTypes.Type(value = SeatsReservationResponse.Rejected.class)})
+public sealed interface SeatsReservationResponse {
+
+  record Reserved(Money price, SectionPrices prices) implements SeatsReservationResponse {
+  }
+
+  record Rejected(String error) implements SeatsReservationResponse {
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.cinema.application;
+
+import com.example.cinema.domain.SeatAvailability;
+import com.example.cinema.domain.SectionSeats;
+
+/**
+ * @param version changes with every change of the show, sections of a show are versioned by the sum of their versions
+ */
+public record ShowAvailability(String id, int totalSeats, long version, SeatAvailability seats) {
+
+  public static ShowAvailability from(SectionSeats section) {
+    return new ShowAvailability(section.showId(), section.totalSeats(), section.version(), section.seats().availability());
+  }
+
+  public ShowAvailability merge(ShowAvailability nextSection) {
+    return new ShowAvailability(id, totalSeats, version + nextSection.version, seats.merge(nextSection.seats));
+  }
+}
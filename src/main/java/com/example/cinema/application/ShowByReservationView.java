@@ -2,36 +2,46 @@ package com.example.cinema.application;
 
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.DeleteHandler;
 import akka.javasdk.annotations.Query;
 import akka.javasdk.view.TableUpdater;
 import akka.javasdk.view.View;
+import com.example.cinema.domain.Reservation;
 import com.example.cinema.domain.ShowByReservation;
-import com.example.cinema.domain.ShowEvent;
-import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
-import com.example.cinema.domain.ShowEvent.SeatReservationCancelled;
-import com.example.cinema.domain.ShowEvent.SeatReservationPaid;
-import com.example.cinema.domain.ShowEvent.SeatReserved;
-import com.example.cinema.domain.ShowEvent.ShowCreated;
 
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One row for each reservation, so finding the show of a reservation is a lookup by the row key.
+ * Finished reservations are also found here for the cleanup.
+ */
 @ComponentId("show-by-reservation-view")
 public class ShowByReservationView extends View {
 
-  @Query("SELECT * FROM shows WHERE :reservationId = ANY(reservationIds)")
+  @Query("SELECT reservationId, showId, status FROM reservations WHERE reservationId = :reservationId")
   public QueryEffect<ShowByReservation> getShow(String reservationId) {
     return queryResult();
   }
 
-  @Consume.FromEventSourcedEntity(value = ShowEntity.class)
-  public static class ShowByReservationUpdater extends TableUpdater<ShowByReservation> {
-
-    public Effect<ShowByReservation> onEvent(ShowEvent showEvent) {
-      return switch (showEvent) {
-        case ShowCreated created -> effects().updateRow(new ShowByReservation(created.showId()));
-        case SeatReserved reserved -> effects().updateRow(rowState().add(reserved.reservationId()));
-        case SeatReservationPaid paid -> effects().updateRow(rowState().remove(paid.reservationId()));
-        case SeatReservationCancelled cancelled -> effects().updateRow(rowState().remove(cancelled.reservationId()));
-        case CancelledReservationConfirmed __ -> effects().ignore();
-      };
+  public record Reservations(List<Reservation> reservations) {
+  }
+
+  @Query("SELECT * AS reservations FROM reservations WHERE finishedAt < :finishedBefore LIMIT " + ExpireReservations.BATCH_SIZE)
+  public QueryEffect<Reservations> getFinishedBefore(Instant finishedBefore) {
+    return queryResult();
+  }
+
+  @Consume.FromKeyValueEntity(ReservationEntity.class)
+  public static class ShowByReservationUpdater extends TableUpdater<Reservation> {
+
+    public Effect<Reservation> onUpdate(Reservation reservation) {
+      return effects().updateRow(reservation);
+    }
+
+    @DeleteHandler
+    public Effect<Reservation> onDelete() {
+      return effects().deleteRow();
     }
   }
 }
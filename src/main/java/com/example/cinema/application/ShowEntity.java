@@ -3,16 +3,24 @@ package com.example.cinema.application;
 import akka.Done;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import com.example.cinema.application.SeatsReservationResponse.Rejected;
+import com.example.cinema.application.SeatsReservationResponse.Reserved;
 import com.example.cinema.domain.SeatStatus;
 import com.example.cinema.domain.Show;
 import com.example.cinema.domain.ShowCommand;
 import com.example.cinema.domain.ShowCommand.CancelSeatReservation;
+import com.example.cinema.domain.ShowCommand.ChangeTierPrice;
 import com.example.cinema.domain.ShowCommand.ConfirmReservationPayment;
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
+import com.example.cinema.domain.ShowCommand.ReserveBestSeats;
 import com.example.cinema.domain.ShowCommand.ReserveSeat;
+import com.example.cinema.domain.ShowCommand.ReserveSeats;
 import com.example.cinema.domain.ShowCommandError;
 import com.example.cinema.domain.ShowCreator;
 import com.example.cinema.domain.ShowEvent;
+import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
 import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.common.Money;
 import com.example.common.Or;
 import com.example.common.Response;
 import com.example.common.Response.Failure;
@@ -20,7 +28,8 @@ import com.example.common.Response.Success;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static com.example.cinema.domain.ShowCommandError.CANCELLING_CONFIRMED_RESERVATION;
@@ -30,11 +39,18 @@ import static com.example.cinema.domain.ShowCommandError.RESERVATION_NOT_FOUND;
 @ComponentId("show")
 public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
 
+  public static final String RESERVATION_CANCELLED = "RESERVATION_CANCELLED";
+  public static final int EXPIRE_HOLDS_BATCH_SIZE = 100;
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   public Effect<Response> create(ShowCommand.CreateShow createShow) {
     if (currentState() != null) {
-      return effects().error("show already exists");
+      //a repeated creation is a duplicate, other commands are rejected
+      return switch (currentState().process(createShow)) {
+        case Or.Left(var error) -> errorEffect(error, createShow);
+        case Or.Right(var event) -> persistEffect(event);
+      };
     } else {
       return switch (ShowCreator.create(commandContext().entityId(), createShow)) {
         case Or.Left(var error) -> errorEffect(error, createShow);
@@ -43,6 +59,20 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  public Effect<Response> createSection(CreateShowSection createShowSection) {
+    if (currentState() != null) {
+      return switch (currentState().process(createShowSection)) {
+        case Or.Left(var error) -> errorEffect(error, createShowSection);
+        case Or.Right(var event) -> persistEffect(event);
+      };
+    } else {
+      return switch (ShowCreator.createSection(commandContext().entityId(), createShowSection)) {
+        case Or.Left(var error) -> errorEffect(error, createShowSection);
+        case Or.Right(var event) -> persistEffect(event);
+      };
+    }
+  }
+
   public Effect<Response> reserve(ReserveSeat reserveSeat) {
     if (currentState() == null) {
       return effects().error("show does not exists");
@@ -54,6 +84,52 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  public Effect<Response> reserveSeats(ReserveSeats reserveSeats) {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      return switch (currentState().process(reserveSeats)) {
+        case Or.Left(var error) -> errorEffect(error, reserveSeats);
+        case Or.Right(var event) -> persistEffect(event);
+      };
+    }
+  }
+
+  /**
+   * Like {@link #reserveSeats}, but replies with the price of the seats. A retried reservation gets the price of the pending one.
+   */
+  public Effect<SeatsReservationResponse> reserveSeatsWithPrice(ReserveSeats reserveSeats) {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      String reservationId = reserveSeats.reservationId();
+      return switch (currentState().process(reserveSeats)) {
+        case Or.Left(var error) when error == DUPLICATED_COMMAND -> effects().reply(
+          currentState().reservationPrice(reservationId)
+            .<SeatsReservationResponse>map(price -> new Reserved(price, currentState().seats().prices()))
+            .getOrElse(new Rejected(RESERVATION_NOT_FOUND.name())));
+        case Or.Left(var error) -> {
+          logger.error("processing command {} failed with {}", reserveSeats, error);
+          yield effects().reply(new Rejected(error.name()));
+        }
+        case Or.Right(var event) -> effects()
+          .persist(event)
+          .thenReply(updatedShow -> new Reserved(updatedShow.reservationPrice(reservationId).get(), updatedShow.seats().prices()));
+      };
+    }
+  }
+
+  public Effect<Response> reserveBestSeats(ReserveBestSeats reserveBestSeats) {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      return switch (currentState().process(reserveBestSeats)) {
+        case Or.Left(var error) -> errorEffect(error, reserveBestSeats);
+        case Or.Right(var event) -> persistEffect(event);
+      };
+    }
+  }
+
   public Effect<Response> cancelReservation(CancelSeatReservation cancelSeatReservation) {
     if (currentState() == null) {
       return effects().error("show does not exists");
@@ -73,6 +149,42 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     } else {
       return switch (currentState().process(confirmReservationPayment)) {
         case Or.Left(var error) -> errorEffect(error, confirmReservationPayment);
+        //the hold expired before the payment, the caller is responsible for the refund
+        case Or.Right(CancelledReservationConfirmed event) -> effects()
+          .persist(event)
+          .thenReply(__ -> Failure.of(RESERVATION_CANCELLED));
+        case Or.Right(var event) -> persistEffect(event);
+      };
+    }
+  }
+
+  /**
+   * Cancels at most {@link #EXPIRE_HOLDS_BATCH_SIZE} holds past their deadline.
+   *
+   * @return number of cancelled holds, equal to the batch size when there could be more to cancel
+   */
+  public Effect<Integer> expireHolds() {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      List<ShowEvent> events = currentState().expireHolds(Instant.now(), EXPIRE_HOLDS_BATCH_SIZE);
+      if (events.isEmpty()) {
+        return effects().reply(0);
+      } else {
+        logger.info("expiring {} seat holds", events.size());
+        return effects()
+          .persistAll(events)
+          .thenReply(__ -> events.size());
+      }
+    }
+  }
+
+  public Effect<Response> changeTierPrice(ChangeTierPrice changeTierPrice) {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      return switch (currentState().process(changeTierPrice)) {
+        case Or.Left(var error) -> errorEffect(error, changeTierPrice);
         case Or.Right(var event) -> persistEffect(event);
       };
     }
@@ -97,7 +209,7 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
-  public Effect<BigDecimal> getPrice(int seatNumber) {
+  public Effect<Money> getPrice(int seatNumber) {
     if (currentState() == null) {
       return effects().error("show does not exists");
     } else {
@@ -108,6 +220,18 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  public record BestSeats(List<Integer> seatNumbers, int totalSeats) {
+  }
+
+  public Effect<BestSeats> findBestSeats(int numberOfSeats) {
+    if (currentState() == null) {
+      return effects().error("show does not exists");
+    } else {
+      var seatNumbers = currentState().findBestSeats(numberOfSeats).getOrElse(List.of());
+      return effects().reply(new BestSeats(seatNumbers, currentState().totalSeats()));
+    }
+  }
+
   private Effect<Response> persistEffect(ShowEvent showEvent) {
     return effects()
       .persist(showEvent)
@@ -6,8 +6,12 @@ import akka.javasdk.annotations.Consume;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
 import com.example.cinema.application.ReservationEntity.CreateReservation;
+import com.example.cinema.domain.ShowEvent.SeatReservationCancelled;
 import com.example.cinema.domain.ShowEvent.SeatReservationPaid;
 import com.example.cinema.domain.ShowEvent.SeatReserved;
+import com.example.cinema.domain.ShowEvent.SeatsReservationCancelled;
+import com.example.cinema.domain.ShowEvent.SeatsReservationPaid;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
 
 import java.util.concurrent.CompletionStage;
 
@@ -26,19 +30,35 @@ public class ShowEventsToReservationConsumer extends Consumer {
   }
 
   public Effect onEvent(SeatReservationPaid paid) {
-    return effects().asyncDone(deleteReservation(paid.reservationId()));
+    return effects().asyncDone(confirmReservation(paid.reservationId()));
   }
 
-// alternatively we can use dedicated event for the cancellation after a failure
-//  public Effect onEvent(SeatReservationCancelled cancelled) {
-//    return effects().asyncDone(deleteReservation(cancelled.reservationId()));
-//  }
+  public Effect onEvent(SeatsReserved reserved) {
+    return effects().asyncDone(createReservation(reserved.reservationId(), new CreateReservation(reserved.showId(), reserved.walletId(), reserved.price())));
+  }
+
+  public Effect onEvent(SeatsReservationPaid paid) {
+    return effects().asyncDone(confirmReservation(paid.reservationId()));
+  }
+
+  //finished reservations are kept for the retention period, a cancelled one could be refunded later
+  public Effect onEvent(SeatReservationCancelled cancelled) {
+    return effects().asyncDone(cancelReservation(cancelled.reservationId()));
+  }
+
+  public Effect onEvent(SeatsReservationCancelled cancelled) {
+    return effects().asyncDone(cancelReservation(cancelled.reservationId()));
+  }
 
   private CompletionStage<Done> createReservation(String reservationId, CreateReservation createReservation) {
     return componentClient.forKeyValueEntity(reservationId).method(ReservationEntity::create).invokeAsync(createReservation);
   }
 
-  private CompletionStage<Done> deleteReservation(String reservationId) {
-    return componentClient.forKeyValueEntity(reservationId).method(ReservationEntity::delete).invokeAsync();
+  private CompletionStage<Done> cancelReservation(String reservationId) {
+    return componentClient.forKeyValueEntity(reservationId).method(ReservationEntity::cancel).invokeAsync();
+  }
+
+  private CompletionStage<Done> confirmReservation(String reservationId) {
+    return componentClient.forKeyValueEntity(reservationId).method(ReservationEntity::confirm).invokeAsync();
   }
 }
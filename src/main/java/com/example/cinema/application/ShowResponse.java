@@ -1,13 +1,20 @@
 package com.example.cinema.application;
 
 import com.example.cinema.domain.Seat;
+import com.example.cinema.domain.SectionSeats;
 import com.example.cinema.domain.Show;
 
 import java.util.List;
 
-public record ShowResponse(String id, String title, List<Seat> seats) {
+public record ShowResponse(String id, String title, List<Seat> seats, int totalSeats) {
 
   public static ShowResponse from(Show show) {
-    return new ShowResponse(show.id(), show.title(), show.seats().values().asJava());
+    return new ShowResponse(show.id(), show.title(), show.seats().toList(), show.totalSeats());
+  }
+
+  public static ShowResponse from(String showId, List<SectionSeats> sections) {
+    var first = sections.get(0);
+    var seats = sections.stream().flatMap(section -> section.seats().toList().stream()).toList();
+    return new ShowResponse(showId, first.title(), seats, first.totalSeats());
   }
 }
@@ -0,0 +1,73 @@
+package com.example.cinema.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import com.example.cinema.domain.SectionSeats;
+import com.example.cinema.domain.ShowEvent;
+import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
+import com.example.cinema.domain.ShowEvent.SeatReservationCancelled;
+import com.example.cinema.domain.ShowEvent.SeatReservationPaid;
+import com.example.cinema.domain.ShowEvent.SeatReserved;
+import com.example.cinema.domain.ShowEvent.SeatsReservationCancelled;
+import com.example.cinema.domain.ShowEvent.SeatsReservationPaid;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
+import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.cinema.domain.ShowEvent.TierPriceChanged;
+
+import java.util.List;
+
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.PAID;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
+
+/**
+ * Seats of show sections for the read traffic, so that queries don't compete with reservations on the show entity.
+ */
+@ComponentId("show-seats-view")
+public class ShowSeatsView extends View {
+
+  public record ShowSeats(List<SectionSeats> sections) {
+  }
+
+  @Query("SELECT * AS sections FROM show_seats WHERE showId = :showId ORDER BY section")
+  public QueryEffect<ShowSeats> getShow(String showId) {
+    return queryResult();
+  }
+
+  public record SectionsWithRun(String showId, int numberOfSeats) {
+  }
+
+  /**
+   * Sections with a run of available seats at least as long as requested, the lowest numbered sections first.
+   */
+  @Query("SELECT * AS sections FROM show_seats WHERE showId = :showId AND longestFreeRun >= :numberOfSeats ORDER BY section LIMIT 3")
+  public QueryEffect<ShowSeats> getSectionsWithRun(SectionsWithRun sectionsWithRun) {
+    return queryResult();
+  }
+
+  @Query("SELECT * FROM show_seats WHERE sectionId = :sectionId")
+  public QueryEffect<SectionSeats> getSection(String sectionId) {
+    return queryResult();
+  }
+
+  @Consume.FromEventSourcedEntity(value = ShowEntity.class)
+  public static class ShowSeatsUpdater extends TableUpdater<SectionSeats> {
+
+    public Effect<SectionSeats> onEvent(ShowEvent showEvent) {
+      return switch (showEvent) {
+        case ShowCreated created -> effects().updateRow(SectionSeats.of(created));
+        case SeatReserved reserved -> effects().updateRow(rowState().withStatus(List.of(reserved.seatNumber()), RESERVED));
+        case SeatReservationPaid paid -> effects().updateRow(rowState().withStatus(List.of(paid.seatNumber()), PAID));
+        case SeatReservationCancelled cancelled -> effects().updateRow(rowState().withStatus(List.of(cancelled.seatNumber()), AVAILABLE));
+        case SeatsReserved reserved -> effects().updateRow(rowState().withStatus(reserved.seatNumbers(), RESERVED));
+        case SeatsReservationPaid paid -> effects().updateRow(rowState().withStatus(paid.seatNumbers(), PAID));
+        case SeatsReservationCancelled cancelled -> effects().updateRow(rowState().withStatus(cancelled.seatNumbers(), AVAILABLE));
+        case TierPriceChanged changed -> effects().updateRow(rowState().withTierPrice(changed.tier(), changed.price()));
+        case CancelledReservationConfirmed __ -> effects().ignore();
+      };
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.cinema.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.consumer.Consumer;
+import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.cinema.domain.ShowEvent.TierPriceChanged;
+
+@ComponentId("update-seat-price-cache")
+@Consume.FromEventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class UpdateSeatPriceCache extends Consumer {
+
+  private final SeatPriceCache seatPriceCache;
+
+  public UpdateSeatPriceCache(SeatPriceCache seatPriceCache) {
+    this.seatPriceCache = seatPriceCache;
+  }
+
+  public Effect onEvent(ShowCreated created) {
+    seatPriceCache.put(created.showId(), created.initialShow().seatInventory().prices());
+    return effects().done();
+  }
+
+  public Effect onEvent(TierPriceChanged changed) {
+    seatPriceCache.changeTierPrice(changed.showId(), changed.tier(), changed.price());
+    return effects().done();
+  }
+}
@@ -1,10 +1,21 @@
 package com.example.cinema.domain;
 
-public record FinishedReservation(String reservationId, int seatNumber, ReservationStatus status) {
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * The finish time is null for reservations finished before it was recorded.
+ */
+public record FinishedReservation(String reservationId, int seatNumber, ReservationStatus status,
+                                  @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt) {
+  @JsonIgnore
   public boolean isConfirmed() {
     return status == ReservationStatus.CONFIRMED;
   }
 
+  @JsonIgnore
   public boolean isCancelled() {
     return status == ReservationStatus.CANCELLED;
   }
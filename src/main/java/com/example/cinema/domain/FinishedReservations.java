@@ -0,0 +1,65 @@
+package com.example.cinema.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Queue;
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Deduplication window of the recently finished reservations. Reservations finished longer than the retention ago
+ * are evicted when the next reservation finishes, so the show state doesn't grow with every reservation.
+ */
+public record FinishedReservations(Queue<FinishedReservation> reservations,
+                                   Map<String, FinishedReservation> reservationsById) {
+
+  // Confirmations and redelivered reservations arrive at most a hold timeout after the reservation,
+  // plus the retries of the consumers and workflow steps, which take minutes.
+  public static final Duration RETENTION = Show.HOLD_TIMEOUT.plus(Duration.ofHours(1));
+  // Only a backstop for a burst of reservations within the retention, and for reservations without a finish time.
+  public static final int MAX_SIZE = 10_000;
+  public static final FinishedReservations EMPTY = new FinishedReservations(Queue.empty(), HashMap.empty());
+
+  @JsonCreator
+  public static FinishedReservations of(List<FinishedReservation> reservations) {
+    FinishedReservations finishedReservations = EMPTY;
+    for (FinishedReservation reservation : reservations) {
+      finishedReservations = finishedReservations.add(reservation);
+    }
+    return finishedReservations;
+  }
+
+  public Option<FinishedReservation> get(String reservationId) {
+    return reservationsById.get(reservationId);
+  }
+
+  public FinishedReservations add(FinishedReservation finishedReservation) {
+    Queue<FinishedReservation> updated = reservations;
+    Map<String, FinishedReservation> updatedById = reservationsById;
+    while (!updated.isEmpty() && (updated.size() >= MAX_SIZE || isExpired(updated.head(), finishedReservation.finishedAt()))) {
+      updatedById = updatedById.remove(updated.head().reservationId());
+      updated = updated.tail();
+    }
+    return new FinishedReservations(
+      updated.append(finishedReservation),
+      updatedById.put(finishedReservation.reservationId(), finishedReservation));
+  }
+
+  private static boolean isExpired(FinishedReservation reservation, Instant now) {
+    return now != null && reservation.finishedAt() != null && reservation.finishedAt().plus(RETENTION).isBefore(now);
+  }
+
+  public int size() {
+    return reservations.size();
+  }
+
+  @JsonValue
+  public List<FinishedReservation> toList() {
+    return reservations.asJava();
+  }
+}
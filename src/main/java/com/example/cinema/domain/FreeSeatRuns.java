@@ -0,0 +1,119 @@
+package com.example.cinema.domain;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Segment tree over seat indexes, each node keeps the free run at its start, at its end and the longest free run inside.
+ * Finding the first run of N adjacent free seats and updating a seat are O(log n).
+ * Updates change the tree in place and return a new version of the index, the previous version is no longer current
+ * ({@link #isCurrent()}) and must be rebuilt before it's used again. The show state moves forward one event at a time,
+ * so that happens only when an older state is kept around.
+ */
+public final class FreeSeatRuns {
+
+  private final Tree tree;
+  private final long version;
+
+  private static final class Tree {
+    private final int leaves;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+    private long version;
+
+    private Tree(int leaves) {
+      this.leaves = leaves;
+      this.prefix = new int[2 * leaves];
+      this.suffix = new int[2 * leaves];
+      this.longest = new int[2 * leaves];
+    }
+  }
+
+  private FreeSeatRuns(Tree tree, long version) {
+    this.tree = tree;
+    this.version = version;
+  }
+
+  public static FreeSeatRuns of(int size, IntPredicate isFree) {
+    var tree = new Tree(Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+    var runs = new FreeSeatRuns(tree, tree.version);
+    for (int index = 0; index < size; index++) {
+      runs.setLeaf(index, isFree.test(index));
+    }
+    for (int node = tree.leaves - 1; node >= 1; node--) {
+      runs.combine(node);
+    }
+    return runs;
+  }
+
+  public boolean isCurrent() {
+    return version == tree.version;
+  }
+
+  public FreeSeatRuns update(int[] indexes, boolean free) {
+    if (!isCurrent()) {
+      throw new IllegalStateException("Updating an outdated version of free seat runs");
+    }
+    for (int index : indexes) {
+      setLeaf(index, free);
+      for (int node = (tree.leaves + index) / 2; node >= 1; node /= 2) {
+        combine(node);
+      }
+    }
+    tree.version++;
+    return new FreeSeatRuns(tree, tree.version);
+  }
+
+  public int longestRun() {
+    return tree.longest[1];
+  }
+
+  /**
+   * @return index of the first seat of the leftmost run of {@code length} free seats, or -1 if there is no such run
+   */
+  public int findRun(int length) {
+    int[] prefix = tree.prefix;
+    int[] suffix = tree.suffix;
+    int[] longest = tree.longest;
+    if (length <= 0 || longest[1] < length) {
+      return -1;
+    }
+    int node = 1;
+    int start = 0;
+    int width = tree.leaves;
+    while (node < tree.leaves) {
+      int left = 2 * node;
+      int right = left + 1;
+      width /= 2;
+      if (longest[left] >= length) {
+        node = left;
+      } else if (suffix[left] + prefix[right] >= length) {
+        return start + width - suffix[left];
+      } else {
+        node = right;
+        start += width;
+      }
+    }
+    return start;
+  }
+
+  private void setLeaf(int index, boolean free) {
+    int node = tree.leaves + index;
+    int value = free ? 1 : 0;
+    tree.prefix[node] = value;
+    tree.suffix[node] = value;
+    tree.longest[node] = value;
+  }
+
+  private void combine(int node) {
+    int[] prefix = tree.prefix;
+    int[] suffix = tree.suffix;
+    int[] longest = tree.longest;
+    int left = 2 * node;
+    int right = left + 1;
+    int width = tree.leaves >> (31 - Integer.numberOfLeadingZeros(left));
+    prefix[node] = prefix[left] == width ? width + prefix[right] : prefix[left];
+    suffix[node] = suffix[right] == width ? width + suffix[left] : suffix[right];
+    longest[node] = Math.max(Math.max(longest[left], longest[right]), suffix[left] + prefix[right]);
+  }
+}
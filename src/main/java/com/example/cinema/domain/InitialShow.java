@@ -1,8 +1,49 @@
 package com.example.cinema.domain;
 
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
-public record InitialShow(String id, String title, List<Seat> seats) implements Serializable {
+/**
+ * All seats of a new show are available, so only prices are stored: a price tier table and a tier index per seat,
+ * skipped when all seats are in the first tier. Events written before price tiers have the full list of {@code seats}.
+ */
+public record InitialShow(String id, String title, int totalSeats, int firstSeatNumber, int seatCount,
+                          List<Money> priceTiers,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) byte[] seatTiers,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) List<Seat> seats) implements Serializable {
+
+  public static InitialShow of(String id, String title, int totalSeats, int firstSeatNumber, int seatCount, Money price) {
+    return new InitialShow(id, title, totalSeats, firstSeatNumber, seatCount, List.of(price), null, null);
+  }
+
+  public SeatInventory seatInventory() {
+    if (seats != null) {
+      return SeatInventory.of(seats);
+    } else {
+      return SeatInventory.available(firstSeatNumber, seatCount, priceTiers, seatTiers);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof InitialShow that
+      && totalSeats == that.totalSeats
+      && firstSeatNumber == that.firstSeatNumber
+      && seatCount == that.seatCount
+      && Objects.equals(id, that.id)
+      && Objects.equals(title, that.title)
+      && Objects.equals(priceTiers, that.priceTiers)
+      && Arrays.equals(seatTiers, that.seatTiers)
+      && Objects.equals(seats, that.seats);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, title, totalSeats, firstSeatNumber, seatCount, priceTiers, Arrays.hashCode(seatTiers), seats);
+  }
 }
@@ -0,0 +1,38 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param expiresAt deadline of the hold, {@code null} for holds created before holds expired
+ * @param price     total price of the reserved seats, {@code null} for reservations made before the price was kept
+ */
+public record PendingReservation(List<Integer> seatNumbers, Instant expiresAt, Money price) {
+
+  public PendingReservation(List<Integer> seatNumbers, Instant expiresAt) {
+    this(seatNumbers, expiresAt, null);
+  }
+
+  public static PendingReservation of(int seatNumber, Instant expiresAt) {
+    return new PendingReservation(List.of(seatNumber), expiresAt);
+  }
+
+  public static PendingReservation of(int seatNumber, Instant expiresAt, Money price) {
+    return new PendingReservation(List.of(seatNumber), expiresAt, price);
+  }
+
+  /**
+   * The first seat, representing the whole reservation when only one seat number can be stored.
+   */
+  public int seatNumber() {
+    return seatNumbers.get(0);
+  }
+
+  @JsonIgnore
+  public boolean isGroup() {
+    return seatNumbers.size() > 1;
+  }
+}
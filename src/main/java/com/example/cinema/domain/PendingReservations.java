@@ -0,0 +1,77 @@
+package com.example.cinema.domain;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
+import io.vavr.control.Option;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * Reservations waiting for a confirmation or a cancellation, indexed by id and by the hold deadline.
+ * Expired holds are read from the head of the deadline index, without scanning all pending reservations.
+ */
+public record PendingReservations(Map<String, PendingReservation> reservations,
+                                  SortedSet<Tuple2<Instant, String>> deadlines) implements Iterable<Tuple2<String, PendingReservation>> {
+
+  private static final Comparator<Tuple2<Instant, String>> DEADLINE_ORDER = Tuple2.comparator(Comparator.naturalOrder(), Comparator.naturalOrder());
+  public static final PendingReservations EMPTY = new PendingReservations(HashMap.empty(), TreeSet.empty(DEADLINE_ORDER));
+
+  public Option<PendingReservation> get(String reservationId) {
+    return reservations.get(reservationId);
+  }
+
+  public boolean containsKey(String reservationId) {
+    return reservations.containsKey(reservationId);
+  }
+
+  public PendingReservations put(String reservationId, PendingReservation pendingReservation) {
+    var withoutPrevious = remove(reservationId);
+    var updatedDeadlines = pendingReservation.expiresAt() == null
+      ? withoutPrevious.deadlines
+      : withoutPrevious.deadlines.add(Tuple.of(pendingReservation.expiresAt(), reservationId));
+    return new PendingReservations(withoutPrevious.reservations.put(reservationId, pendingReservation), updatedDeadlines);
+  }
+
+  public PendingReservations remove(String reservationId) {
+    return reservations.get(reservationId).fold(
+      () -> this,
+      pendingReservation -> new PendingReservations(
+        reservations.remove(reservationId),
+        pendingReservation.expiresAt() == null ? deadlines : deadlines.remove(Tuple.of(pendingReservation.expiresAt(), reservationId))));
+  }
+
+  /**
+   * @return reservations with a deadline before or at {@code now}, the oldest first
+   */
+  public List<Tuple2<String, PendingReservation>> expired(Instant now, int limit) {
+    return deadlines.iterator()
+      .takeWhile(deadline -> !deadline._1.isAfter(now))
+      .take(limit)
+      .map(deadline -> Tuple.of(deadline._2, reservations.get(deadline._2).get()))
+      .toList();
+  }
+
+  public Option<Instant> nextDeadline() {
+    return deadlines.headOption().map(Tuple2::_1);
+  }
+
+  public boolean isEmpty() {
+    return reservations.isEmpty();
+  }
+
+  public int size() {
+    return reservations.size();
+  }
+
+  @Override
+  public Iterator<Tuple2<String, PendingReservation>> iterator() {
+    return reservations.iterator();
+  }
+}
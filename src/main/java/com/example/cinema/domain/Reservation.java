@@ -1,6 +1,41 @@
 package com.example.cinema.domain;
 
-import java.math.BigDecimal;
+import com.example.common.Money;
 
-public record Reservation(String reservationId, String showId, String walletId, BigDecimal price) {
+import java.time.Instant;
+
+/**
+ * @param status     pending for reservations stored before the status was tracked
+ * @param finishedAt when the reservation was confirmed or cancelled, finished reservations are deleted after the retention period
+ */
+public record Reservation(String reservationId, String showId, String walletId, Money price, Status status, Instant finishedAt) {
+
+  public enum Status {
+    PENDING, CONFIRMED, CANCELLED
+  }
+
+  public Reservation {
+    status = status == null ? Status.PENDING : status;
+  }
+
+  public Reservation(String reservationId, String showId, String walletId, Money price) {
+    this(reservationId, showId, walletId, price, Status.PENDING, null);
+  }
+
+  public Reservation asConfirmed(Instant now) {
+    return finish(Status.CONFIRMED, now);
+  }
+
+  public Reservation asCancelled(Instant now) {
+    return finish(Status.CANCELLED, now);
+  }
+
+  //a redelivered event doesn't extend the retention
+  private Reservation finish(Status finalStatus, Instant now) {
+    if (status == finalStatus) {
+      return this;
+    } else {
+      return new Reservation(reservationId, showId, walletId, price, finalStatus, now);
+    }
+  }
 }
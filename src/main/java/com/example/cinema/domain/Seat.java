@@ -1,14 +1,13 @@
 package com.example.cinema.domain;
 
+import com.example.common.Money;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.math.BigDecimal;
-
 import static com.example.cinema.domain.SeatStatus.AVAILABLE;
 import static com.example.cinema.domain.SeatStatus.PAID;
 import static com.example.cinema.domain.SeatStatus.RESERVED;
 
-public record Seat(int number, SeatStatus status, BigDecimal price) {
+public record Seat(int number, SeatStatus status, Money price) {
   @JsonIgnore
   public boolean isAvailable() {
     return status == AVAILABLE;
@@ -0,0 +1,46 @@
+package com.example.cinema.domain;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Seat counts per status and available seats encoded as runs, {@code freeRuns} holds {@code [firstSeatNumber, length]} pairs.
+ */
+public record SeatAvailability(int available, int reserved, int paid, int[] freeRuns) {
+
+  /**
+   * @param next availability of the seats following these seats, runs touching at the boundary are joined
+   */
+  public SeatAvailability merge(SeatAvailability next) {
+    int[] runs = Arrays.copyOf(freeRuns, freeRuns.length + next.freeRuns.length);
+    int length = freeRuns.length;
+    int from = 0;
+    if (length > 0 && next.freeRuns.length > 0 && runs[length - 2] + runs[length - 1] == next.freeRuns[0]) {
+      runs[length - 1] += next.freeRuns[1];
+      from = 2;
+    }
+    for (int i = from; i < next.freeRuns.length; i++) {
+      runs[length++] = next.freeRuns[i];
+    }
+    return new SeatAvailability(available + next.available, reserved + next.reserved, paid + next.paid, Arrays.copyOf(runs, length));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SeatAvailability that
+      && available == that.available
+      && reserved == that.reserved
+      && paid == that.paid
+      && Arrays.equals(freeRuns, that.freeRuns);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(available, reserved, paid, Arrays.hashCode(freeRuns));
+  }
+
+  @Override
+  public String toString() {
+    return "SeatAvailability[available=" + available + ", reserved=" + reserved + ", paid=" + paid + ", freeRuns=" + Arrays.toString(freeRuns) + "]";
+  }
+}
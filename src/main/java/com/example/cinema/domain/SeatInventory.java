@@ -0,0 +1,241 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+
+/**
+ * Dense seat inventory with two bits per seat for the status and a price tier index per seat.
+ * Seats are numbered from {@code firstSeatNumber}, so a show section can keep show-wide seat numbers.
+ * It's persistent: updates copy only the small status array, tier arrays are shared between versions.
+ * Runs of available seats are indexed in {@link FreeSeatRuns}, derived from the statuses and not serialized,
+ * the index is updated in place and rebuilt only for an older version of the inventory.
+ */
+public record SeatInventory(int firstSeatNumber, int size, long[] statuses, List<Money> priceTiers,
+                            byte[] seatTiers, @JsonIgnore FreeSeatRuns freeSeatRuns) {
+
+  private static final int BITS_PER_SEAT = 2;
+  private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+  private static final long STATUS_MASK = 0b11;
+  private static final long LOW_BITS = 0x5555_5555_5555_5555L;
+  private static final int MAX_PRICE_TIERS = 256;
+  private static final SeatStatus[] SEAT_STATUSES = SeatStatus.values();
+
+  public SeatInventory {
+    if (freeSeatRuns == null) {
+      long[] initialStatuses = statuses;
+      freeSeatRuns = FreeSeatRuns.of(size, index -> statusAt(initialStatuses, index) == AVAILABLE);
+    }
+  }
+
+  public static SeatInventory of(List<Seat> seats) {
+    int size = seats.size();
+    int firstSeatNumber = seats.stream().mapToInt(Seat::number).min().orElse(0);
+    long[] statuses = new long[words(size)];
+    byte[] seatTiers = new byte[size];
+    List<Money> priceTiers = new ArrayList<>();
+    for (Seat seat : seats) {
+      int index = seat.number() - firstSeatNumber;
+      if (index >= size) {
+        throw new IllegalArgumentException("Seat numbers must be in range %s..%s, got %s".formatted(firstSeatNumber, firstSeatNumber + size - 1, seat.number()));
+      }
+      statuses[word(index)] |= (long) seat.status().ordinal() << shift(index);
+      seatTiers[index] = (byte) tierOf(priceTiers, seat.price());
+    }
+    return new SeatInventory(firstSeatNumber, size, statuses, List.copyOf(priceTiers), seatTiers, null);
+  }
+
+  /**
+   * @param seatTiers tier index per seat, {@code null} when all seats are in the first tier
+   */
+  public static SeatInventory available(int firstSeatNumber, int size, List<Money> priceTiers, byte[] seatTiers) {
+    if (priceTiers.isEmpty() || priceTiers.size() > MAX_PRICE_TIERS) {
+      throw new IllegalArgumentException("Price tiers count must be in range 1..%s, got %s".formatted(MAX_PRICE_TIERS, priceTiers.size()));
+    }
+    return new SeatInventory(firstSeatNumber, size, new long[words(size)], List.copyOf(priceTiers),
+      seatTiers == null ? new byte[size] : seatTiers.clone(), null);
+  }
+
+  private static int tierOf(List<Money> priceTiers, Money price) {
+    int tier = priceTiers.indexOf(price);
+    if (tier >= 0) {
+      return tier;
+    } else if (priceTiers.size() == MAX_PRICE_TIERS) {
+      throw new IllegalArgumentException("Too many price tiers, max is " + MAX_PRICE_TIERS);
+    } else {
+      priceTiers.add(price);
+      return priceTiers.size() - 1;
+    }
+  }
+
+  public boolean contains(int seatNumber) {
+    return seatNumber >= firstSeatNumber && seatNumber < firstSeatNumber + size;
+  }
+
+  public Option<Seat> get(int seatNumber) {
+    if (contains(seatNumber)) {
+      return Option.some(new Seat(seatNumber, statusOf(seatNumber), priceOf(seatNumber)));
+    } else {
+      return Option.none();
+    }
+  }
+
+  public SeatStatus statusOf(int seatNumber) {
+    return statusAt(statuses, seatNumber - firstSeatNumber);
+  }
+
+  private static SeatStatus statusAt(long[] statuses, int index) {
+    return SEAT_STATUSES[(int) ((statuses[word(index)] >>> shift(index)) & STATUS_MASK)];
+  }
+
+  /**
+   * @return the lowest numbered run of {@code numberOfSeats} adjacent available seats
+   */
+  public Option<List<Integer>> findAdjacentAvailable(int numberOfSeats) {
+    int index = currentFreeSeatRuns().findRun(numberOfSeats);
+    if (index < 0) {
+      return Option.none();
+    } else {
+      int first = firstSeatNumber + index;
+      return Option.some(IntStream.range(first, first + numberOfSeats).boxed().toList());
+    }
+  }
+
+  /**
+   * Statuses are counted a word at a time, available seats are the remaining ones, since unused bits are zero.
+   */
+  public SeatAvailability availability() {
+    int reserved = 0;
+    int paid = 0;
+    for (long word : statuses) {
+      reserved += Long.bitCount(word & ~(word >>> 1) & LOW_BITS);
+      paid += Long.bitCount((word >>> 1) & ~word & LOW_BITS);
+    }
+    int[] freeRuns = new int[size + 1];
+    int length = 0;
+    for (int index = 0; index < size; index++) {
+      if (statusAt(statuses, index) == AVAILABLE) {
+        if (length > 0 && freeRuns[length - 2] + freeRuns[length - 1] == firstSeatNumber + index) {
+          freeRuns[length - 1]++;
+        } else {
+          freeRuns[length++] = firstSeatNumber + index;
+          freeRuns[length++] = 1;
+        }
+      }
+    }
+    return new SeatAvailability(size - reserved - paid, reserved, paid, Arrays.copyOf(freeRuns, length));
+  }
+
+  public Money priceOf(int seatNumber) {
+    return priceTiers.get(tierOf(seatNumber));
+  }
+
+  public SectionPrices prices() {
+    return new SectionPrices(firstSeatNumber, priceTiers, seatTiers);
+  }
+
+  public int tierOf(int seatNumber) {
+    return Byte.toUnsignedInt(seatTiers[seatNumber - firstSeatNumber]);
+  }
+
+  public boolean hasTier(int tier) {
+    return tier >= 0 && tier < priceTiers.size();
+  }
+
+  /**
+   * Reprices all seats of the tier, statuses and seat tiers are shared with this inventory.
+   */
+  public SeatInventory withTierPrice(int tier, Money price) {
+    List<Money> updatedPriceTiers = new ArrayList<>(priceTiers);
+    updatedPriceTiers.set(tier, price);
+    return new SeatInventory(firstSeatNumber, size, statuses, List.copyOf(updatedPriceTiers), seatTiers, freeSeatRuns);
+  }
+
+  public boolean isAvailable(int seatNumber) {
+    return statusOf(seatNumber) == AVAILABLE;
+  }
+
+  public SeatInventory update(int seatNumber, SeatStatus status) {
+    return update(List.of(seatNumber), status);
+  }
+
+  public SeatInventory update(List<Integer> seatNumbers, SeatStatus status) {
+    long[] updated = statuses.clone();
+    int[] indexes = new int[seatNumbers.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      int index = seatNumbers.get(i) - firstSeatNumber;
+      int word = word(index);
+      int shift = shift(index);
+      updated[word] = (updated[word] & ~(STATUS_MASK << shift)) | ((long) status.ordinal() << shift);
+      indexes[i] = index;
+    }
+    return new SeatInventory(firstSeatNumber, size, updated, priceTiers, seatTiers, currentFreeSeatRuns().update(indexes, status == AVAILABLE));
+  }
+
+  public int longestFreeRun() {
+    return currentFreeSeatRuns().longestRun();
+  }
+
+  private FreeSeatRuns currentFreeSeatRuns() {
+    return freeSeatRuns.isCurrent() ? freeSeatRuns : FreeSeatRuns.of(size, index -> statusAt(statuses, index) == AVAILABLE);
+  }
+
+  public SeatInventory put(Seat seat) {
+    if (!contains(seat.number())) {
+      throw new IllegalArgumentException("Seat does not exists %s".formatted(seat.number()));
+    }
+    List<Money> updatedPriceTiers = new ArrayList<>(priceTiers);
+    byte[] updatedSeatTiers = seatTiers.clone();
+    updatedSeatTiers[seat.number() - firstSeatNumber] = (byte) tierOf(updatedPriceTiers, seat.price());
+    return new SeatInventory(firstSeatNumber, size, statuses, List.copyOf(updatedPriceTiers), updatedSeatTiers, freeSeatRuns)
+      .update(seat.number(), seat.status());
+  }
+
+  public List<Seat> toList() {
+    List<Seat> seats = new ArrayList<>(size);
+    for (int seatNumber = firstSeatNumber; seatNumber < firstSeatNumber + size; seatNumber++) {
+      seats.add(new Seat(seatNumber, statusOf(seatNumber), priceOf(seatNumber)));
+    }
+    return seats;
+  }
+
+  private static int words(int size) {
+    return (size + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+  }
+
+  private static int word(int index) {
+    return index / SEATS_PER_WORD;
+  }
+
+  private static int shift(int index) {
+    return (index % SEATS_PER_WORD) * BITS_PER_SEAT;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SeatInventory that
+      && firstSeatNumber == that.firstSeatNumber
+      && size == that.size
+      && Arrays.equals(statuses, that.statuses)
+      && priceTiers.equals(that.priceTiers)
+      && Arrays.equals(seatTiers, that.seatTiers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(firstSeatNumber, size, Arrays.hashCode(statuses), priceTiers, Arrays.hashCode(seatTiers));
+  }
+
+  @Override
+  public String toString() {
+    return "SeatInventory[firstSeatNumber=" + firstSeatNumber + ", size=" + size + ", seats=" + toList() + "]";
+  }
+}
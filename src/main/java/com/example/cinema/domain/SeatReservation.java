@@ -1,8 +1,12 @@
 package com.example.cinema.domain;
 
-import java.math.BigDecimal;
+import com.example.common.Money;
+
+import java.util.List;
 
 import static com.example.cinema.domain.SeatReservationStatus.COMPLETED;
+import static com.example.cinema.domain.SeatReservationStatus.FUNDS_HELD;
+import static com.example.cinema.domain.SeatReservationStatus.FUNDS_RELEASED;
 import static com.example.cinema.domain.SeatReservationStatus.SEAT_RESERVATION_FAILED;
 import static com.example.cinema.domain.SeatReservationStatus.SEAT_RESERVATION_REFUNDED;
 import static com.example.cinema.domain.SeatReservationStatus.SEAT_RESERVED;
@@ -11,39 +15,66 @@ import static com.example.cinema.domain.SeatReservationStatus.WALLET_CHARGED;
 import static com.example.cinema.domain.SeatReservationStatus.WALLET_CHARGE_REJECTED;
 import static com.example.cinema.domain.SeatReservationStatus.WALLET_REFUNDED;
 
-public record SeatReservation(String reservationId, String showId, int seatNumber, String walletId, BigDecimal price,
-                              SeatReservationStatus status) {
+public record SeatReservation(String reservationId, String showId, int seatNumber, String walletId, Money price,
+                              SeatReservationStatus status, List<Integer> seatNumbers) {
+
+  public SeatReservation(String reservationId, String showId, List<Integer> seatNumbers, String walletId, Money price,
+                         SeatReservationStatus status) {
+    this(reservationId, showId, seatNumbers.get(0), walletId, price, status, List.copyOf(seatNumbers));
+  }
+
+  /**
+   * All reserved seats, {@code seatNumber} is the first one. Reservations started before group reservations have only the seat number.
+   */
+  @Override
+  public List<Integer> seatNumbers() {
+    return seatNumbers == null ? List.of(seatNumber) : seatNumbers;
+  }
 
   public SeatReservation asSeatReservationFailed() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVATION_FAILED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVATION_FAILED, seatNumbers);
   }
 
-  public SeatReservation asSeatReserved() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVED);
+  /**
+   * @param price total price of the seats, as the show charges for them
+   */
+  public SeatReservation asSeatReserved(Money price) {
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVED, seatNumbers);
   }
 
   public SeatReservation asWalletChargeRejected() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_CHARGE_REJECTED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_CHARGE_REJECTED, seatNumbers);
   }
 
   public SeatReservation asWalletCharged() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_CHARGED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_CHARGED, seatNumbers);
+  }
+
+  /**
+   * The seat is reserved and the funds are held in the wallet, both at the same time.
+   */
+  public SeatReservation asFundsHeld() {
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, FUNDS_HELD, seatNumbers);
+  }
+
+  public SeatReservation asFundsReleased() {
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, FUNDS_RELEASED, seatNumbers);
   }
 
   public SeatReservation asCompleted() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, COMPLETED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, COMPLETED, seatNumbers);
   }
 
   public SeatReservation asSeatReservationRefunded() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVATION_REFUNDED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SEAT_RESERVATION_REFUNDED, seatNumbers);
   }
 
   public SeatReservation asWalletRefunded() {
-    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_REFUNDED);
+    return new SeatReservation(reservationId, showId, seatNumber, walletId, price, WALLET_REFUNDED, seatNumbers);
   }
 
   public SeatReservation asFailed() {
-    if (status == WALLET_CHARGE_REJECTED || status == STARTED) {
+    if (status == WALLET_CHARGE_REJECTED || status == STARTED || status == FUNDS_RELEASED) {
       return asSeatReservationFailed();
     } else if (status == WALLET_REFUNDED) {
       return asSeatReservationRefunded();
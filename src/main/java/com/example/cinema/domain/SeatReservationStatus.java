@@ -1,5 +1,13 @@
 package com.example.cinema.domain;
 
 public enum SeatReservationStatus {
-  STARTED, SEAT_RESERVED, WALLET_CHARGE_REJECTED, WALLET_CHARGED, COMPLETED, SEAT_RESERVATION_FAILED, WALLET_REFUNDED, SEAT_RESERVATION_REFUNDED
+  STARTED, SEAT_RESERVED, WALLET_CHARGE_REJECTED, WALLET_CHARGED, COMPLETED, SEAT_RESERVATION_FAILED, WALLET_REFUNDED, SEAT_RESERVATION_REFUNDED,
+  FUNDS_HELD, FUNDS_RELEASED;
+
+  /**
+   * The workflow ended, the reservation doesn't change anymore.
+   */
+  public boolean isFinal() {
+    return this == COMPLETED || this == SEAT_RESERVATION_FAILED || this == SEAT_RESERVATION_REFUNDED;
+  }
 }
@@ -0,0 +1,28 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seat prices of a show section without seat statuses, {@code seatTiers} is shared with the {@link SeatInventory}.
+ */
+public record SectionPrices(int firstSeatNumber, List<Money> priceTiers, byte[] seatTiers) {
+
+  public Option<Money> priceOf(int seatNumber) {
+    int index = seatNumber - firstSeatNumber;
+    if (index < 0 || index >= seatTiers.length) {
+      return Option.none();
+    } else {
+      return Option.some(priceTiers.get(Byte.toUnsignedInt(seatTiers[index])));
+    }
+  }
+
+  public SectionPrices withTierPrice(int tier, Money price) {
+    List<Money> updatedPriceTiers = new ArrayList<>(priceTiers);
+    updatedPriceTiers.set(tier, price);
+    return new SectionPrices(firstSeatNumber, List.copyOf(updatedPriceTiers), seatTiers);
+  }
+}
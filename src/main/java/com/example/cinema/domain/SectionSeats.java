@@ -0,0 +1,36 @@
+package com.example.cinema.domain;
+
+import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.common.Money;
+
+import java.util.List;
+
+/**
+ * Read model of a show section with seat statuses, prices and counts per status.
+ * The version is increased with every applied event.
+ * The longest run of available seats is a column, so sections with enough adjacent seats are found by a query.
+ */
+public record SectionSeats(String sectionId, String showId, int section, String title, int totalSeats, long version,
+                           SeatInventory seats, int available, int reserved, int paid, int longestFreeRun) {
+
+  public static SectionSeats of(ShowCreated showCreated) {
+    Show show = Show.create(showCreated);
+    ShowSection showSection = showCreated.showSection();
+    return of(show.id(), showSection.showId(), showSection.section(), show.title(), show.totalSeats(), 1, show.seats());
+  }
+
+  private static SectionSeats of(String sectionId, String showId, int section, String title, int totalSeats, long version,
+                                 SeatInventory seats) {
+    SeatAvailability availability = seats.availability();
+    return new SectionSeats(sectionId, showId, section, title, totalSeats, version, seats,
+      availability.available(), availability.reserved(), availability.paid(), seats.longestFreeRun());
+  }
+
+  public SectionSeats withStatus(List<Integer> seatNumbers, SeatStatus status) {
+    return of(sectionId, showId, section, title, totalSeats, version + 1, seats.update(seatNumbers, status));
+  }
+
+  public SectionSeats withTierPrice(int tier, Money price) {
+    return of(sectionId, showId, section, title, totalSeats, version + 1, seats.withTierPrice(tier, price));
+  }
+}
@@ -1,94 +1,185 @@
 package com.example.cinema.domain;
 
 import com.example.cinema.domain.ShowCommand.CancelSeatReservation;
+import com.example.cinema.domain.ShowCommand.ChangeTierPrice;
 import com.example.cinema.domain.ShowCommand.ConfirmReservationPayment;
 import com.example.cinema.domain.ShowCommand.CreateShow;
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
+import com.example.cinema.domain.ShowCommand.ReserveBestSeats;
 import com.example.cinema.domain.ShowCommand.ReserveSeat;
+import com.example.cinema.domain.ShowCommand.ReserveSeats;
 import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
 import com.example.cinema.domain.ShowEvent.SeatReservationCancelled;
 import com.example.cinema.domain.ShowEvent.SeatReservationPaid;
 import com.example.cinema.domain.ShowEvent.SeatReserved;
+import com.example.cinema.domain.ShowEvent.SeatsReservationCancelled;
+import com.example.cinema.domain.ShowEvent.SeatsReservationPaid;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
 import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.cinema.domain.ShowEvent.TierPriceChanged;
+import com.example.common.Money;
 import com.example.common.Or;
-import com.example.common.VavrMapDeserializer;
-import com.example.common.VavrMapSerializer;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import io.vavr.Tuple2;
-import io.vavr.collection.HashMap;
-import io.vavr.collection.Map;
+import io.vavr.control.Option;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
 import static com.example.cinema.domain.ReservationStatus.CANCELLED;
 import static com.example.cinema.domain.ReservationStatus.CONFIRMED;
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.PAID;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
 import static com.example.cinema.domain.ShowCommandError.CANCELLING_CONFIRMED_RESERVATION;
 import static com.example.cinema.domain.ShowCommandError.DUPLICATED_COMMAND;
+import static com.example.cinema.domain.ShowCommandError.INVALID_PRICE;
+import static com.example.cinema.domain.ShowCommandError.NOT_ENOUGH_ADJACENT_SEATS;
+import static com.example.cinema.domain.ShowCommandError.NO_SEATS_SELECTED;
+import static com.example.cinema.domain.ShowCommandError.PRICE_TIER_NOT_EXISTS;
 import static com.example.cinema.domain.ShowCommandError.RESERVATION_NOT_FOUND;
 import static com.example.cinema.domain.ShowCommandError.SEAT_NOT_AVAILABLE;
 import static com.example.cinema.domain.ShowCommandError.SEAT_NOT_EXISTS;
 import static com.example.cinema.domain.ShowCommandError.SHOW_ALREADY_EXISTS;
 import static com.example.common.Or.left;
 import static com.example.common.Or.right;
+import static java.time.temporal.ChronoUnit.MILLIS;
 
-public record Show(String id, String title,
-                   @JsonSerialize(using = VavrMapSerializer.class)
-                   @JsonDeserialize(using = VavrMapDeserializer.class)
-                   Map<Integer, Seat> seats,
-                   @JsonSerialize(using = VavrMapSerializer.class)
-                   @JsonDeserialize(using = VavrMapDeserializer.class)
-                   Map<String, Integer> pendingReservations,
-                   @JsonSerialize(using = VavrMapSerializer.class)
-                   @JsonDeserialize(using = VavrMapDeserializer.class)
-                   Map<String, FinishedReservation> finishedReservations) {
+@JsonSerialize(using = ShowSnapshot.Serializer.class)
+@JsonDeserialize(using = ShowSnapshot.Deserializer.class)
+public record Show(String id, String title, int totalSeats,
+                   SeatInventory seats,
+                   PendingReservations pendingReservations,
+                   FinishedReservations finishedReservations) {
+
+  // Seats are held for the payment, a hold not confirmed or cancelled before the deadline is cancelled automatically.
+  public static final Duration HOLD_TIMEOUT = Duration.ofMinutes(15);
 
   public static Show create(ShowCreated showCreated) {
     InitialShow initialShow = showCreated.initialShow();
-    List<Tuple2<Integer, Seat>> seats = initialShow.seats().stream().map(seat -> new Tuple2<>(seat.number(), seat)).toList();
-    return new Show(initialShow.id(), initialShow.title(), HashMap.ofEntries(seats), HashMap.empty(), HashMap.empty());
+    SeatInventory seats = initialShow.seatInventory();
+    int totalSeats = Math.max(initialShow.totalSeats(), seats.size());
+    return new Show(initialShow.id(), initialShow.title(), totalSeats, seats, PendingReservations.EMPTY, FinishedReservations.EMPTY);
   }
 
   public Or<ShowCommandError, ShowEvent> process(ShowCommand command) {
+    return process(command, Instant.now());
+  }
+
+  public Or<ShowCommandError, ShowEvent> process(ShowCommand command, Instant now) {
+    Instant expiresAt = now.plus(HOLD_TIMEOUT).truncatedTo(MILLIS);
+    Instant finishedAt = now.truncatedTo(MILLIS);
     return switch (command) {
-      case CreateShow ignored -> left(SHOW_ALREADY_EXISTS);
-      case ReserveSeat reserveSeat -> handleReservation(reserveSeat);
-      case ConfirmReservationPayment confirmReservationPayment -> handleConfirmation(confirmReservationPayment);
-      case CancelSeatReservation cancelSeatReservation -> handleCancellation(cancelSeatReservation);
+      case CreateShow createShow -> handleRepeatedCreation(createShow.title(), createShow.maxSeats());
+      case CreateShowSection createShowSection -> handleRepeatedCreation(createShowSection.title(), createShowSection.totalSeats());
+      case ReserveSeat reserveSeat -> handleReservation(reserveSeat, expiresAt);
+      case ReserveSeats reserveSeats -> handleReservation(reserveSeats, expiresAt);
+      case ReserveBestSeats reserveBestSeats -> handleReservation(reserveBestSeats, expiresAt);
+      case ConfirmReservationPayment confirmReservationPayment -> handleConfirmation(confirmReservationPayment, finishedAt);
+      case CancelSeatReservation cancelSeatReservation -> handleCancellation(cancelSeatReservation, finishedAt);
+      case ChangeTierPrice changeTierPrice -> handleTierPriceChange(changeTierPrice);
     };
   }
 
-  private Or<ShowCommandError, ShowEvent> handleConfirmation(ConfirmReservationPayment confirmReservationPayment) {
+  // Pending reservations keep the price from the reservation, the new price applies to next reservations only.
+  private Or<ShowCommandError, ShowEvent> handleTierPriceChange(ChangeTierPrice changeTierPrice) {
+    if (!seats.hasTier(changeTierPrice.tier())) {
+      return left(PRICE_TIER_NOT_EXISTS);
+    } else if (changeTierPrice.price() == null || changeTierPrice.price().isLessThan(Money.ZERO)) {
+      return left(INVALID_PRICE);
+    } else if (seats.priceTiers().get(changeTierPrice.tier()).equals(changeTierPrice.price())) {
+      return left(DUPLICATED_COMMAND);
+    } else {
+      return right(new TierPriceChanged(id, changeTierPrice.tier(), changeTierPrice.price()));
+    }
+  }
+
+  // Creating the same show again is a duplicate, so a partially created show can be created again to resume.
+  private Or<ShowCommandError, ShowEvent> handleRepeatedCreation(String title, int totalSeats) {
+    if (this.title.equals(title) && this.totalSeats == totalSeats) {
+      return left(DUPLICATED_COMMAND);
+    } else {
+      return left(SHOW_ALREADY_EXISTS);
+    }
+  }
+
+  private Or<ShowCommandError, ShowEvent> handleConfirmation(ConfirmReservationPayment confirmReservationPayment, Instant finishedAt) {
     String reservationId = confirmReservationPayment.reservationId();
     return pendingReservations.get(reservationId).fold(
       () -> finishedReservations.get(reservationId).<Or<ShowCommandError, ShowEvent>>map(finishedReservation ->
         switch (finishedReservation.status()) {
           case CONFIRMED -> left(DUPLICATED_COMMAND);
           case CANCELLED ->
-            right(new CancelledReservationConfirmed(id, reservationId, finishedReservation.seatNumber()));
+            right(new CancelledReservationConfirmed(id, reservationId, finishedReservation.seatNumber(),
+              confirmReservationPayment.walletId(), confirmReservationPayment.price()));
         }).getOrElse(left(RESERVATION_NOT_FOUND)),
-      seatNumber ->
-        seats.get(seatNumber).<Or<ShowCommandError, ShowEvent>>map(seat ->
-          right(new SeatReservationPaid(id, reservationId, seatNumber))
-        ).getOrElse(left(SEAT_NOT_EXISTS)));
+      pendingReservation -> {
+        if (!containsAll(pendingReservation.seatNumbers())) {
+          return left(SEAT_NOT_EXISTS);
+        } else if (pendingReservation.isGroup()) {
+          return right(new SeatsReservationPaid(id, reservationId, pendingReservation.seatNumbers(), finishedAt));
+        } else {
+          return right(new SeatReservationPaid(id, reservationId, pendingReservation.seatNumber(), finishedAt));
+        }
+      });
   }
 
-  private Or<ShowCommandError, ShowEvent> handleReservation(ReserveSeat reserveSeat) {
+  private Or<ShowCommandError, ShowEvent> handleReservation(ReserveSeat reserveSeat, Instant expiresAt) {
     int seatNumber = reserveSeat.seatNumber();
     if (isDuplicate(reserveSeat.reservationId())) {
       return left(DUPLICATED_COMMAND);
     } else {
-      return seats.get(seatNumber).<Or<ShowCommandError, ShowEvent>>map(seat -> {
-        if (seat.isAvailable()) {
-          return right(new SeatReserved(id, reserveSeat.walletId(), reserveSeat.reservationId(), seatNumber, seat.price()));
-        } else {
+      if (!seats.contains(seatNumber)) {
+        return left(SEAT_NOT_EXISTS);
+      } else if (seats.isAvailable(seatNumber)) {
+        return right(new SeatReserved(id, reserveSeat.walletId(), reserveSeat.reservationId(), seatNumber, seats.priceOf(seatNumber), expiresAt));
+      } else {
+        return left(SEAT_NOT_AVAILABLE);
+      }
+    }
+  }
+
+  private Or<ShowCommandError, ShowEvent> handleReservation(ReserveSeats reserveSeats, Instant expiresAt) {
+    List<Integer> seatNumbers = reserveSeats.seatNumbers();
+    if (isDuplicate(reserveSeats.reservationId())) {
+      return left(DUPLICATED_COMMAND);
+    } else if (seatNumbers.isEmpty()) {
+      return left(NO_SEATS_SELECTED);
+    } else if (seatNumbers.size() == 1) {
+      return handleReservation(new ReserveSeat(reserveSeats.walletId(), reserveSeats.reservationId(), seatNumbers.get(0)), expiresAt);
+    } else {
+      //all or nothing, the whole group is rejected if any of the seats can't be reserved
+      var selected = new HashSet<Integer>();
+      Money price = Money.ZERO;
+      for (int seatNumber : seatNumbers) {
+        if (!seats.contains(seatNumber)) {
+          return left(SEAT_NOT_EXISTS);
+        } else if (!seats.isAvailable(seatNumber) || !selected.add(seatNumber)) {
           return left(SEAT_NOT_AVAILABLE);
         }
-      }).getOrElse(left(SEAT_NOT_EXISTS));
+        price = price.plus(seats.priceOf(seatNumber));
+      }
+      return right(new SeatsReserved(id, reserveSeats.walletId(), reserveSeats.reservationId(), List.copyOf(seatNumbers), price, expiresAt));
+    }
+  }
+
+  private Or<ShowCommandError, ShowEvent> handleReservation(ReserveBestSeats reserveBestSeats, Instant expiresAt) {
+    if (isDuplicate(reserveBestSeats.reservationId())) {
+      return left(DUPLICATED_COMMAND);
+    } else if (reserveBestSeats.numberOfSeats() <= 0) {
+      return left(NO_SEATS_SELECTED);
+    } else {
+      return findBestSeats(reserveBestSeats.numberOfSeats())
+        .<Or<ShowCommandError, ShowEvent>>map(seatNumbers ->
+          handleReservation(new ReserveSeats(reserveBestSeats.walletId(), reserveBestSeats.reservationId(), seatNumbers), expiresAt))
+        .getOrElse(left(NOT_ENOUGH_ADJACENT_SEATS));
     }
   }
 
-  private Or<ShowCommandError, ShowEvent> handleCancellation(CancelSeatReservation cancelSeatReservation) {
+  private Or<ShowCommandError, ShowEvent> handleCancellation(CancelSeatReservation cancelSeatReservation, Instant finishedAt) {
     String reservationId = cancelSeatReservation.reservationId();
     return pendingReservations.get(reservationId).fold(
       /*no reservation*/
@@ -98,12 +189,47 @@ public record Show(String id, String title,
           case CONFIRMED -> left(CANCELLING_CONFIRMED_RESERVATION);
         }).getOrElse(left(RESERVATION_NOT_FOUND)),
       /*matching reservation*/
-      seatNumber -> seats.get(seatNumber).<Or<ShowCommandError, ShowEvent>>map(seat ->
-        right(new SeatReservationCancelled(id, reservationId, seatNumber))
-      ).getOrElse(left(SEAT_NOT_EXISTS))
+      pendingReservation -> {
+        if (!containsAll(pendingReservation.seatNumbers())) {
+          return left(SEAT_NOT_EXISTS);
+        } else if (pendingReservation.isGroup()) {
+          return right(new SeatsReservationCancelled(id, reservationId, pendingReservation.seatNumbers(), finishedAt));
+        } else {
+          return right(new SeatReservationCancelled(id, reservationId, pendingReservation.seatNumber(), finishedAt));
+        }
+      }
     );
   }
 
+  /**
+   * Cancellations of at most {@code limit} holds with a deadline before or at {@code now}.
+   */
+  public List<ShowEvent> expireHolds(Instant now, int limit) {
+    Instant finishedAt = now.truncatedTo(MILLIS);
+    return pendingReservations.expired(now, limit)
+      .<ShowEvent>map(expired -> {
+        String reservationId = expired._1;
+        PendingReservation pendingReservation = expired._2;
+        if (pendingReservation.isGroup()) {
+          return new SeatsReservationCancelled(id, reservationId, pendingReservation.seatNumbers(), finishedAt);
+        } else {
+          return new SeatReservationCancelled(id, reservationId, pendingReservation.seatNumber(), finishedAt);
+        }
+      })
+      .asJava();
+  }
+
+  private boolean containsAll(List<Integer> seatNumbers) {
+    return seatNumbers.stream().allMatch(seats::contains);
+  }
+
+  /**
+   * Price of a pending reservation, as it was when the seats were reserved.
+   */
+  public Option<Money> reservationPrice(String reservationId) {
+    return pendingReservations.get(reservationId).flatMap(pending -> Option.of(pending.price()));
+  }
+
   private boolean isDuplicate(String reservationId) {
     return pendingReservations.containsKey(reservationId) ||
       finishedReservations.get(reservationId).isDefined();
@@ -115,35 +241,74 @@ public record Show(String id, String title,
       case SeatReserved seatReserved -> applyReserved(seatReserved);
       case SeatReservationPaid seatReservationPaid -> applyReservationPaid(seatReservationPaid);
       case SeatReservationCancelled seatReservationCancelled -> applyReservationCancelled(seatReservationCancelled);
+      case SeatsReserved seatsReserved -> applyReserved(seatsReserved);
+      case SeatsReservationPaid seatsReservationPaid -> applyReservationPaid(seatsReservationPaid);
+      case SeatsReservationCancelled seatsReservationCancelled -> applyReservationCancelled(seatsReservationCancelled);
       case CancelledReservationConfirmed __ -> this;
+      case TierPriceChanged tierPriceChanged ->
+        new Show(id, title, totalSeats, seats.withTierPrice(tierPriceChanged.tier(), tierPriceChanged.price()), pendingReservations, finishedReservations);
     };
   }
 
   private Show applyReservationPaid(SeatReservationPaid seatReservationPaid) {
-    Seat seat = getSeatOrThrow(seatReservationPaid.seatNumber());
     String reservationId = seatReservationPaid.reservationId();
-    return new Show(id, title, seats.put(seat.number(), seat.paid()),
+    return new Show(id, title, totalSeats, updateSeatOrThrow(seatReservationPaid.seatNumber(), PAID),
       pendingReservations.remove(reservationId),
-      finishedReservations.put(reservationId, new FinishedReservation(reservationId, seatReservationPaid.seatNumber(), CONFIRMED)));
+      finishedReservations.add(new FinishedReservation(reservationId, seatReservationPaid.seatNumber(), CONFIRMED, seatReservationPaid.finishedAt())));
   }
 
   private Show applyReservationCancelled(SeatReservationCancelled seatReservationCancelled) {
-    Seat seat = getSeatOrThrow(seatReservationCancelled.seatNumber());
     String reservationId = seatReservationCancelled.reservationId();
-    return new Show(id, title, seats.put(seat.number(), seat.available()),
+    return new Show(id, title, totalSeats, updateSeatOrThrow(seatReservationCancelled.seatNumber(), AVAILABLE),
       pendingReservations.remove(reservationId),
-      finishedReservations.put(reservationId, new FinishedReservation(reservationId, seatReservationCancelled.seatNumber(), CANCELLED)));
+      finishedReservations.add(new FinishedReservation(reservationId, seatReservationCancelled.seatNumber(), CANCELLED, seatReservationCancelled.finishedAt())));
   }
 
   private Show applyReserved(SeatReserved seatReserved) {
-    Seat seat = getSeatOrThrow(seatReserved.seatNumber());
-    return new Show(id, title, seats.put(seat.number(), seat.reserved()),
-      pendingReservations.put(seatReserved.reservationId(), seatReserved.seatNumber()),
+    return new Show(id, title, totalSeats, updateSeatOrThrow(seatReserved.seatNumber(), RESERVED),
+      pendingReservations.put(seatReserved.reservationId(), PendingReservation.of(seatReserved.seatNumber(), seatReserved.expiresAt(), seatReserved.price())),
       finishedReservations);
   }
 
-  private Seat getSeatOrThrow(int seatNumber) {
-    return seats.get(seatNumber).getOrElseThrow(() -> new IllegalStateException("Seat does not exists %s".formatted(seatNumber)));
+  private Show applyReservationPaid(SeatsReservationPaid seatsReservationPaid) {
+    String reservationId = seatsReservationPaid.reservationId();
+    return new Show(id, title, totalSeats, updateSeatsOrThrow(seatsReservationPaid.seatNumbers(), PAID),
+      pendingReservations.remove(reservationId),
+      finishedReservations.add(new FinishedReservation(reservationId, seatsReservationPaid.seatNumbers().get(0), CONFIRMED, seatsReservationPaid.finishedAt())));
+  }
+
+  private Show applyReservationCancelled(SeatsReservationCancelled seatsReservationCancelled) {
+    String reservationId = seatsReservationCancelled.reservationId();
+    return new Show(id, title, totalSeats, updateSeatsOrThrow(seatsReservationCancelled.seatNumbers(), AVAILABLE),
+      pendingReservations.remove(reservationId),
+      finishedReservations.add(new FinishedReservation(reservationId, seatsReservationCancelled.seatNumbers().get(0), CANCELLED, seatsReservationCancelled.finishedAt())));
+  }
+
+  private Show applyReserved(SeatsReserved seatsReserved) {
+    return new Show(id, title, totalSeats, updateSeatsOrThrow(seatsReserved.seatNumbers(), RESERVED),
+      pendingReservations.put(seatsReserved.reservationId(), new PendingReservation(seatsReserved.seatNumbers(), seatsReserved.expiresAt(), seatsReserved.price())),
+      finishedReservations);
+  }
+
+  private SeatInventory updateSeatOrThrow(int seatNumber, SeatStatus status) {
+    if (!seats.contains(seatNumber)) {
+      throw new IllegalStateException("Seat does not exists %s".formatted(seatNumber));
+    }
+    return seats.update(seatNumber, status);
+  }
+
+  private SeatInventory updateSeatsOrThrow(List<Integer> seatNumbers, SeatStatus status) {
+    seatNumbers.stream().filter(seatNumber -> !seats.contains(seatNumber)).findFirst().ifPresent(seatNumber -> {
+      throw new IllegalStateException("Seat does not exists %s".formatted(seatNumber));
+    });
+    return seats.update(seatNumbers, status);
+  }
+
+  /**
+   * Best seats are the lowest numbered adjacent available seats.
+   */
+  public Option<List<Integer>> findBestSeats(int numberOfSeats) {
+    return seats.findAdjacentAvailable(numberOfSeats);
   }
 
   public Optional<Seat> getSeat(int seatNumber) {
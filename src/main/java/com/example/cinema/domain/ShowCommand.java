@@ -1,16 +1,40 @@
 package com.example.cinema.domain;
 
+import com.example.common.Money;
+
+import java.util.List;
+
 public sealed interface ShowCommand {
 
   record CreateShow(String title, int maxSeats) implements ShowCommand {
   }
 
+  record CreateShowSection(String title, int section, int totalSeats) implements ShowCommand {
+  }
+
   record ReserveSeat(String walletId, String reservationId, int seatNumber) implements ShowCommand {
   }
 
-  record ConfirmReservationPayment(String reservationId) implements ShowCommand {
+  record ReserveSeats(String walletId, String reservationId, List<Integer> seatNumbers) implements ShowCommand {
+  }
+
+  record ReserveBestSeats(String walletId, String reservationId, int numberOfSeats) implements ShowCommand {
+  }
+
+  /**
+   * @param walletId charged wallet, if known, for the refund of a cancelled reservation
+   * @param price    charged amount, if known, for the refund of a cancelled reservation
+   */
+  record ConfirmReservationPayment(String reservationId, String walletId, Money price) implements ShowCommand {
+
+    public ConfirmReservationPayment(String reservationId) {
+      this(reservationId, null, null);
+    }
   }
 
   record CancelSeatReservation(String reservationId) implements ShowCommand {
   }
+
+  record ChangeTierPrice(int tier, Money price) implements ShowCommand {
+  }
 }
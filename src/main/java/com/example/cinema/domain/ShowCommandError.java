@@ -4,9 +4,14 @@ public enum ShowCommandError {
   SHOW_ALREADY_EXISTS,
   SHOW_NOT_FOUND,
   TOO_MANY_SEATS,
+  SECTION_NOT_EXISTS,
   SEAT_NOT_EXISTS,
   SEAT_NOT_AVAILABLE,
+  NO_SEATS_SELECTED,
+  NOT_ENOUGH_ADJACENT_SEATS,
   RESERVATION_NOT_FOUND,
   DUPLICATED_COMMAND,
-  CANCELLING_CONFIRMED_RESERVATION
+  CANCELLING_CONFIRMED_RESERVATION,
+  PRICE_TIER_NOT_EXISTS,
+  INVALID_PRICE
 }
\ No newline at end of file
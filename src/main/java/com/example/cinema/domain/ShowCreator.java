@@ -1,34 +1,56 @@
 package com.example.cinema.domain;
 
 import com.example.cinema.domain.ShowCommand.CreateShow;
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
 import com.example.cinema.domain.ShowEvent.ShowCreated;
+import com.example.common.Money;
 import com.example.common.Or;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.IntStream;
 
 import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.ShowCommandError.SECTION_NOT_EXISTS;
 import static com.example.cinema.domain.ShowCommandError.TOO_MANY_SEATS;
+import static com.example.cinema.domain.ShowSections.SECTION_SIZE;
 import static com.example.common.Or.left;
 import static com.example.common.Or.right;
 
 public class ShowCreator {
 
-  public static final BigDecimal INITIAL_PRICE = new BigDecimal("100");
+  public static final Money INITIAL_PRICE = Money.ofUnits(100);
 
   public static Or<ShowCommandError, ShowCreated> create(String showId, CreateShow createShow) {
     //more domain validation here
-    if (createShow.maxSeats() > 100) {
+    if (createShow.maxSeats() > SECTION_SIZE) {
       return left(TOO_MANY_SEATS);
     } else {
-      var initialShow = new InitialShow(showId, createShow.title(), createSeats(INITIAL_PRICE, createShow.maxSeats()));
-      var showCreated = new ShowCreated(showId, initialShow);
+      var initialShow = InitialShow.of(showId, createShow.title(), createShow.maxSeats(), 0, createShow.maxSeats(), INITIAL_PRICE);
+      var showCreated = new ShowCreated(showId, initialShow, new ShowSection(showId, 0));
       return right(showCreated);
     }
   }
 
-  public static List<Seat> createSeats(BigDecimal seatPrice, int maxSeats) {
-    return IntStream.range(0, maxSeats).mapToObj(seatNum -> new Seat(seatNum, AVAILABLE, seatPrice)).toList();
+  public static Or<ShowCommandError, ShowCreated> createSection(String sectionId, CreateShowSection createShowSection) {
+    int totalSeats = createShowSection.totalSeats();
+    int firstSeatNumber = createShowSection.section() * SECTION_SIZE;
+    var showSection = ShowSections.showSectionOf(sectionId, createShowSection.section());
+    if (totalSeats > ShowSections.MAX_SEATS) {
+      return left(TOO_MANY_SEATS);
+    } else if (createShowSection.section() < 0 || firstSeatNumber >= Math.max(totalSeats, 1) || showSection.isEmpty()) {
+      return left(SECTION_NOT_EXISTS);
+    } else {
+      int seats = Math.min(SECTION_SIZE, totalSeats - firstSeatNumber);
+      var initialShow = InitialShow.of(sectionId, createShowSection.title(), totalSeats, firstSeatNumber, seats, INITIAL_PRICE);
+      return right(new ShowCreated(sectionId, initialShow, showSection.get()));
+    }
+  }
+
+  public static List<Seat> createSeats(Money seatPrice, int maxSeats) {
+    return createSeats(seatPrice, 0, maxSeats);
+  }
+
+  public static List<Seat> createSeats(Money seatPrice, int firstSeatNumber, int seats) {
+    return IntStream.range(firstSeatNumber, firstSeatNumber + seats).mapToObj(seatNum -> new Seat(seatNum, AVAILABLE, seatPrice)).toList();
   }
 }
@@ -1,31 +1,70 @@
 package com.example.cinema.domain;
 
-
 import akka.javasdk.annotations.TypeName;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.example.common.Money;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 
 public sealed interface ShowEvent {
   String showId();
 
   @TypeName("show-created")
-  record ShowCreated(String showId, InitialShow initialShow) implements ShowEvent {
+  record ShowCreated(String showId, InitialShow initialShow,
+                     @JsonInclude(JsonInclude.Include.NON_NULL) ShowSection section) implements ShowEvent {
+
+    public ShowSection showSection() {
+      return section != null ? section : ShowSections.showSectionOf(showId);
+    }
   }
 
   @TypeName("seat-reserved")
   record SeatReserved(String showId, String walletId, String reservationId, int seatNumber,
-                      BigDecimal price) implements ShowEvent {
+                      Money price, Instant expiresAt) implements ShowEvent {
   }
 
+  /**
+   * The finish time is null in events written before finished reservations were evicted by age.
+   */
   @TypeName("seat-reservation-paid")
-  record SeatReservationPaid(String showId, String reservationId, int seatNumber) implements ShowEvent {
+  record SeatReservationPaid(String showId, String reservationId, int seatNumber,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt) implements ShowEvent {
   }
 
   @TypeName("seat-reservation-cancelled")
-  record SeatReservationCancelled(String showId, String reservationId, int seatNumber) implements ShowEvent {
+  record SeatReservationCancelled(String showId, String reservationId, int seatNumber,
+                                  @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt) implements ShowEvent {
+  }
+
+  @TypeName("seats-reserved")
+  record SeatsReserved(String showId, String walletId, String reservationId, List<Integer> seatNumbers,
+                       Money price, Instant expiresAt) implements ShowEvent {
+  }
+
+  @TypeName("seats-reservation-paid")
+  record SeatsReservationPaid(String showId, String reservationId, List<Integer> seatNumbers,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt) implements ShowEvent {
   }
 
+  @TypeName("seats-reservation-cancelled")
+  record SeatsReservationCancelled(String showId, String reservationId, List<Integer> seatNumbers,
+                                   @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt) implements ShowEvent {
+  }
+
+  /**
+   * The wallet id and the price are null for payments confirmed without them.
+   */
   @TypeName("cancelled-reservation-confirmed")
-  record CancelledReservationConfirmed(String showId, String reservationId, int seatNumber) implements ShowEvent {
+  record CancelledReservationConfirmed(String showId, String reservationId, int seatNumber,
+                                       String walletId, Money price) implements ShowEvent {
+
+    public CancelledReservationConfirmed(String showId, String reservationId, int seatNumber) {
+      this(showId, reservationId, seatNumber, null, null);
+    }
+  }
+
+  @TypeName("tier-price-changed")
+  record TierPriceChanged(String showId, int tier, Money price) implements ShowEvent {
   }
 }
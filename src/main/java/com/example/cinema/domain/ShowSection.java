@@ -0,0 +1,7 @@
+package com.example.cinema.domain;
+
+/**
+ * Show and section number of a show section entity, stored with the created event so the section id is never parsed.
+ */
+public record ShowSection(String showId, int section) {
+}
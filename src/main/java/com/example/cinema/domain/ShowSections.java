@@ -0,0 +1,82 @@
+package com.example.cinema.domain;
+
+import com.example.cinema.domain.ShowCommand.CreateShow;
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Big venues are split into sections of {@link #SECTION_SIZE} seats, each section is a separate show entity.
+ * The first section uses the show id, so a show that fits into one section is addressed as before.
+ */
+public class ShowSections {
+
+  public static final int SECTION_SIZE = 100;
+  public static final int MAX_SEATS = 100_000;
+  private static final String SECTION_SEPARATOR = "-section-";
+
+  public static int sections(int totalSeats) {
+    return (totalSeats + SECTION_SIZE - 1) / SECTION_SIZE;
+  }
+
+  public static int sectionOf(int seatNumber) {
+    return seatNumber / SECTION_SIZE;
+  }
+
+  public static String sectionId(String showId, int section) {
+    return section == 0 ? showId : showId + SECTION_SEPARATOR + section;
+  }
+
+  /**
+   * The separator is reserved, a show id containing it could be mistaken for a section of another show.
+   */
+  public static boolean isValidShowId(String showId) {
+    return !showId.contains(SECTION_SEPARATOR);
+  }
+
+  /**
+   * @return the show of a section with a known number, empty if the section id doesn't belong to that section
+   */
+  public static Optional<ShowSection> showSectionOf(String sectionId, int section) {
+    if (section == 0) {
+      return Optional.of(new ShowSection(sectionId, 0));
+    } else {
+      String suffix = SECTION_SEPARATOR + section;
+      return sectionId.endsWith(suffix)
+        ? Optional.of(new ShowSection(sectionId.substring(0, sectionId.length() - suffix.length()), section))
+        : Optional.empty();
+    }
+  }
+
+  /**
+   * Only for events written before the section was stored, an id that isn't a section id is the first section of a show.
+   */
+  public static ShowSection showSectionOf(String sectionId) {
+    int separator = sectionId.lastIndexOf(SECTION_SEPARATOR);
+    String suffix = separator < 0 ? "" : sectionId.substring(separator + SECTION_SEPARATOR.length());
+    if (suffix.isEmpty() || suffix.length() > 9 || !suffix.chars().allMatch(Character::isDigit)) {
+      return new ShowSection(sectionId, 0);
+    } else {
+      return new ShowSection(sectionId.substring(0, separator), Integer.parseInt(suffix));
+    }
+  }
+
+  public static String entityId(String showId, int seatNumber) {
+    return sectionId(showId, sectionOf(seatNumber));
+  }
+
+  /**
+   * A group reservation is processed atomically by a single show entity, so all seats must be in one section.
+   */
+  public static boolean inSameSection(List<Integer> seatNumbers) {
+    return seatNumbers.stream().map(ShowSections::sectionOf).distinct().count() <= 1;
+  }
+
+  public static List<CreateShowSection> split(CreateShow createShow) {
+    return IntStream.range(0, Math.max(1, sections(createShow.maxSeats())))
+      .mapToObj(section -> new CreateShowSection(createShow.title(), section, createShow.maxSeats()))
+      .toList();
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.example.cinema.domain.ReservationStatus.CONFIRMED;
+
+/**
+ * Versioned, compact snapshot format of the {@link Show} state: the packed status words of the {@link SeatInventory}, a price tier table, seat tiers only when there is more than one tier, and reservations as parallel arrays. Seat numbers of pending
+ * reservations are flattened, with seat counts only when there is a group reservation, hold deadlines are epoch millis
+ * (0 for holds without a deadline) and are skipped when no hold has one, the same for reservation prices (null when unknown)
+ * and finish times of finished reservations.
+ * Snapshots without a version are the plain Jackson shape of the show record and are migrated when read.
+ */
+public record ShowSnapshot(int version, String id, String title, int totalSeats,
+                           int firstSeatNumber, int seatCount,
+                           long[] statuses,
+                           List<Money> priceTiers,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) byte[] seatTiers,
+                           List<String> pendingReservationIds, int[] pendingSeatNumbers,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) int[] pendingSeatCounts,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) long[] pendingExpiresAt,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) List<Money> pendingPrices,
+                           List<String> finishedReservationIds, int[] finishedSeatNumbers, byte[] finishedConfirmed,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) long[] finishedAt) {
+
+  public static final int CURRENT_VERSION = 1;
+
+  public static ShowSnapshot of(Show show) {
+    SeatInventory seats = show.seats();
+    //with a single tier all seat tiers are 0
+    byte[] seatTiers = seats.priceTiers().size() <= 1 ? null : seats.seatTiers();
+
+    int pendingCount = show.pendingReservations().size();
+    List<String> pendingReservationIds = new ArrayList<>(pendingCount);
+    int[] pendingSeatNumbers = new int[show.pendingReservations().reservations().values().map(pending -> pending.seatNumbers().size()).sum().intValue()];
+    int[] pendingSeatCounts = new int[pendingCount];
+    long[] pendingExpiresAt = new long[pendingCount];
+    List<Money> pendingPrices = new ArrayList<>(pendingCount);
+    boolean groupPending = false;
+    boolean expiringPending = false;
+    boolean pricedPending = false;
+    int seatIndex = 0;
+    for (var pending : show.pendingReservations()) {
+      pendingSeatCounts[pendingReservationIds.size()] = pending._2.seatNumbers().size();
+      if (pending._2.expiresAt() != null) {
+        pendingExpiresAt[pendingReservationIds.size()] = pending._2.expiresAt().toEpochMilli();
+        expiringPending = true;
+      }
+      pendingPrices.add(pending._2.price());
+      pricedPending |= pending._2.price() != null;
+      pendingReservationIds.add(pending._1);
+      groupPending |= pending._2.isGroup();
+      for (int seatNumber : pending._2.seatNumbers()) {
+        pendingSeatNumbers[seatIndex++] = seatNumber;
+      }
+    }
+
+    List<FinishedReservation> finished = show.finishedReservations().toList();
+    List<String> finishedReservationIds = new ArrayList<>(finished.size());
+    int[] finishedSeatNumbers = new int[finished.size()];
+    BitSet finishedConfirmed = new BitSet(finished.size());
+    long[] finishedAt = new long[finished.size()];
+    boolean timedFinished = false;
+    for (int i = 0; i < finished.size(); i++) {
+      finishedReservationIds.add(finished.get(i).reservationId());
+      finishedSeatNumbers[i] = finished.get(i).seatNumber();
+      finishedConfirmed.set(i, finished.get(i).isConfirmed());
+      if (finished.get(i).finishedAt() != null) {
+        finishedAt[i] = finished.get(i).finishedAt().toEpochMilli();
+        timedFinished = true;
+      }
+    }
+
+    return new ShowSnapshot(CURRENT_VERSION, show.id(), show.title(), show.totalSeats(),
+      seats.firstSeatNumber(), seats.size(), seats.statuses(), seats.priceTiers(), seatTiers,
+      pendingReservationIds, pendingSeatNumbers, groupPending ? pendingSeatCounts : null,
+      expiringPending ? pendingExpiresAt : null, pricedPending ? pendingPrices : null,
+      finishedReservationIds, finishedSeatNumbers, finishedConfirmed.toByteArray(), timedFinished ? finishedAt : null);
+  }
+
+  public Show toShow() {
+    if (version != CURRENT_VERSION) {
+      throw new IllegalStateException("Unsupported show snapshot version " + version);
+    }
+    //tiers are restored as they were, without seat objects
+    SeatInventory seats = new SeatInventory(firstSeatNumber, seatCount, statuses, List.copyOf(priceTiers),
+      seatTiers == null ? new byte[seatCount] : seatTiers, null);
+
+    PendingReservations pendingReservations = PendingReservations.EMPTY;
+    int seatIndex = 0;
+    for (int i = 0; i < pendingReservationIds.size(); i++) {
+      int seatCount = pendingSeatCounts == null ? 1 : pendingSeatCounts[i];
+      List<Integer> seatNumbers = new ArrayList<>(seatCount);
+      for (int j = 0; j < seatCount; j++) {
+        seatNumbers.add(pendingSeatNumbers[seatIndex++]);
+      }
+      Instant expiresAt = pendingExpiresAt == null || pendingExpiresAt[i] == 0 ? null : Instant.ofEpochMilli(pendingExpiresAt[i]);
+      Money price = pendingPrices == null ? null : pendingPrices.get(i);
+      pendingReservations = pendingReservations.put(pendingReservationIds.get(i), new PendingReservation(List.copyOf(seatNumbers), expiresAt, price));
+    }
+
+    BitSet confirmed = BitSet.valueOf(finishedConfirmed);
+    FinishedReservations finishedReservations = FinishedReservations.EMPTY;
+    for (int i = 0; i < finishedReservationIds.size(); i++) {
+      var status = confirmed.get(i) ? CONFIRMED : ReservationStatus.CANCELLED;
+      Instant finishedTime = finishedAt == null || finishedAt[i] == 0 ? null : Instant.ofEpochMilli(finishedAt[i]);
+      finishedReservations = finishedReservations.add(new FinishedReservation(finishedReservationIds.get(i), finishedSeatNumbers[i], status, finishedTime));
+    }
+
+    return new Show(id, title, totalSeats, seats, pendingReservations, finishedReservations);
+  }
+
+  // Migration of snapshots written before the versioned format, seats and finished reservations
+  // were stored as maps keyed by seat number/reservation id.
+  static Show migrate(JsonNode node) {
+    List<Seat> seatList = new ArrayList<>();
+    for (JsonNode seat : node.get("seats")) {
+      seatList.add(new Seat(seat.get("number").asInt(), SeatStatus.valueOf(seat.get("status").asText()), Money.of(seat.get("price").decimalValue())));
+    }
+    seatList.sort((a, b) -> Integer.compare(a.number(), b.number()));
+    SeatInventory seats = SeatInventory.of(seatList);
+
+    PendingReservations pendingReservations = PendingReservations.EMPTY;
+    for (Iterator<java.util.Map.Entry<String, JsonNode>> it = node.get("pendingReservations").fields(); it.hasNext(); ) {
+      var pending = it.next();
+      pendingReservations = pendingReservations.put(pending.getKey(), PendingReservation.of(pending.getValue().asInt(), null));
+    }
+
+    FinishedReservations finishedReservations = FinishedReservations.EMPTY;
+    for (JsonNode finished : node.get("finishedReservations")) {
+      finishedReservations = finishedReservations.add(new FinishedReservation(
+        finished.get("reservationId").asText(),
+        finished.get("seatNumber").asInt(),
+        ReservationStatus.valueOf(finished.get("status").asText()),
+        null));
+    }
+
+    int totalSeats = Math.max(node.path("totalSeats").asInt(0), seats.size());
+    return new Show(node.get("id").asText(), node.get("title").asText(), totalSeats, seats, pendingReservations, finishedReservations);
+  }
+
+  public static class Serializer extends JsonSerializer<Show> {
+    @Override
+    public void serialize(Show show, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+      gen.writeObject(ShowSnapshot.of(show));
+    }
+  }
+
+  public static class Deserializer extends JsonDeserializer<Show> {
+    @Override
+    public Show deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonNode node = p.getCodec().readTree(p);
+      if (node.has("version")) {
+        return p.getCodec().treeToValue(node, ShowSnapshot.class).toShow();
+      } else {
+        return migrate(node);
+      }
+    }
+  }
+}
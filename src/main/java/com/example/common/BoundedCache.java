@@ -0,0 +1,70 @@
+package com.example.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Node-local cache with a maximum size, evicting the least recently used entry, and a time to live for each entry.
+ */
+public class BoundedCache<K, V> {
+
+  private record Entry<V>(V value, Instant expiresAt) {
+  }
+
+  private final int maxSize;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  public BoundedCache(int maxSize, Duration timeToLive) {
+    this(maxSize, timeToLive, Clock.systemUTC());
+  }
+
+  public BoundedCache(int maxSize, Duration timeToLive, Clock clock) {
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > BoundedCache.this.maxSize;
+      }
+    };
+  }
+
+  public synchronized Optional<V> get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    } else if (entry.expiresAt().isAfter(clock.instant())) {
+      return Optional.of(entry.value());
+    } else {
+      entries.remove(key);
+      return Optional.empty();
+    }
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, new Entry<>(value, clock.instant().plus(timeToLive)));
+  }
+
+  /**
+   * Updates a cached value, nothing is cached when the key is missing.
+   */
+  public synchronized void computeIfPresent(K key, UnaryOperator<V> update) {
+    entries.computeIfPresent(key, (__, entry) -> new Entry<>(update.apply(entry.value()), entry.expiresAt()));
+  }
+
+  public synchronized void remove(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,43 @@
+package com.example.common;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Node-local latencies of the most recent calls, with percentiles available once the window has enough samples.
+ */
+public class LatencyWindow {
+
+  static final int MIN_SAMPLES = 20;
+
+  private final long[] samples;
+  private int next;
+  private int count;
+
+  public LatencyWindow(int size) {
+    this.samples = new long[size];
+  }
+
+  public synchronized void record(Duration latency) {
+    samples[next] = latency.toMillis();
+    next = (next + 1) % samples.length;
+    count = Math.min(count + 1, samples.length);
+  }
+
+  /**
+   * @param percentile from 0 to 1
+   */
+  public Optional<Duration> percentile(double percentile) {
+    long[] sorted;
+    synchronized (this) {
+      if (count < Math.min(MIN_SAMPLES, samples.length)) {
+        return Optional.empty();
+      }
+      sorted = Arrays.copyOf(samples, count);
+    }
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return Optional.of(Duration.ofMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]));
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money in minor units (cents) of the single currency used by the application, so the arithmetic
+ * doesn't allocate. In JSON it's a plain decimal number, the same as a {@link BigDecimal} amount.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+  public static final int SCALE = 2;
+  public static final Money ZERO = new Money(0);
+  private static final long MINOR_UNITS = 100;
+
+  /**
+   * @param units whole amount, e.g. 12 for 12.00
+   */
+  public static Money ofUnits(long units) {
+    return new Money(Math.multiplyExact(units, MINOR_UNITS));
+  }
+
+  /**
+   * @param minorUnits amount in cents, e.g. 1200 for 12.00
+   */
+  public static Money ofMinor(long minorUnits) {
+    return new Money(minorUnits);
+  }
+
+  /**
+   * @return true if the amount can be converted with {@link #of(BigDecimal)}, for validation of external input
+   */
+  public static boolean isValid(BigDecimal amount) {
+    return amount != null
+      && amount.stripTrailingZeros().scale() <= SCALE
+      && amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().bitLength() < Long.SIZE;
+  }
+
+  /**
+   * @throws ArithmeticException if the amount has more than {@link #SCALE} decimal places or doesn't fit in a long,
+   *                             external input is checked first with {@link #isValid(BigDecimal)}
+   */
+  @JsonCreator
+  public static Money of(BigDecimal amount) {
+    return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+  }
+
+  public Money plus(Money other) {
+    return new Money(Math.addExact(minorUnits, other.minorUnits));
+  }
+
+  public Money minus(Money other) {
+    return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+  }
+
+  public boolean isLessThan(Money other) {
+    return minorUnits < other.minorUnits;
+  }
+
+  public boolean isPositive() {
+    return minorUnits > 0;
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(minorUnits, other.minorUnits);
+  }
+
+  /**
+   * Whole amounts without decimal places and other amounts without trailing zeros, like the amounts were written before.
+   */
+  @JsonValue
+  public BigDecimal toBigDecimal() {
+    if (minorUnits % MINOR_UNITS == 0) {
+      return BigDecimal.valueOf(minorUnits / MINOR_UNITS);
+    } else {
+      return BigDecimal.valueOf(minorUnits, SCALE).stripTrailingZeros();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+}
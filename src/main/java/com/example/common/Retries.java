@@ -0,0 +1,75 @@
+package com.example.common;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Named retry policies from the configuration, a call without its own policy uses the default one.
+ * Only failed calls are retried, a {@link Response.Failure} is a result. Latencies are tracked for each name on each node.
+ */
+public class Retries {
+
+  public static final String DEFAULT_POLICY = "default";
+  private static final int LATENCY_WINDOW_SIZE = 1000;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Config config;
+  private final ConcurrentHashMap<String, RetryPolicy> policies = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+  public Retries(Config config) {
+    this.config = config;
+  }
+
+  public RetryPolicy policy(String name) {
+    return policies.computeIfAbsent(name, __ -> {
+      Config defaultPolicy = config.getConfig(DEFAULT_POLICY);
+      return RetryPolicy.of(config.hasPath(name) ? config.getConfig(name).withFallback(defaultPolicy) : defaultPolicy);
+    });
+  }
+
+  public <T> CompletionStage<T> call(String name, Supplier<CompletionStage<T>> call) {
+    return attempt(name, policy(name), latencies(name), call, 1);
+  }
+
+  LatencyWindow latencies(String name) {
+    return latencies.computeIfAbsent(name, __ -> new LatencyWindow(LATENCY_WINDOW_SIZE));
+  }
+
+  /**
+   * A failed or timed out attempt is recorded with its whole timeout, so the timeout grows while calls are slow
+   * instead of being derived from the fast calls only.
+   */
+  private <T> CompletableFuture<T> attempt(String name, RetryPolicy policy, LatencyWindow latencyWindow, Supplier<CompletionStage<T>> call, int attempt) {
+    long start = System.nanoTime();
+    Duration timeout = policy.timeout(latencyWindow);
+    return CompletableFuture.completedFuture(call)
+      .thenCompose(Supplier::get)
+      .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+      .thenApply(result -> {
+        latencyWindow.record(Duration.ofNanos(System.nanoTime() - start));
+        return result;
+      })
+      .exceptionallyCompose(throwable -> {
+        latencyWindow.record(timeout);
+        if (attempt >= policy.maxAttempts()) {
+          return CompletableFuture.failedFuture(throwable);
+        }
+        var backoff = policy.backoff(attempt, ThreadLocalRandom.current().nextDouble());
+        logger.debug("{} attempt {} failed with {}, retrying in {}", name, attempt, throwable.toString(), backoff);
+        var delayed = CompletableFuture.delayedExecutor(backoff.toMillis(), TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> attempt(name, policy, latencyWindow, call, attempt + 1), delayed)
+          .thenCompose(next -> next);
+      });
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.common;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+/**
+ * Retries with exponential backoff and jitter, each attempt with a timeout derived from the observed latency of the call.
+ *
+ * @param randomFactor     jitter, the backoff is increased by a random part of up to this fraction
+ * @param timeoutPercentile latency percentile used for the attempt timeout, like 0.99
+ * @param timeoutFactor    multiplier of the latency percentile, so slower but healthy calls are not timed out
+ */
+public record RetryPolicy(int maxAttempts, Duration minBackoff, Duration maxBackoff, double randomFactor,
+                          Duration minTimeout, Duration maxTimeout, double timeoutPercentile, double timeoutFactor) {
+
+  public static RetryPolicy of(Config config) {
+    return new RetryPolicy(
+      config.getInt("max-attempts"),
+      config.getDuration("min-backoff"),
+      config.getDuration("max-backoff"),
+      config.getDouble("random-factor"),
+      config.getDuration("min-timeout"),
+      config.getDuration("max-timeout"),
+      config.getDouble("timeout-percentile"),
+      config.getDouble("timeout-factor"));
+  }
+
+  /**
+   * @param attempt failed attempts so far, from 1
+   * @param random  from 0 (inclusive) to 1 (exclusive)
+   */
+  public Duration backoff(int attempt, double random) {
+    long exponential = minBackoff.toMillis() << Math.min(attempt - 1, 30);
+    long capped = Math.min(exponential < 0 ? Long.MAX_VALUE : exponential, maxBackoff.toMillis());
+    return Duration.ofMillis(capped + (long) (capped * randomFactor * random));
+  }
+
+  /**
+   * The maximum timeout until there are enough latency samples.
+   */
+  public Duration timeout(LatencyWindow latencies) {
+    return latencies.percentile(timeoutPercentile)
+      .map(latency -> Duration.ofMillis((long) (latency.toMillis() * timeoutFactor)))
+      .map(timeout -> timeout.compareTo(minTimeout) < 0 ? minTimeout : timeout)
+      .map(timeout -> timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout)
+      .orElse(maxTimeout);
+  }
+
+  /**
+   * Upper bound of all attempts with backoffs, for the timeout of a caller that can't be interrupted, like a workflow step.
+   */
+  public Duration budget() {
+    Duration backoffs = Duration.ZERO;
+    for (int attempt = 1; attempt < maxAttempts; attempt++) {
+      backoffs = backoffs.plus(backoff(attempt, 1));
+    }
+    return maxTimeout.multipliedBy(maxAttempts).plus(backoffs);
+  }
+}
@@ -1,22 +1,93 @@
 package com.example.common;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
 import io.vavr.collection.Map;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeMap;
 
 import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Deserializes a vavr {@link Map} in a single pass over the parser tokens, keys and values are read with the
+ * deserializers of the declared generic types, e.g. {@code Map<Integer, Seat>}.
+ */
+public class VavrMapDeserializer extends JsonDeserializer<Map<?, ?>> implements ContextualDeserializer {
+
+  private final JavaType mapType;
+  private final KeyDeserializer keyDeserializer;
+  private final JsonDeserializer<Object> valueDeserializer;
+
+  public VavrMapDeserializer() {
+    this(null, null, null);
+  }
+
+  public VavrMapDeserializer(JavaType mapType) {
+    this(mapType, null, null);
+  }
+
+  private VavrMapDeserializer(JavaType mapType, KeyDeserializer keyDeserializer, JsonDeserializer<Object> valueDeserializer) {
+    this.mapType = mapType;
+    this.keyDeserializer = keyDeserializer;
+    this.valueDeserializer = valueDeserializer;
+  }
+
+  @Override
+  public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+    JavaType type = mapType;
+    if (type == null) {
+      type = property != null ? property.getType() : ctxt.getContextualType();
+    }
+    if (type == null) {
+      //without a declared type, keys and values are read like for a raw java.util.Map
+      type = ctxt.constructType(Map.class);
+    }
+    JavaType[] typeParameters = type.findTypeParameters(Map.class);
+    JavaType keyType = typeParameters.length == 2 ? typeParameters[0] : TypeFactory.unknownType();
+    JavaType valueType = typeParameters.length == 2 ? typeParameters[1] : TypeFactory.unknownType();
+    return new VavrMapDeserializer(type, ctxt.findKeyDeserializer(keyType, property), ctxt.findContextualValueDeserializer(valueType, property));
+  }
 
-public class VavrMapDeserializer extends JsonDeserializer<Map<?, ?>> {
   @Override
+  @SuppressWarnings("unchecked")
   public Map<?, ?> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    // Read the JSON as a JsonNode
-    JsonNode node = p.getCodec().readTree(p);
-    // Convert the JsonNode to a java.util.Map
-    java.util.Map<String, Object> javaMap = p.getCodec().treeToValue(node, java.util.Map.class);
-    // Convert the java.util.Map to io.vavr.collection.Map
-    return HashMap.ofAll(javaMap);
+    JsonToken token = p.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = p.nextToken();
+    } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+      return (Map<?, ?>) ctxt.handleUnexpectedToken(mapType, p);
+    }
+    Map<Object, Object> result = empty();
+    for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+      Object key = keyDeserializer.deserializeKey(p.currentName(), ctxt);
+      Object value = p.nextToken() == JsonToken.VALUE_NULL
+        ? valueDeserializer.getNullValue(ctxt)
+        : valueDeserializer.deserialize(p, ctxt);
+      result = result.put(key, value);
+    }
+    return result;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Map<Object, Object> empty() {
+    Class<?> mapClass = mapType.getRawClass();
+    if (SortedMap.class.isAssignableFrom(mapClass)) {
+      return TreeMap.empty((Comparator) Comparator.naturalOrder());
+    } else if (LinkedHashMap.class.isAssignableFrom(mapClass)) {
+      return LinkedHashMap.empty();
+    } else {
+      return HashMap.empty();
+    }
   }
-}
\ No newline at end of file
+}
@@ -1,18 +1,73 @@
 package com.example.common;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.vavr.Tuple2;
 import io.vavr.collection.Map;
 
 import java.io.IOException;
 
-public class VavrMapSerializer extends JsonSerializer<Map<?, ?>> {
+/**
+ * Serializes a vavr {@link Map} straight to a JSON object, without copying it to a {@code java.util.Map} first.
+ */
+public class VavrMapSerializer extends JsonSerializer<Map<?, ?>> implements ContextualSerializer {
+
+  private final JavaType mapType;
+  private final JsonSerializer<Object> keySerializer;
+  private final JsonSerializer<Object> valueSerializer;
+
+  public VavrMapSerializer() {
+    this(null, null, null);
+  }
+
+  public VavrMapSerializer(JavaType mapType) {
+    this(mapType, null, null);
+  }
+
+  private VavrMapSerializer(JavaType mapType, JsonSerializer<Object> keySerializer, JsonSerializer<Object> valueSerializer) {
+    this.mapType = mapType;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+  }
+
+  @Override
+  public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
+    JavaType type = mapType;
+    if (type == null) {
+      type = property != null ? property.getType() : prov.constructType(Map.class);
+    }
+    JavaType[] typeParameters = type.findTypeParameters(Map.class);
+    JavaType keyType = typeParameters.length == 2 ? typeParameters[0] : TypeFactory.unknownType();
+    JavaType valueType = typeParameters.length == 2 ? typeParameters[1] : TypeFactory.unknownType();
+    // values of non-final types are resolved per value, like Jackson does for java.util.Map
+    JsonSerializer<Object> valueSerializer = valueType.isFinal() ? prov.findContentValueSerializer(valueType, property) : null;
+    return new VavrMapSerializer(type, prov.findKeySerializer(keyType, property), valueSerializer);
+  }
+
+  @Override
+  public boolean isEmpty(SerializerProvider provider, Map<?, ?> value) {
+    return value.isEmpty();
+  }
+
   @Override
-  public void serialize(Map<?, ?> vavrMap, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-    // Convert io.vavr.collection.Map to java.util.Map
-    java.util.Map<?, ?> javaMap = vavrMap.toJavaMap();
-    // Serialize the java.util.Map
-    gen.writeObject(javaMap);
+  public void serialize(Map<?, ?> map, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    gen.writeStartObject(map);
+    for (Tuple2<?, ?> entry : map) {
+      keySerializer.serialize(entry._1, gen, serializers);
+      if (entry._2 == null) {
+        serializers.defaultSerializeNull(gen);
+      } else if (valueSerializer != null) {
+        valueSerializer.serialize(entry._2, gen, serializers);
+      } else {
+        serializers.findValueSerializer(entry._2.getClass()).serialize(entry._2, gen, serializers);
+      }
+    }
+    gen.writeEndObject();
   }
 }
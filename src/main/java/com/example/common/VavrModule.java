@@ -0,0 +1,44 @@
+package com.example.common;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import io.vavr.collection.Map;
+
+/**
+ * Registers {@link VavrMapSerializer} and {@link VavrMapDeserializer} for all vavr maps,
+ * so fields don't have to be annotated one by one.
+ */
+public class VavrModule extends SimpleModule {
+
+  public VavrModule() {
+    super(VavrModule.class.getSimpleName());
+  }
+
+  @Override
+  public void setupModule(SetupContext context) {
+    super.setupModule(context);
+    context.addSerializers(new Serializers.Base() {
+      @Override
+      public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+        return isVavrMap(type) ? new VavrMapSerializer(type) : null;
+      }
+    });
+    context.addDeserializers(new Deserializers.Base() {
+      @Override
+      public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config, BeanDescription beanDesc) {
+        return isVavrMap(type) ? new VavrMapDeserializer(type) : null;
+      }
+    });
+  }
+
+  private static boolean isVavrMap(JavaType type) {
+    return Map.class.isAssignableFrom(type.getRawClass());
+  }
+}
@@ -12,14 +12,17 @@ import akka.javasdk.client.ComponentClient;
 import akka.javasdk.http.AbstractHttpEndpoint;
 import akka.javasdk.http.HttpResponses;
 import akka.stream.Materializer;
+import com.example.common.Money;
 import com.example.common.Response;
-import com.example.wallet.application.WalletEntity;
+import com.example.wallet.application.WalletLedgerView;
+import com.example.wallet.application.WalletLedgerView.WalletLedger;
 import com.example.wallet.application.WalletResponse;
+import com.example.wallet.application.WalletRouter;
 import com.example.wallet.domain.WalletCommand.ChargeWallet;
-import com.example.wallet.domain.WalletCommand.CreateWallet;
 import com.example.wallet.domain.WalletCommand.DepositFunds;
+import com.example.wallet.domain.WalletStripes;
 
-import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
@@ -27,10 +30,12 @@ import java.util.concurrent.CompletionStage;
 public class WalletEndpoint extends AbstractHttpEndpoint {
 
   private final ComponentClient componentClient;
+  private final WalletRouter walletRouter;
   private final Materializer materializer;
 
-  public WalletEndpoint(ComponentClient componentClient, Materializer materializer) {
+  public WalletEndpoint(ComponentClient componentClient, WalletRouter walletRouter, Materializer materializer) {
     this.componentClient = componentClient;
+    this.walletRouter = walletRouter;
     this.materializer = materializer;
   }
 
@@ -42,17 +47,28 @@ public class WalletEndpoint extends AbstractHttpEndpoint {
 
   @Post("/{id}/create/{amount}")
   public CompletionStage<HttpResponse> create(String id, int amount) {
-    return componentClient.forEventSourcedEntity(id)
-      .method(WalletEntity::create)
-      .invokeAsync(new CreateWallet(id, BigDecimal.valueOf(amount)))
+    if (!WalletStripes.isValidWalletId(id)) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("invalid wallet id: " + id));
+    }
+    return walletRouter.create(id, Money.ofUnits(amount))
+      .thenApply(r -> mapToHttpResponse(r, HttpResponses.created()));
+  }
+
+  /**
+   * Creates a wallet with the balance split across stripes, for wallets charged by many reservations at the same time.
+   */
+  @Post("/{id}/create/{amount}/stripes/{stripes}")
+  public CompletionStage<HttpResponse> createStriped(String id, int amount, int stripes) {
+    if (!WalletStripes.isValidWalletId(id)) {
+      return CompletableFuture.completedFuture(HttpResponses.badRequest("invalid wallet id: " + id));
+    }
+    return walletRouter.create(id, Money.ofUnits(amount), stripes)
       .thenApply(r -> mapToHttpResponse(r, HttpResponses.created()));
   }
 
   @Patch("/{id}/deposit")
   public CompletionStage<HttpResponse> deposit(String id, DepositRequest depositRequest) {
-    return componentClient.forEventSourcedEntity(id)
-      .method(WalletEntity::deposit)
-      .invokeAsync(new DepositFunds(BigDecimal.valueOf(depositRequest.amount), depositRequest.commandId))
+    return walletRouter.deposit(id, new DepositFunds(Money.ofUnits(depositRequest.amount), depositRequest.commandId))
       .thenApply(this::mapToHttpResponse);
   }
 
@@ -64,18 +80,20 @@ public class WalletEndpoint extends AbstractHttpEndpoint {
       .map(skipFailureSimulation -> Metadata.EMPTY.add("skip-failure-simulation", skipFailureSimulation))
       .orElse(Metadata.EMPTY);
 
-    return componentClient.forEventSourcedEntity(id)
-      .method(WalletEntity::charge)
-      .withMetadata(metadata)
-      .invokeAsync(new ChargeWallet(BigDecimal.valueOf(chargeRequest.amount), chargeRequest.expenseId, chargeRequest.commandId))
+    return walletRouter.charge(id, new ChargeWallet(Money.ofUnits(chargeRequest.amount), chargeRequest.expenseId, chargeRequest.commandId), metadata)
       .thenApply(this::mapToHttpResponse);
   }
 
   @Get("/{id}")
   public CompletionStage<WalletResponse> get(String id) {
-    return componentClient.forEventSourcedEntity(id)
-      .method(WalletEntity::get)
-      .invokeAsync();
+    return walletRouter.get(id);
+  }
+
+  @Get("/{id}/expenses")
+  public CompletionStage<WalletLedger> getExpenses(String id) {
+    return componentClient.forView()
+      .method(WalletLedgerView::getLedger)
+      .invokeAsync(id);
   }
 
   private HttpResponse mapToHttpResponse(Response response, HttpResponse successResponse) {
@@ -0,0 +1,29 @@
+package com.example.wallet.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import com.example.wallet.domain.LedgerEntry;
+
+import static akka.Done.done;
+
+@ComponentId("wallet-ledger-entry")
+public class LedgerEntryEntity extends KeyValueEntity<LedgerEntry> {
+
+  public static String entryId(String walletId, String expenseId) {
+    return walletId + "#" + expenseId;
+  }
+
+  public Effect<Done> create(LedgerEntry ledgerEntry) {
+    return effects().updateState(ledgerEntry).thenReply(done());
+  }
+
+  public Effect<Done> markRefunded() {
+    if (currentState() == null) {
+      //ignoring, nothing to refund
+      return effects().reply(done());
+    } else {
+      return effects().updateState(currentState().asRefunded()).thenReply(done());
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.wallet.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import com.example.common.Response;
+import com.example.common.Response.Failure;
+import com.example.common.Response.Success;
+import com.example.wallet.domain.StripedWallet;
+import com.example.wallet.domain.WalletStripes;
+
+/**
+ * Stripe count of a wallet, registered when the wallet is created, 1 for wallets that are not striped.
+ * Wallets created before the registration have no state here until the first lookup.
+ */
+@ComponentId("striped-wallet")
+public class StripedWalletEntity extends KeyValueEntity<StripedWallet> {
+
+  public record Stripes(int count, boolean registered) {
+  }
+
+  // Registering the same stripe count again is not a failure, so a partially created wallet can be created again to resume.
+  public Effect<Response> create(int stripes) {
+    if (stripes < 1 || stripes > WalletStripes.MAX_STRIPES) {
+      return effects().reply(Failure.of("stripes count must be in range 1.." + WalletStripes.MAX_STRIPES));
+    } else if (currentState() != null && currentState().stripes() == stripes) {
+      return effects().reply(Success.of("wallet stripes already registered"));
+    } else if (currentState() != null) {
+      return effects().reply(Failure.of("wallet already exists with " + currentState().stripes() + " stripes"));
+    } else {
+      return effects().updateState(new StripedWallet(commandContext().entityId(), stripes)).thenReply(Success.of("wallet stripes registered"));
+    }
+  }
+
+  public Effect<Stripes> getStripes() {
+    if (currentState() == null) {
+      return effects().reply(new Stripes(1, false));
+    } else {
+      return effects().reply(new Stripes(currentState().stripes(), true));
+    }
+  }
+}
@@ -8,27 +8,42 @@ import com.example.common.Response.Failure;
 import com.example.common.Response.Success;
 import com.example.wallet.domain.Wallet;
 import com.example.wallet.domain.WalletCommand;
+import com.example.wallet.domain.WalletCommand.AuthorizeCharge;
+import com.example.wallet.domain.WalletCommand.CaptureCharge;
 import com.example.wallet.domain.WalletCommand.ChargeWallet;
 import com.example.wallet.domain.WalletCommand.CreateWallet;
 import com.example.wallet.domain.WalletCommand.DepositFunds;
 import com.example.wallet.domain.WalletCommand.Refund;
+import com.example.wallet.domain.WalletCommand.VoidCharge;
+import com.example.wallet.domain.WalletCommand.WithdrawFunds;
 import com.example.wallet.domain.WalletCommandError;
 import com.example.wallet.domain.WalletEvent;
+import com.example.wallet.domain.WalletEvent.WalletChargeRejected;
+import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.function.Function;
 
-import static com.example.wallet.domain.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.HOLD_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.NOT_SUFFICIENT_FUNDS;
 
 @ComponentId("wallet")
 public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
 
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
+  private final int commandIdsMaxSize;
+  private final Duration commandIdsMaxAge;
+
+  public WalletEntity(Config config) {
+    this.commandIdsMaxSize = config.getInt("application.wallet.command-ids.max-size");
+    this.commandIdsMaxAge = config.getDuration("application.wallet.command-ids.max-age");
+  }
 
   @Override
   public Wallet emptyState() {
-    return Wallet.EMPTY;
+    return Wallet.EMPTY.withCommandIdsLimits(commandIdsMaxSize, commandIdsMaxAge);
   }
 
   public Effect<Response> create(CreateWallet createWallet) {
@@ -46,6 +61,10 @@ public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
     }
   }
 
+  public Effect<Boolean> exists() {
+    return effects().reply(!currentState().isEmpty());
+  }
+
   public Effect<Response> charge(ChargeWallet chargeWallet) {
     // simulate a failure for expenseId=42 but also allow skipping the failure simulation
     if (chargeWallet.expenseId().equals("42") && commandContext().metadata().get("skip-failure-simulation").isEmpty()) {
@@ -65,6 +84,25 @@ public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
     }
   }
 
+  /**
+   * Charge of a wallet stripe, unlike {@link #charge} a not sufficient balance is not persisted as a rejection,
+   * so the charge can be repeated after funds of other stripes are moved to this one.
+   */
+  public Effect<Response> chargeStripe(ChargeWallet chargeWallet) {
+    return switch (currentState().process(chargeWallet)) {
+      case Or.Left(var error) -> errorEffect(error, chargeWallet);
+      case Or.Right(WalletChargeRejected __) -> effects().reply(Failure.of(NOT_SUFFICIENT_FUNDS.name()));
+      case Or.Right(var event) -> persistEffect(event, "wallet charged", chargeWallet);
+    };
+  }
+
+  public Effect<Response> withdraw(WithdrawFunds withdrawFunds) {
+    return switch (currentState().process(withdrawFunds)) {
+      case Or.Left(var error) -> errorEffect(error, withdrawFunds);
+      case Or.Right(var event) -> persistEffect(event, "funds withdrawn", withdrawFunds);
+    };
+  }
+
   public Effect<Response> deposit(DepositFunds depositFunds) {
     return switch (currentState().process(depositFunds)) {
       case Or.Left(var error) -> errorEffect(error, depositFunds);
@@ -74,21 +112,43 @@ public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
 
   public Effect<Response> refund(Refund refund) {
     return switch (currentState().process(refund)) {
+      case Or.Left(var error) -> errorEffect(error, refund);
+      case Or.Right(var event) -> persistEffect(event, "funds refunded", refund);
+    };
+  }
+
+  public Effect<Response> authorize(AuthorizeCharge authorizeCharge) {
+    return switch (currentState().process(authorizeCharge)) {
+      case Or.Left(var error) -> errorEffect(error, authorizeCharge);
+      case Or.Right(var event) -> persistEffect(event, "charge authorized", authorizeCharge);
+    };
+  }
+
+  public Effect<Response> capture(CaptureCharge captureCharge) {
+    return switch (currentState().process(captureCharge)) {
+      case Or.Left(var error) -> errorEffect(error, captureCharge);
+      case Or.Right(var event) -> persistEffect(event, "charge captured", captureCharge);
+    };
+  }
+
+  public Effect<Response> voidCharge(VoidCharge voidCharge) {
+    return switch (currentState().process(voidCharge)) {
       case Or.Left(var error) -> {
-        if (error == EXPENSE_NOT_FOUND) {
-          //ignoring
+        if (error == HOLD_NOT_FOUND) {
+          //ignoring, nothing to release
           yield effects().reply(Success.of("ok"));
         } else {
-          yield errorEffect(error, refund);
+          yield errorEffect(error, voidCharge);
         }
       }
-      case Or.Right(var event) -> persistEffect(event, "funds refunded", refund);
+      case Or.Right(var event) -> persistEffect(event, "charge voided", voidCharge);
     };
   }
 
   @Override
   public Wallet applyEvent(WalletEvent walletEvent) {
-    return currentState().apply(walletEvent);
+    // states recovered from snapshots keep the limits they were created with, until the next event
+    return currentState().withCommandIdsLimits(commandIdsMaxSize, commandIdsMaxAge).apply(walletEvent);
   }
 
   private Effect<Response> persistEffect(WalletEvent event, String replyMessage, WalletCommand walletCommand) {
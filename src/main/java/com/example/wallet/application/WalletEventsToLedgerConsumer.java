@@ -0,0 +1,49 @@
+package com.example.wallet.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import com.example.wallet.domain.LedgerEntry;
+import com.example.wallet.domain.WalletEvent.ChargeCaptured;
+import com.example.wallet.domain.WalletEvent.WalletCharged;
+import com.example.wallet.domain.WalletEvent.WalletRefunded;
+import com.example.wallet.domain.WalletStripes;
+
+import java.util.concurrent.CompletionStage;
+
+@ComponentId("wallet-events-to-ledger-consumer")
+@Consume.FromEventSourcedEntity(value = WalletEntity.class, ignoreUnknown = true)
+public class WalletEventsToLedgerConsumer extends Consumer {
+
+  private final ComponentClient componentClient;
+
+  public WalletEventsToLedgerConsumer(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect onEvent(WalletCharged charged) {
+    var ledgerEntry = new LedgerEntry(WalletStripes.walletIdOf(charged.walletId()), charged.expenseId(), charged.amount(), charged.chargedAt(), false);
+    return effects().asyncDone(createEntry(ledgerEntry));
+  }
+
+  public Effect onEvent(ChargeCaptured captured) {
+    var ledgerEntry = new LedgerEntry(WalletStripes.walletIdOf(captured.walletId()), captured.expenseId(), captured.amount(), captured.capturedAt(), false);
+    return effects().asyncDone(createEntry(ledgerEntry));
+  }
+
+  public Effect onEvent(WalletRefunded refunded) {
+    return effects().asyncDone(markRefunded(LedgerEntryEntity.entryId(WalletStripes.walletIdOf(refunded.walletId()), refunded.expenseId())));
+  }
+
+  private CompletionStage<Done> createEntry(LedgerEntry ledgerEntry) {
+    return componentClient.forKeyValueEntity(LedgerEntryEntity.entryId(ledgerEntry.walletId(), ledgerEntry.expenseId()))
+      .method(LedgerEntryEntity::create)
+      .invokeAsync(ledgerEntry);
+  }
+
+  private CompletionStage<Done> markRefunded(String entryId) {
+    return componentClient.forKeyValueEntity(entryId).method(LedgerEntryEntity::markRefunded).invokeAsync();
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.wallet.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import com.example.wallet.domain.LedgerEntry;
+
+import java.util.List;
+
+/**
+ * All expenses of a wallet, including the settled ones that are no longer in the wallet state.
+ */
+@ComponentId("wallet-ledger-view")
+public class WalletLedgerView extends View {
+
+  public record WalletLedger(List<LedgerEntry> entries) {
+  }
+
+  @Query("SELECT * AS entries FROM wallet_ledger WHERE walletId = :walletId ORDER BY chargedAt")
+  public QueryEffect<WalletLedger> getLedger(String walletId) {
+    return queryResult();
+  }
+
+  @Consume.FromKeyValueEntity(LedgerEntryEntity.class)
+  public static class WalletLedgerUpdater extends TableUpdater<LedgerEntry> {
+  }
+}
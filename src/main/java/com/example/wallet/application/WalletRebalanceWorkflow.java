@@ -0,0 +1,169 @@
+package com.example.wallet.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.workflow.Workflow;
+import akka.javasdk.workflow.Workflow.Effect.TransitionalEffect;
+import com.example.common.Money;
+import com.example.common.Response;
+import com.example.wallet.domain.WalletCommand.DepositFunds;
+import com.example.wallet.domain.WalletCommand.WithdrawFunds;
+import com.example.wallet.domain.WalletRebalance;
+import com.example.wallet.domain.WalletRebalance.Consolidation;
+import com.example.wallet.domain.WalletRebalance.Transfer;
+import com.example.wallet.domain.WalletStripes;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.IntStream;
+
+import static akka.Done.done;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Evens out balances of wallet stripes, or moves funds to the stripe that is charged for an expense. Funds are withdrawn from a stripe before they are deposited to another one,
+ * so a stripe never overdraws, a withdrawal rejected because the balance changed in the meantime skips the transfer.
+ */
+@ComponentId("wallet-rebalance")
+public class WalletRebalanceWorkflow extends Workflow<WalletRebalance> {
+
+  public static final String PLAN_STEP = "plan";
+  public static final String WITHDRAW_STEP = "withdraw";
+  public static final String DEPOSIT_STEP = "deposit";
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+  private final ComponentClient componentClient;
+
+  public WalletRebalanceWorkflow(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  /**
+   * @param consolidation the stripe that needs funds for a charge, evening out all stripes when null
+   */
+  public record RebalanceWallet(String walletId, int stripes,
+                                @JsonInclude(JsonInclude.Include.NON_NULL) Consolidation consolidation) {
+
+    public RebalanceWallet(String walletId, int stripes) {
+      this(walletId, stripes, null);
+    }
+  }
+
+  public record StripeBalances(List<Money> balances) {
+  }
+
+  @Override
+  public WorkflowDef<WalletRebalance> definition() {
+    var plan = step(PLAN_STEP)
+      .asyncCall(this::getBalances)
+      .andThen(StripeBalances.class, this::withdrawOrEnd);
+
+    var withdraw = step(WITHDRAW_STEP)
+      .asyncCall(this::withdraw)
+      .andThen(Response.class, this::depositOrSkip);
+
+    var deposit = step(DEPOSIT_STEP)
+      .asyncCall(this::deposit)
+      .andThen(Response.class, this::nextTransfer);
+
+    return workflow()
+      .defaultStepTimeout(Duration.ofSeconds(3))
+      .addStep(plan)
+      .addStep(withdraw)
+      .addStep(deposit);
+  }
+
+  public Effect<Done> start(RebalanceWallet rebalanceWallet) {
+    if (currentState() != null) {
+      return effects().error("wallet rebalance already exists");
+    } else {
+      return effects()
+        .updateState(new WalletRebalance(rebalanceWallet.walletId(), rebalanceWallet.stripes(), rebalanceWallet.consolidation(), null, 0))
+        .transitionTo(PLAN_STEP)
+        .thenReply(done());
+    }
+  }
+
+  public Effect<WalletRebalance> getState() {
+    if (currentState() == null) {
+      return effects().error("wallet rebalance not found");
+    } else {
+      return effects().reply(currentState());
+    }
+  }
+
+  private CompletionStage<StripeBalances> getBalances() {
+    List<CompletableFuture<WalletResponse>> responses = IntStream.range(0, currentState().stripes())
+      .mapToObj(stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(currentState().walletId(), stripe))
+        .method(WalletEntity::get)
+        .invokeAsync()
+        .toCompletableFuture())
+      .toList();
+    return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+      .thenApply(__ -> new StripeBalances(responses.stream()
+        .map(CompletableFuture::join)
+        .map(response -> Money.of(response.balance()))
+        .toList()));
+  }
+
+  private TransitionalEffect<Void> withdrawOrEnd(StripeBalances stripeBalances) {
+    var rebalance = currentState().withPlan(stripeBalances.balances());
+    logger.info("rebalancing wallet {} with transfers {}", rebalance.walletId(), rebalance.transfers());
+    if (rebalance.isDone()) {
+      return effects().updateState(rebalance).end();
+    } else {
+      return effects().updateState(rebalance).transitionTo(WITHDRAW_STEP);
+    }
+  }
+
+  private CompletionStage<Response> withdraw() {
+    Transfer transfer = currentState().currentTransfer();
+    return componentClient.forEventSourcedEntity(WalletStripes.stripeId(currentState().walletId(), transfer.from()))
+      .method(WalletEntity::withdraw)
+      .invokeAsync(new WithdrawFunds(transfer.amount(), commandId("withdraw")));
+  }
+
+  private TransitionalEffect<Void> depositOrSkip(Response response) {
+    return switch (response) {
+      case Response.Failure failure -> {
+        logger.info("skipping transfer {}, withdrawal failed with: {}", currentState().currentTransfer(), failure);
+        yield nextTransfer(Response.Success.of("skipped"));
+      }
+      case Response.Success __ -> effects().transitionTo(DEPOSIT_STEP);
+    };
+  }
+
+  private CompletionStage<Response> deposit() {
+    Transfer transfer = currentState().currentTransfer();
+    return componentClient.forEventSourcedEntity(WalletStripes.stripeId(currentState().walletId(), transfer.to()))
+      .method(WalletEntity::deposit)
+      .invokeAsync(new DepositFunds(transfer.amount(), commandId("deposit")));
+  }
+
+  private TransitionalEffect<Void> nextTransfer(Response response) {
+    return switch (response) {
+      case Response.Failure failure ->
+        throw new IllegalStateException("Expecting successful response, but got: " + failure);
+      case Response.Success __ -> {
+        var rebalance = currentState().next();
+        if (rebalance.isDone()) {
+          yield effects().updateState(rebalance).end();
+        } else {
+          yield effects().updateState(rebalance).transitionTo(WITHDRAW_STEP);
+        }
+      }
+    };
+  }
+
+  //the same for retries of the step, so the stripe deduplicates it
+  private String commandId(String operation) {
+    String id = commandContext().workflowId() + "-" + currentState().current() + "-" + operation;
+    return UUID.nameUUIDFromBytes(id.getBytes(UTF_8)).toString();
+  }
+}
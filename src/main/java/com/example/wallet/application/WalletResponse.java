@@ -6,6 +6,6 @@ import java.math.BigDecimal;
 
 public record WalletResponse(String id, BigDecimal balance) {
   public static WalletResponse from(Wallet wallet) {
-    return new WalletResponse(wallet.id(), wallet.balance());
+    return new WalletResponse(wallet.id(), wallet.balance().toBigDecimal());
   }
 }
@@ -0,0 +1,398 @@
+package com.example.wallet.application;
+
+import akka.Done;
+import akka.javasdk.Metadata;
+import akka.javasdk.client.ComponentClient;
+import com.example.common.BoundedCache;
+import com.example.common.Money;
+import com.example.common.Response;
+import com.example.common.Response.Failure;
+import com.example.common.Response.Success;
+import com.example.wallet.application.WalletRebalanceWorkflow.RebalanceWallet;
+import com.example.wallet.domain.WalletCommand.AuthorizeCharge;
+import com.example.wallet.domain.WalletCommand.CaptureCharge;
+import com.example.wallet.domain.WalletCommand.ChargeWallet;
+import com.example.wallet.domain.WalletCommand.CreateWallet;
+import com.example.wallet.domain.WalletCommand.DepositFunds;
+import com.example.wallet.domain.WalletCommand.Refund;
+import com.example.wallet.domain.WalletCommand.VoidCharge;
+import com.example.wallet.domain.WalletRebalance.Consolidation;
+import com.example.wallet.domain.WalletStripes;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static com.example.wallet.domain.WalletCommandError.DEPOSIT_LE_ZERO;
+import static com.example.wallet.domain.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.NOT_SUFFICIENT_FUNDS;
+import static com.example.wallet.domain.WalletCommandError.WALLET_ALREADY_EXISTS;
+
+/**
+ * Sends wallet commands to the wallet entity or, for a striped wallet, to its stripes.
+ * The stripe count of a wallet is registered when the wallet is created and doesn't change, so it's cached on each node,
+ * also for wallets that are not striped. Only a wallet that is not created yet is not cached.
+ */
+public class WalletRouter {
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private static final int CONSOLIDATION_POLLS = 20;
+  private static final Duration CONSOLIDATION_POLL_INTERVAL = Duration.ofMillis(100);
+
+  private final ComponentClient componentClient;
+  private final BoundedCache<String, Integer> stripes;
+
+  public WalletRouter(ComponentClient componentClient, Config config) {
+    this.componentClient = componentClient;
+    this.stripes = new BoundedCache<>(config.getInt("max-size"), config.getDuration("time-to-live"));
+  }
+
+  /**
+   * Creates a wallet that is not striped, rejected for an id of a striped wallet.
+   */
+  public CompletionStage<Response> create(String walletId, Money initialBalance) {
+    return registerStripes(walletId, 1)
+      .thenCompose(response -> switch (response) {
+        case Failure failure -> CompletableFuture.completedFuture(failure);
+        case Success __ -> componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::create)
+          .invokeAsync(new CreateWallet(walletId, initialBalance));
+      });
+  }
+
+  /**
+   * Creates a striped wallet, rejected for an id of a wallet that is not striped. Creating it again with the same
+   * stripe count creates the stripes missing after a failure, the existing ones keep their balance.
+   */
+  public CompletionStage<Response> create(String walletId, Money initialBalance, int stripesCount) {
+    if (stripesCount < 2 || stripesCount > WalletStripes.MAX_STRIPES) {
+      return CompletableFuture.completedFuture(Failure.of("stripes count must be in range 2.." + WalletStripes.MAX_STRIPES));
+    }
+    return walletExists(walletId)
+      .thenCompose(exists -> exists
+        ? CompletableFuture.completedFuture(Failure.of(WALLET_ALREADY_EXISTS.name()))
+        : registerStripes(walletId, stripesCount))
+      .thenCompose(response -> switch (response) {
+        case Failure failure -> CompletableFuture.completedFuture(failure);
+        case Success __ -> {
+          List<Money> parts = WalletStripes.split(initialBalance, stripesCount);
+          yield forAllStripes(walletId, stripesCount, stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+            .method(WalletEntity::create)
+            .invokeAsync(new CreateWallet(WalletStripes.stripeId(walletId, stripe), parts.get(stripe)))
+            .thenApply(created -> switch (created) {
+              //created before the failure of the previous attempt
+              case Failure failure when failure.message().equals(WALLET_ALREADY_EXISTS.name()) -> Success.of("wallet created");
+              default -> created;
+            }));
+        }
+      });
+  }
+
+  private CompletionStage<Response> registerStripes(String walletId, int stripesCount) {
+    return componentClient.forKeyValueEntity(walletId)
+      .method(StripedWalletEntity::create)
+      .invokeAsync(stripesCount)
+      .thenApply(response -> {
+        if (response instanceof Success) {
+          stripes.put(walletId, stripesCount);
+        }
+        return response;
+      });
+  }
+
+  private CompletionStage<Boolean> walletExists(String walletId) {
+    return componentClient.forEventSourcedEntity(walletId)
+      .method(WalletEntity::exists)
+      .invokeAsync();
+  }
+
+  public CompletionStage<Response> charge(String walletId, ChargeWallet chargeWallet) {
+    return charge(walletId, chargeWallet, Metadata.EMPTY);
+  }
+
+  /**
+   * A striped wallet is charged only by the stripe picked by the expense id, so a retried charge never reaches
+   * another stripe. If the stripe is short of funds, funds of other stripes are moved to it before the charge
+   * is repeated, the charge is rejected only if the whole wallet has not enough funds.
+   */
+  public CompletionStage<Response> charge(String walletId, ChargeWallet chargeWallet, Metadata metadata) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::charge)
+          .withMetadata(metadata)
+          .invokeAsync(chargeWallet);
+      } else {
+        String stripeId = WalletStripes.stripeId(walletId, WalletStripes.stripeOf(chargeWallet.expenseId(), stripesCount));
+        return componentClient.forEventSourcedEntity(stripeId)
+          .method(WalletEntity::chargeStripe)
+          .withMetadata(metadata)
+          .invokeAsync(chargeWallet)
+          .thenCompose(response -> switch (response) {
+            case Failure failure when failure.message().equals(NOT_SUFFICIENT_FUNDS.name()) ->
+              consolidate(walletId, stripesCount, chargeWallet.expenseId(), chargeWallet.amount(), chargeWallet.commandId())
+                .thenCompose(__ -> componentClient.forEventSourcedEntity(stripeId)
+                  .method(WalletEntity::charge)
+                  .withMetadata(metadata)
+                  .invokeAsync(chargeWallet))
+                .thenApply(result -> evenOutLater(walletId, stripesCount, result));
+            default -> CompletableFuture.completedFuture(response);
+          });
+      }
+    });
+  }
+
+  /**
+   * A hold on a striped wallet is put by the stripe picked by the expense id, like a charge.
+   */
+  public CompletionStage<Response> authorize(String walletId, AuthorizeCharge authorizeCharge) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::authorize)
+          .invokeAsync(authorizeCharge);
+      } else {
+        String stripeId = WalletStripes.stripeId(walletId, WalletStripes.stripeOf(authorizeCharge.expenseId(), stripesCount));
+        return componentClient.forEventSourcedEntity(stripeId)
+          .method(WalletEntity::authorize)
+          .invokeAsync(authorizeCharge)
+          .thenCompose(response -> switch (response) {
+            case Failure failure when failure.message().equals(NOT_SUFFICIENT_FUNDS.name()) ->
+              consolidate(walletId, stripesCount, authorizeCharge.expenseId(), authorizeCharge.amount(), authorizeCharge.commandId())
+                .thenCompose(__ -> componentClient.forEventSourcedEntity(stripeId)
+                  .method(WalletEntity::authorize)
+                  .invokeAsync(authorizeCharge))
+                .thenApply(result -> evenOutLater(walletId, stripesCount, result));
+            default -> CompletableFuture.completedFuture(response);
+          });
+      }
+    });
+  }
+
+  /**
+   * Moves funds to the stripe of the expense with a rebalance workflow, so a withdrawn amount is always deposited.
+   * The workflow id comes from the command id, a retried command waits for the same workflow.
+   */
+  private CompletionStage<Done> consolidate(String walletId, int stripesCount, String expenseId, Money amount, String commandId) {
+    String rebalanceId = walletId + "-consolidate-" + commandId;
+    var consolidation = new Consolidation(WalletStripes.stripeOf(expenseId, stripesCount), amount);
+    return componentClient.forWorkflow(rebalanceId)
+      .method(WalletRebalanceWorkflow::start)
+      .invokeAsync(new RebalanceWallet(walletId, stripesCount, consolidation))
+      .exceptionally(throwable -> {
+        logger.debug("consolidation {} not started: {}", rebalanceId, throwable.getMessage());
+        return Done.done();
+      })
+      .thenCompose(__ -> awaitRebalance(rebalanceId, CONSOLIDATION_POLLS));
+  }
+
+  //the consolidated stripe holds most of the funds now, balances are evened out in the background
+  private Response evenOutLater(String walletId, int stripesCount, Response result) {
+    rebalance(walletId, stripesCount);
+    return result;
+  }
+
+  private CompletionStage<Done> awaitRebalance(String rebalanceId, int polls) {
+    return componentClient.forWorkflow(rebalanceId)
+      .method(WalletRebalanceWorkflow::getState)
+      .invokeAsync()
+      .thenCompose(rebalance -> {
+        if (rebalance.isDone()) {
+          return CompletableFuture.completedFuture(Done.done());
+        } else if (polls == 0) {
+          return CompletableFuture.<Done>failedFuture(new IllegalStateException("wallet rebalance " + rebalanceId + " not finished in time"));
+        } else {
+          var delayed = CompletableFuture.delayedExecutor(CONSOLIDATION_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+          return CompletableFuture.supplyAsync(() -> polls - 1, delayed).thenCompose(remaining -> awaitRebalance(rebalanceId, remaining));
+        }
+      });
+  }
+
+  /**
+   * The capture is sent to all stripes, it succeeds if the stripe with the hold captures it.
+   */
+  public CompletionStage<Response> capture(String walletId, CaptureCharge captureCharge) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::capture)
+          .invokeAsync(captureCharge);
+      } else {
+        List<CompletableFuture<Response>> responses = IntStream.range(0, stripesCount)
+          .mapToObj(stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+            .method(WalletEntity::capture)
+            .invokeAsync(new CaptureCharge(captureCharge.expenseId(), WalletStripes.commandId(captureCharge.commandId(), stripe)))
+            .toCompletableFuture())
+          .toList();
+        return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+          .thenApply(__ -> responses.stream()
+            .map(CompletableFuture::join)
+            .filter(Success.class::isInstance)
+            .findFirst()
+            .orElseGet(() -> responses.getFirst().join()));
+      }
+    });
+  }
+
+  /**
+   * The void is sent to all stripes, stripes without the hold ignore it.
+   */
+  public CompletionStage<Response> voidCharge(String walletId, VoidCharge voidCharge) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::voidCharge)
+          .invokeAsync(voidCharge);
+      } else {
+        return forAllStripes(walletId, stripesCount, stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+          .method(WalletEntity::voidCharge)
+          .invokeAsync(new VoidCharge(voidCharge.expenseId(), WalletStripes.commandId(voidCharge.commandId(), stripe))));
+      }
+    });
+  }
+
+  /**
+   * The refund is sent to all stripes, only the stripe that was charged for the expense has it,
+   * so the other stripes are expected to miss the expense.
+   */
+  public CompletionStage<Response> refund(String walletId, Refund refund) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::refund)
+          .invokeAsync(refund);
+      } else {
+        List<CompletableFuture<Response>> responses = IntStream.range(0, stripesCount)
+          .mapToObj(stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+            .method(WalletEntity::refund)
+            .invokeAsync(new Refund(refund.expenseId(), WalletStripes.commandId(refund.commandId(), stripe)))
+            .toCompletableFuture())
+          .toList();
+        return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+          .thenApply(__ -> {
+            List<Response> results = responses.stream().map(CompletableFuture::join).toList();
+            return results.stream()
+              .filter(result -> result instanceof Failure failure && !failure.message().equals(EXPENSE_NOT_FOUND.name()))
+              .findFirst()
+              .or(() -> results.stream().filter(Success.class::isInstance).findFirst())
+              .orElseGet(() -> Failure.of(EXPENSE_NOT_FOUND.name()));
+          });
+      }
+    });
+  }
+
+  /**
+   * A deposit to a striped wallet is split equally between stripes.
+   */
+  public CompletionStage<Response> deposit(String walletId, DepositFunds depositFunds) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::deposit)
+          .invokeAsync(depositFunds);
+      } else if (!depositFunds.amount().isPositive()) {
+        return CompletableFuture.completedFuture(Failure.of(DEPOSIT_LE_ZERO.name()));
+      } else {
+        List<Money> parts = WalletStripes.split(depositFunds.amount(), stripesCount);
+        return forAllStripes(walletId, stripesCount, stripe -> {
+          if (!parts.get(stripe).isPositive()) {
+            return CompletableFuture.completedFuture(Success.of("nothing to deposit"));
+          } else {
+            return componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+              .method(WalletEntity::deposit)
+              .invokeAsync(new DepositFunds(parts.get(stripe), WalletStripes.commandId(depositFunds.commandId(), stripe)));
+          }
+        });
+      }
+    });
+  }
+
+  public CompletionStage<WalletResponse> get(String walletId) {
+    return stripes(walletId).thenCompose(stripesCount -> {
+      if (stripesCount == 1) {
+        return componentClient.forEventSourcedEntity(walletId)
+          .method(WalletEntity::get)
+          .invokeAsync();
+      } else {
+        List<CompletableFuture<WalletResponse>> responses = IntStream.range(0, stripesCount)
+          .mapToObj(stripe -> componentClient.forEventSourcedEntity(WalletStripes.stripeId(walletId, stripe))
+            .method(WalletEntity::get)
+            .invokeAsync()
+            .toCompletableFuture())
+          .toList();
+        return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+          .thenApply(__ -> new WalletResponse(walletId, responses.stream()
+            .map(CompletableFuture::join)
+            .map(WalletResponse::balance)
+            .reduce(BigDecimal.ZERO, BigDecimal::add)));
+      }
+    });
+  }
+
+  /**
+   * At most one rebalance per wallet and minute, other requests are rejected by the already started workflow.
+   */
+  public CompletionStage<Done> rebalance(String walletId, int stripesCount) {
+    String rebalanceId = walletId + "-" + Instant.now().truncatedTo(ChronoUnit.MINUTES).getEpochSecond();
+    return componentClient.forWorkflow(rebalanceId)
+      .method(WalletRebalanceWorkflow::start)
+      .invokeAsync(new RebalanceWallet(walletId, stripesCount))
+      .exceptionally(throwable -> {
+        logger.debug("rebalance {} not started: {}", rebalanceId, throwable.getMessage());
+        return Done.done();
+      });
+  }
+
+  public CompletionStage<Integer> stripes(String walletId) {
+    return stripes.get(walletId)
+      .<CompletionStage<Integer>>map(CompletableFuture::completedFuture)
+      .orElseGet(() -> componentClient.forKeyValueEntity(walletId)
+        .method(StripedWalletEntity::getStripes)
+        .invokeAsync()
+        .thenCompose(walletStripes -> {
+          if (walletStripes.registered()) {
+            stripes.put(walletId, walletStripes.count());
+            return CompletableFuture.completedFuture(walletStripes.count());
+          } else {
+            return registerExistingWallet(walletId);
+          }
+        }));
+  }
+
+  /**
+   * Wallets created before the stripe count was registered at creation are not striped, they are registered
+   * at the first lookup, a wallet that is not created yet can still be created as a striped wallet.
+   */
+  private CompletionStage<Integer> registerExistingWallet(String walletId) {
+    return walletExists(walletId).thenCompose(exists -> {
+      if (exists) {
+        return registerStripes(walletId, 1).thenCompose(__ -> stripes(walletId));
+      } else {
+        return CompletableFuture.completedFuture(1);
+      }
+    });
+  }
+
+  private CompletionStage<Response> forAllStripes(String walletId, int stripesCount, IntFunction<CompletionStage<Response>> call) {
+    List<CompletableFuture<Response>> responses = IntStream.range(0, stripesCount)
+      .mapToObj(stripe -> call.apply(stripe).toCompletableFuture())
+      .toList();
+    return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+      .thenApply(__ -> responses.stream()
+        .map(CompletableFuture::join)
+        .filter(Failure.class::isInstance)
+        .findFirst()
+        .orElse(Success.of("ok")));
+  }
+}
@@ -0,0 +1,236 @@
+package com.example.wallet.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Deduplication window of the most recent command ids. Ids are kept as 128-bit values in a ring buffer, the oldest
+ * id is evicted once the window is full or older than the max age, with an open addressing (linear probing) index of ring positions.
+ * UUIDs are stored as is, other ids as name based UUIDs of their bytes in a separate namespace, so an id never collides
+ * with the name based UUID of the same id, which callers use to derive ids of follow-up commands.
+ * <p>
+ * Like the collection it replaces, it's updated in place, a {@link Wallet} state must not be reused after applying an event.
+ */
+public final class CommandIds {
+
+  public static final int ID_BYTES = 16;
+  private static final int EMPTY_SLOT = -1;
+  private static final String NAMESPACE = "cmd:";
+  private static final long UNKNOWN_TIME = 0;
+
+  private final int capacity;
+  private final Duration maxAge;
+  private final long[] high;
+  private final long[] low;
+  // epoch millis, 0 for ids added without the time
+  private final long[] addedAt;
+  private final int[] index;
+  private int oldest;
+  private int size;
+
+  private CommandIds(int capacity, Duration maxAge) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+    }
+    this.capacity = capacity;
+    this.maxAge = maxAge;
+    this.high = new long[capacity];
+    this.low = new long[capacity];
+    this.addedAt = new long[capacity];
+    this.index = new int[Integer.highestOneBit(capacity) << 2];
+    Arrays.fill(index, EMPTY_SLOT);
+  }
+
+  /**
+   * @param maxAge ids older than this are evicted when a newer id is added, null for a window limited only by the capacity
+   */
+  public static CommandIds empty(int capacity, Duration maxAge) {
+    return new CommandIds(capacity, maxAge);
+  }
+
+  public static CommandIds empty(int capacity) {
+    return new CommandIds(capacity, null);
+  }
+
+  /**
+   * @param ids     ids from the oldest to the newest, {@link #ID_BYTES} bytes each
+   * @param addedAt epoch millis of the ids, null when unknown
+   */
+  public static CommandIds of(int capacity, Duration maxAge, byte[] ids, long[] addedAt) {
+    CommandIds commandIds = new CommandIds(capacity, maxAge);
+    ByteBuffer buffer = ByteBuffer.wrap(ids);
+    for (int i = 0; buffer.remaining() >= ID_BYTES; i++) {
+      commandIds.add(buffer.getLong(), buffer.getLong(), addedAt == null ? UNKNOWN_TIME : addedAt[i]);
+    }
+    return commandIds;
+  }
+
+  public static CommandIds of(int capacity, byte[] ids) {
+    return of(capacity, null, ids, null);
+  }
+
+  /**
+   * The same ids with other limits, the newest ids are kept if the capacity is smaller.
+   */
+  public CommandIds withLimits(int capacity, Duration maxAge) {
+    if (this.capacity == capacity && Objects.equals(this.maxAge, maxAge)) {
+      return this;
+    }
+    CommandIds resized = new CommandIds(capacity, maxAge);
+    for (int i = Math.max(0, size - capacity); i < size; i++) {
+      int position = (oldest + i) % this.capacity;
+      resized.add(high[position], low[position], addedAt[position]);
+    }
+    return resized;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public Duration maxAge() {
+    return maxAge;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(String commandId) {
+    UUID id = toUuid(commandId);
+    return find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+  }
+
+  public void add(String commandId) {
+    add(commandId, null);
+  }
+
+  /**
+   * @param now time of the command, null when unknown, ids older than the max age are evicted first
+   */
+  public void add(String commandId, Instant now) {
+    UUID id = toUuid(commandId);
+    add(id.getMostSignificantBits(), id.getLeastSignificantBits(), now == null ? UNKNOWN_TIME : now.toEpochMilli());
+  }
+
+  /**
+   * @return ids from the oldest to the newest, {@link #ID_BYTES} bytes each
+   */
+  public byte[] toBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(size * ID_BYTES);
+    for (int i = 0; i < size; i++) {
+      int position = (oldest + i) % capacity;
+      buffer.putLong(high[position]).putLong(low[position]);
+    }
+    return buffer.array();
+  }
+
+  /**
+   * @return epoch millis of the ids from the oldest to the newest, 0 when unknown, null when none is known
+   */
+  public long[] addedAt() {
+    long[] times = new long[size];
+    boolean known = false;
+    for (int i = 0; i < size; i++) {
+      times[i] = addedAt[(oldest + i) % capacity];
+      known |= times[i] != UNKNOWN_TIME;
+    }
+    return known ? times : null;
+  }
+
+  private void add(long idHigh, long idLow, long time) {
+    if (find(idHigh, idLow) >= 0) {
+      return;
+    }
+    while (size == capacity || (size > 0 && isExpired(addedAt[oldest], time))) {
+      removeFromIndex(oldest);
+      oldest = (oldest + 1) % capacity;
+      size--;
+    }
+    int position = (oldest + size) % capacity;
+    high[position] = idHigh;
+    low[position] = idLow;
+    addedAt[position] = time;
+    size++;
+    int slot = slotOf(idHigh, idLow);
+    while (index[slot] != EMPTY_SLOT) {
+      slot = next(slot);
+    }
+    index[slot] = position;
+  }
+
+  private boolean isExpired(long time, long now) {
+    return maxAge != null && time != UNKNOWN_TIME && now != UNKNOWN_TIME && time < now - maxAge.toMillis();
+  }
+
+  private int find(long idHigh, long idLow) {
+    for (int slot = slotOf(idHigh, idLow); index[slot] != EMPTY_SLOT; slot = next(slot)) {
+      int position = index[slot];
+      if (high[position] == idHigh && low[position] == idLow) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  // backward shift deletion, keeps probe sequences without tombstones
+  private void removeFromIndex(int position) {
+    int slot = slotOf(high[position], low[position]);
+    while (index[slot] != position) {
+      slot = next(slot);
+    }
+    int hole = slot;
+    for (int candidate = next(hole); index[candidate] != EMPTY_SLOT; candidate = next(candidate)) {
+      int home = slotOf(high[index[candidate]], low[index[candidate]]);
+      if (((candidate - home) & (index.length - 1)) >= ((candidate - hole) & (index.length - 1))) {
+        index[hole] = index[candidate];
+        hole = candidate;
+      }
+    }
+    index[hole] = EMPTY_SLOT;
+  }
+
+  private int slotOf(long idHigh, long idLow) {
+    long hash = (idHigh ^ idLow) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & (index.length - 1);
+  }
+
+  private int next(int slot) {
+    return (slot + 1) & (index.length - 1);
+  }
+
+  private static UUID toUuid(String commandId) {
+    if (commandId.length() == 36 && commandId.charAt(8) == '-') {
+      try {
+        return UUID.fromString(commandId);
+      } catch (IllegalArgumentException e) {
+        //not a UUID, hashed below
+      }
+    }
+    return UUID.nameUUIDFromBytes((NAMESPACE + commandId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof CommandIds that
+      && capacity == that.capacity
+      && Objects.equals(maxAge, that.maxAge)
+      && Arrays.equals(toBytes(), that.toBytes())
+      && Arrays.equals(addedAt(), that.addedAt());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(toBytes());
+  }
+
+  @Override
+  public String toString() {
+    return "CommandIds[capacity=" + capacity + ", maxAge=" + maxAge + ", size=" + size + "]";
+  }
+}
@@ -1,6 +1,19 @@
 package com.example.wallet.domain;
 
-import java.math.BigDecimal;
+import com.example.common.Money;
 
-public record Expense(String expenseId, BigDecimal amount) {
+import java.time.Instant;
+
+/**
+ * @param chargedAt null for expenses charged before the charge time was recorded
+ */
+public record Expense(String expenseId, Money amount, Instant chargedAt) {
+
+  public Expense(String expenseId, Money amount) {
+    this(expenseId, amount, null);
+  }
+
+  public Expense withChargedAt(Instant chargedAt) {
+    return new Expense(expenseId, amount, chargedAt);
+  }
 }
@@ -0,0 +1,9 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+
+/**
+ * Funds authorized for an expense, deducted from the balance until the hold is captured as an expense or voided.
+ */
+public record Hold(String expenseId, Money amount) {
+}
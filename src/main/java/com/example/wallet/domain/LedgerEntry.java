@@ -0,0 +1,15 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+
+import java.time.Instant;
+
+/**
+ * An expense in the wallet ledger, kept also after it's settled and dropped from the {@link Wallet} state.
+ */
+public record LedgerEntry(String walletId, String expenseId, Money amount, Instant chargedAt, boolean refunded) {
+
+  public LedgerEntry asRefunded() {
+    return new LedgerEntry(walletId, expenseId, amount, chargedAt, true);
+  }
+}
@@ -0,0 +1,4 @@
+package com.example.wallet.domain;
+
+public record StripedWallet(String walletId, int stripes) {
+}
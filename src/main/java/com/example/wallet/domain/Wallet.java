@@ -1,14 +1,21 @@
 package com.example.wallet.domain;
 
+import com.example.common.Money;
 import com.example.common.Or;
-import com.example.common.VavrMapDeserializer;
-import com.example.common.VavrMapSerializer;
+import com.example.wallet.domain.WalletCommand.AuthorizeCharge;
+import com.example.wallet.domain.WalletCommand.CaptureCharge;
 import com.example.wallet.domain.WalletCommand.ChargeWallet;
 import com.example.wallet.domain.WalletCommand.CreateWallet;
 import com.example.wallet.domain.WalletCommand.DepositFunds;
 import com.example.wallet.domain.WalletCommand.Refund;
 import com.example.wallet.domain.WalletCommand.RequiresDeduplicationCommand;
+import com.example.wallet.domain.WalletCommand.VoidCharge;
+import com.example.wallet.domain.WalletCommand.WithdrawFunds;
+import com.example.wallet.domain.WalletEvent.ChargeAuthorized;
+import com.example.wallet.domain.WalletEvent.ChargeCaptured;
+import com.example.wallet.domain.WalletEvent.ChargeVoided;
 import com.example.wallet.domain.WalletEvent.FundsDeposited;
+import com.example.wallet.domain.WalletEvent.FundsWithdrawn;
 import com.example.wallet.domain.WalletEvent.WalletChargeRejected;
 import com.example.wallet.domain.WalletEvent.WalletCharged;
 import com.example.wallet.domain.WalletEvent.WalletCreated;
@@ -16,32 +23,45 @@ import com.example.wallet.domain.WalletEvent.WalletRefunded;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import io.vavr.collection.HashMap;
-import io.vavr.collection.Map;
+import io.vavr.collection.LinkedHashMap;
 
-import java.math.BigDecimal;
-import java.util.LinkedHashSet;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.function.Supplier;
 
 import static com.example.common.Or.left;
 import static com.example.common.Or.right;
 import static com.example.wallet.domain.WalletCommandError.DEPOSIT_LE_ZERO;
 import static com.example.wallet.domain.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.EXPENSE_SETTLED;
+import static com.example.wallet.domain.WalletCommandError.HOLD_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.NOT_SUFFICIENT_FUNDS;
 import static com.example.wallet.domain.WalletCommandError.WALLET_ALREADY_EXISTS;
 import static com.example.wallet.domain.WalletCommandError.WALLET_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.WITHDRAWAL_LE_ZERO;
 
-public record Wallet(String id, BigDecimal balance,
-                     @JsonSerialize(using = VavrMapSerializer.class)
-                     @JsonDeserialize(using = VavrMapDeserializer.class)
-                     Map<String, Expense> expenses,
-                     LinkedHashSet<String> commandIds) {
-
+@JsonSerialize(using = WalletSnapshot.Serializer.class)
+@JsonDeserialize(using = WalletSnapshot.Deserializer.class)
+public record Wallet(String id, Money balance,
+                     LinkedHashMap<String, Expense> expenses,
+                     LinkedHashMap<String, Hold> holds,
+                     CommandIds commandIds,
+                     CommandIds settledExpenseIds) {
 
+  // Defaults of the command ids window, wallet entities use the application.wallet.command-ids limits.
   public static final int COMMAND_IDS_MAX_SIZE = 1000;
-  public static final Wallet EMPTY = new Wallet("", BigDecimal.ZERO);
-
-  public Wallet(String id, BigDecimal balance) {
-    this(id, balance, HashMap.empty(), new LinkedHashSet<>());
+  // Refunds of settled expenses are rejected as long as the expense id is in this window, older ones as not found.
+  public static final int SETTLED_EXPENSE_IDS_MAX_SIZE = 1000;
+  /**
+   * How long an expense can be refunded. After that it's settled and dropped from the wallet state,
+   * settled expenses are available only in the wallet ledger.
+   */
+  public static final Duration REFUND_WINDOW = Duration.ofDays(7);
+  public static final Wallet EMPTY = new Wallet("", Money.ZERO);
+
+  public Wallet(String id, Money balance) {
+    this(id, balance, LinkedHashMap.empty(), LinkedHashMap.empty(), CommandIds.empty(COMMAND_IDS_MAX_SIZE),
+      CommandIds.empty(SETTLED_EXPENSE_IDS_MAX_SIZE));
   }
 
 //  // Custom constructor for deserialization
@@ -56,20 +76,36 @@ public record Wallet(String id, BigDecimal balance,
 //    return expenses.toJavaMap();
 //  }
 
+  /**
+   * The same wallet with other limits of the command ids window, applied to states recovered with previous limits.
+   */
+  public Wallet withCommandIdsLimits(int maxSize, Duration maxAge) {
+    CommandIds limited = commandIds.withLimits(maxSize, maxAge);
+    return limited == commandIds ? this : new Wallet(id, balance, expenses, holds, limited, settledExpenseIds);
+  }
+
   @JsonIgnore
   public boolean isEmpty() {
     return id.equals(EMPTY.id);
   }
 
   public Or<WalletCommandError, WalletEvent> process(WalletCommand command) {
+    return process(command, Instant.now());
+  }
+
+  public Or<WalletCommandError, WalletEvent> process(WalletCommand command, Instant now) {
     if (isDuplicate(command)) {
       return left(WalletCommandError.DUPLICATED_COMMAND);
     } else {
       return switch (command) {
         case CreateWallet create -> handleCreate(create);
-        case ChargeWallet charge -> ifExists(() -> handleCharge(charge));
-        case DepositFunds deposit -> ifExists(() -> handleDeposit(deposit));
-        case Refund refund -> ifExists(() -> handleRefund(refund));
+        case ChargeWallet charge -> ifExists(() -> handleCharge(charge, now));
+        case DepositFunds deposit -> ifExists(() -> handleDeposit(deposit, now));
+        case WithdrawFunds withdraw -> ifExists(() -> handleWithdraw(withdraw, now));
+        case Refund refund -> ifExists(() -> handleRefund(refund, now));
+        case AuthorizeCharge authorize -> ifExists(() -> handleAuthorize(authorize, now));
+        case CaptureCharge capture -> ifExists(() -> handleCapture(capture, now));
+        case VoidCharge voidCharge -> ifExists(() -> handleVoid(voidCharge, now));
       };
     }
   }
@@ -98,55 +134,111 @@ public record Wallet(String id, BigDecimal balance,
     }
   }
 
-  private Or<WalletCommandError, WalletEvent> handleCharge(ChargeWallet charge) {
-    if (balance.compareTo(charge.amount()) < 0) {
-      return right(new WalletChargeRejected(id, charge.expenseId()));
+  private Or<WalletCommandError, WalletEvent> handleCharge(ChargeWallet charge, Instant now) {
+    if (balance.isLessThan(charge.amount())) {
+      return right(new WalletChargeRejected(id, charge.expenseId(), charge.context()));
     } else {
-      return right(new WalletCharged(id, charge.amount(), charge.expenseId(), charge.commandId()));
+      return right(new WalletCharged(id, charge.amount(), charge.expenseId(), charge.commandId(), now, charge.context()));
     }
   }
 
-  private Or<WalletCommandError, WalletEvent> handleDeposit(DepositFunds depositFunds) {
-    if (depositFunds.amount().compareTo(BigDecimal.ZERO) <= 0) {
+  private Or<WalletCommandError, WalletEvent> handleDeposit(DepositFunds depositFunds, Instant now) {
+    if (!depositFunds.amount().isPositive()) {
       return left(DEPOSIT_LE_ZERO);
     } else {
-      return right(new FundsDeposited(id, depositFunds.amount(), depositFunds.commandId()));
+      return right(new FundsDeposited(id, depositFunds.amount(), depositFunds.commandId(), now));
     }
   }
 
-  private Or<WalletCommandError, WalletEvent> handleRefund(Refund refund) {
+  private Or<WalletCommandError, WalletEvent> handleWithdraw(WithdrawFunds withdrawFunds, Instant now) {
+    if (!withdrawFunds.amount().isPositive()) {
+      return left(WITHDRAWAL_LE_ZERO);
+    } else if (balance.isLessThan(withdrawFunds.amount())) {
+      return left(NOT_SUFFICIENT_FUNDS);
+    } else {
+      return right(new FundsWithdrawn(id, withdrawFunds.amount(), withdrawFunds.commandId(), now));
+    }
+  }
+
+  private Or<WalletCommandError, WalletEvent> handleRefund(Refund refund, Instant now) {
     return expenses.get(refund.expenseId()).fold(
-      () -> left(EXPENSE_NOT_FOUND),
-      expense -> right(new WalletRefunded(id, expense.amount(), expense.expenseId(), refund.commandId()))
+      () -> left(settledExpenseIds.contains(refund.expenseId()) ? EXPENSE_SETTLED : EXPENSE_NOT_FOUND),
+      expense -> right(new WalletRefunded(id, expense.amount(), expense.expenseId(), refund.commandId(), now))
+    );
+  }
+
+  private Or<WalletCommandError, WalletEvent> handleAuthorize(AuthorizeCharge authorize, Instant now) {
+    if (balance.isLessThan(authorize.amount())) {
+      return left(NOT_SUFFICIENT_FUNDS);
+    } else {
+      return right(new ChargeAuthorized(id, authorize.amount(), authorize.expenseId(), authorize.commandId(), now));
+    }
+  }
+
+  private Or<WalletCommandError, WalletEvent> handleCapture(CaptureCharge capture, Instant now) {
+    return holds.get(capture.expenseId()).fold(
+      () -> left(HOLD_NOT_FOUND),
+      hold -> right(new ChargeCaptured(id, hold.amount(), hold.expenseId(), capture.commandId(), now))
+    );
+  }
+
+  private Or<WalletCommandError, WalletEvent> handleVoid(VoidCharge voidCharge, Instant now) {
+    return holds.get(voidCharge.expenseId()).fold(
+      () -> left(HOLD_NOT_FOUND),
+      hold -> right(new ChargeVoided(id, hold.amount(), hold.expenseId(), voidCharge.commandId(), now))
     );
   }
 
   public Wallet apply(WalletEvent event) {
     return switch (event) {
       case WalletCreated created ->
-        new Wallet(created.walletId(), created.initialBalance(), expenses, new LinkedHashSet<>());
+        new Wallet(created.walletId(), created.initialBalance(), expenses, holds, CommandIds.empty(commandIds.capacity(), commandIds.maxAge()),
+          CommandIds.empty(settledExpenseIds.capacity()));
       case WalletCharged charged -> {
-        Expense expense = new Expense(charged.expenseId(), charged.amount());
-        yield new Wallet(id, balance.subtract(charged.amount()), expenses.put(expense.expenseId(), expense), addCommandId(charged.commandId()));
+        Expense expense = new Expense(charged.expenseId(), charged.amount(), charged.chargedAt());
+        yield new Wallet(id, balance.minus(charged.amount()), settleExpenses(charged.chargedAt()).put(expense.expenseId(), expense), holds, addCommandId(charged.commandId(), charged.chargedAt()), settledExpenseIds);
       }
       case FundsDeposited deposited ->
-        new Wallet(id, balance.add(deposited.amount()), expenses, addCommandId(deposited.commandId()));
+        new Wallet(id, balance.plus(deposited.amount()), expenses, holds, addCommandId(deposited.commandId(), deposited.depositedAt()), settledExpenseIds);
+      case FundsWithdrawn withdrawn ->
+        new Wallet(id, balance.minus(withdrawn.amount()), expenses, holds, addCommandId(withdrawn.commandId(), withdrawn.withdrawnAt()), settledExpenseIds);
       case WalletChargeRejected __ -> this;
       case WalletRefunded refunded ->
-        new Wallet(id, balance.add(refunded.amount()), expenses.remove(refunded.expenseId()), addCommandId(refunded.commandId()));
+        new Wallet(id, balance.plus(refunded.amount()), expenses.remove(refunded.expenseId()), holds, addCommandId(refunded.commandId(), refunded.refundedAt()), settledExpenseIds);
+      case ChargeAuthorized authorized -> {
+        Hold hold = new Hold(authorized.expenseId(), authorized.amount());
+        yield new Wallet(id, balance.minus(authorized.amount()), expenses, holds.put(hold.expenseId(), hold), addCommandId(authorized.commandId(), authorized.authorizedAt()), settledExpenseIds);
+      }
+      case ChargeCaptured captured -> {
+        //the held amount is already deducted from the balance
+        Expense expense = new Expense(captured.expenseId(), captured.amount(), captured.capturedAt());
+        yield new Wallet(id, balance, settleExpenses(captured.capturedAt()).put(expense.expenseId(), expense), holds.remove(captured.expenseId()), addCommandId(captured.commandId(), captured.capturedAt()), settledExpenseIds);
+      }
+      case ChargeVoided voided ->
+        new Wallet(id, balance.plus(voided.amount()), expenses, holds.remove(voided.expenseId()), addCommandId(voided.commandId(), voided.voidedAt()), settledExpenseIds);
     };
   }
 
-  private LinkedHashSet<String> addCommandId(String commandId) {
-    // To avoid infinite growth of the list with limit the size to 1000.
-    // This implementation is not very efficient, so you might want to use a more dedicated data structure for it.
-    // When using other collections, make sure that the state is serializable and deserializable.
-    // Another way to put some constraints on the list size is to remove commandIds based on time
-    // e.g. remove commandIds that are older than 1 hour.
-    if (commandIds.size() >= COMMAND_IDS_MAX_SIZE) {
-      commandIds.removeFirst();
+  // Expenses are kept in the charge order, so settled ones are always at the head.
+  // Expenses without the charge time (charged before it was recorded) get the time of the first charge that has it.
+  private LinkedHashMap<String, Expense> settleExpenses(Instant now) {
+    if (now == null || expenses.isEmpty()) {
+      return expenses;
     }
-    commandIds.add(commandId);
+    var active = expenses.head()._2.chargedAt() == null
+      ? expenses.mapValues(expense -> expense.chargedAt() == null ? expense.withChargedAt(now) : expense)
+      : expenses;
+    Instant settledBefore = now.minus(REFUND_WINDOW);
+    while (!active.isEmpty() && active.head()._2.chargedAt().isBefore(settledBefore)) {
+      settledExpenseIds.add(active.head()._1);
+      active = active.tail();
+    }
+    return active;
+  }
+
+  private CommandIds addCommandId(String commandId, Instant at) {
+    // To avoid infinite growth the window is limited to the configured number and age of the last command ids.
+    commandIds.add(commandId, at);
     return commandIds;
   }
 }
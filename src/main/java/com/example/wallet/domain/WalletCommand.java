@@ -1,6 +1,9 @@
 package com.example.wallet.domain;
 
-import java.math.BigDecimal;
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
 
 public sealed interface WalletCommand {
 
@@ -8,16 +11,42 @@ public sealed interface WalletCommand {
     String commandId();
   }
 
-  record CreateWallet(String walletId, BigDecimal initialBalance) implements WalletCommand {
+  record CreateWallet(String walletId, Money initialBalance) implements WalletCommand {
+  }
+
+  /**
+   * @param context opaque to the wallet, copied to the charge events, so a saga has its data without a lookup
+   */
+  record ChargeWallet(Money amount, String expenseId, String commandId,
+                      @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> context) implements RequiresDeduplicationCommand {
+
+    public ChargeWallet {
+      context = context == null ? Map.of() : context;
+    }
+
+    public ChargeWallet(Money amount, String expenseId, String commandId) {
+      this(amount, expenseId, commandId, Map.of());
+    }
   }
 
-  record ChargeWallet(BigDecimal amount, String expenseId,
-                      String commandId) implements RequiresDeduplicationCommand {
+  record DepositFunds(Money amount, String commandId) implements RequiresDeduplicationCommand {
   }
 
-  record DepositFunds(BigDecimal amount, String commandId) implements RequiresDeduplicationCommand {
+  record WithdrawFunds(Money amount, String commandId) implements RequiresDeduplicationCommand {
   }
 
   record Refund(String expenseId, String commandId) implements RequiresDeduplicationCommand {
   }
+
+  /**
+   * Puts a hold on the funds for the expense, the hold is captured or voided later.
+   */
+  record AuthorizeCharge(Money amount, String expenseId, String commandId) implements RequiresDeduplicationCommand {
+  }
+
+  record CaptureCharge(String expenseId, String commandId) implements RequiresDeduplicationCommand {
+  }
+
+  record VoidCharge(String expenseId, String commandId) implements RequiresDeduplicationCommand {
+  }
 }
@@ -1,29 +1,71 @@
 package com.example.wallet.domain;
 
-
 import akka.javasdk.annotations.TypeName;
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
 
 public sealed interface WalletEvent {
 
   @TypeName("wallet-created")
-  record WalletCreated(String walletId, BigDecimal initialBalance) implements WalletEvent {
+  record WalletCreated(String walletId, Money initialBalance) implements WalletEvent {
   }
 
   @TypeName("wallet-charged")
-  record WalletCharged(String walletId, BigDecimal amount, String expenseId, String commandId) implements WalletEvent {
+  record WalletCharged(String walletId, Money amount, String expenseId, String commandId, Instant chargedAt,
+                       @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> context) implements WalletEvent {
+
+    public WalletCharged {
+      context = context == null ? Map.of() : context;
+    }
+
+    public WalletCharged(String walletId, Money amount, String expenseId, String commandId, Instant chargedAt) {
+      this(walletId, amount, expenseId, commandId, chargedAt, Map.of());
+    }
   }
 
   @TypeName("wallet-funds-deposited")
-  record FundsDeposited(String walletId, BigDecimal amount, String commandId) implements WalletEvent {
+  record FundsDeposited(String walletId, Money amount, String commandId,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) Instant depositedAt) implements WalletEvent {
+  }
+
+  @TypeName("wallet-funds-withdrawn")
+  record FundsWithdrawn(String walletId, Money amount, String commandId,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) Instant withdrawnAt) implements WalletEvent {
   }
 
   @TypeName("wallet-charge-rejected")
-  record WalletChargeRejected(String walletId, String expenseId) implements WalletEvent {
+  record WalletChargeRejected(String walletId, String expenseId,
+                              @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> context) implements WalletEvent {
+
+    public WalletChargeRejected {
+      context = context == null ? Map.of() : context;
+    }
+
+    public WalletChargeRejected(String walletId, String expenseId) {
+      this(walletId, expenseId, Map.of());
+    }
   }
 
   @TypeName("wallet-refunded")
-  record WalletRefunded(String walletId, BigDecimal amount, String expenseId, String commandId) implements WalletEvent {
+  record WalletRefunded(String walletId, Money amount, String expenseId, String commandId,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) Instant refundedAt) implements WalletEvent {
+  }
+
+  @TypeName("wallet-charge-authorized")
+  record ChargeAuthorized(String walletId, Money amount, String expenseId, String commandId,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) Instant authorizedAt) implements WalletEvent {
+  }
+
+  @TypeName("wallet-charge-captured")
+  record ChargeCaptured(String walletId, Money amount, String expenseId, String commandId,
+                        Instant capturedAt) implements WalletEvent {
+  }
+
+  @TypeName("wallet-charge-voided")
+  record ChargeVoided(String walletId, Money amount, String expenseId, String commandId,
+                      @JsonInclude(JsonInclude.Include.NON_NULL) Instant voidedAt) implements WalletEvent {
   }
 }
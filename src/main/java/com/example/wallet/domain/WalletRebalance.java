@@ -0,0 +1,101 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Transfers that even out balances of wallet stripes, or consolidate funds for a charge in one stripe,
+ * each one is a withdrawal from a stripe followed by a deposit to another one. Transfers are empty until planned.
+ */
+public record WalletRebalance(String walletId, int stripes,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Consolidation consolidation,
+                              List<Transfer> transfers, int current) {
+
+  public record Transfer(int from, int to, Money amount) {
+  }
+
+  /**
+   * @param amount the balance the stripe needs for a charge
+   */
+  public record Consolidation(int stripe, Money amount) {
+  }
+
+  public static WalletRebalance of(String walletId, int stripes) {
+    return new WalletRebalance(walletId, stripes, null, null, 0);
+  }
+
+  public static WalletRebalance consolidation(String walletId, int stripes, int stripe, Money amount) {
+    return new WalletRebalance(walletId, stripes, new Consolidation(stripe, amount), null, 0);
+  }
+
+  /**
+   * @param balances stripe balances, from the first stripe
+   */
+  public WalletRebalance withPlan(List<Money> balances) {
+    List<Transfer> transfers = consolidation == null ? evenOut(balances) : consolidate(balances);
+    return new WalletRebalance(walletId, stripes, consolidation, List.copyOf(transfers), 0);
+  }
+
+  private static List<Transfer> evenOut(List<Money> balances) {
+    Money total = balances.stream().reduce(Money.ZERO, Money::plus);
+    List<Money> targets = WalletStripes.split(total, balances.size());
+    long[] surplus = new long[balances.size()];
+    for (int stripe = 0; stripe < balances.size(); stripe++) {
+      surplus[stripe] = balances.get(stripe).minus(targets.get(stripe)).minorUnits();
+    }
+    List<Transfer> transfers = new ArrayList<>();
+    int to = 0;
+    for (int from = 0; from < surplus.length; from++) {
+      while (surplus[from] > 0) {
+        while (surplus[to] >= 0) {
+          to++;
+        }
+        long amount = Math.min(surplus[from], -surplus[to]);
+        transfers.add(new Transfer(from, to, Money.ofMinor(amount)));
+        surplus[from] -= amount;
+        surplus[to] += amount;
+      }
+    }
+    return transfers;
+  }
+
+  // Nothing is moved when the stripe has enough funds or the wallet has not enough in total, fewest transfers first.
+  private List<Transfer> consolidate(List<Money> balances) {
+    Money total = balances.stream().reduce(Money.ZERO, Money::plus);
+    long missing = consolidation.amount().minus(balances.get(consolidation.stripe())).minorUnits();
+    if (missing <= 0 || total.isLessThan(consolidation.amount())) {
+      return List.of();
+    }
+    List<Integer> sources = IntStream.range(0, balances.size())
+      .filter(stripe -> stripe != consolidation.stripe())
+      .boxed()
+      .sorted(Comparator.comparing((Integer stripe) -> balances.get(stripe).minorUnits()).reversed())
+      .toList();
+    List<Transfer> transfers = new ArrayList<>();
+    for (int from : sources) {
+      long amount = Math.min(missing, balances.get(from).minorUnits());
+      if (amount > 0) {
+        transfers.add(new Transfer(from, consolidation.stripe(), Money.ofMinor(amount)));
+        missing -= amount;
+      }
+    }
+    return transfers;
+  }
+
+  public boolean isDone() {
+    return transfers != null && current >= transfers.size();
+  }
+
+  public Transfer currentTransfer() {
+    return transfers.get(current);
+  }
+
+  public WalletRebalance next() {
+    return new WalletRebalance(walletId, stripes, consolidation, transfers, current + 1);
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import io.vavr.collection.LinkedHashMap;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned, compact snapshot format of the {@link Wallet} state, expenses are stored as parallel id, amount and charge time
+ * arrays (epoch millis, 0 when unknown, skipped when no expense has it), holds as id and amount arrays (skipped when empty)
+ * and command ids and ids of recently settled expenses as 16 bytes each (settled ones skipped when empty), all from the
+ * oldest to the newest. Command ids are stored with the window limits and the times they were added (epoch millis,
+ * skipped when none is known).
+ * Snapshots without a version are the plain Jackson shape of the wallet record, migrated when read.
+ */
+public record WalletSnapshot(int version, String id, Money balance,
+                             List<String> expenseIds, List<Money> expenseAmounts,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) long[] expenseChargedAt,
+                             @JsonInclude(JsonInclude.Include.NON_EMPTY) List<String> holdIds,
+                             @JsonInclude(JsonInclude.Include.NON_EMPTY) List<Money> holdAmounts,
+                             int commandIdsCapacity,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) Long commandIdsMaxAge,
+                             byte[] commandIds,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) long[] commandIdsAddedAt,
+                             @JsonInclude(JsonInclude.Include.NON_EMPTY) byte[] settledExpenseIds) {
+
+  public static final int CURRENT_VERSION = 1;
+
+  public static WalletSnapshot of(Wallet wallet) {
+    List<String> expenseIds = new ArrayList<>(wallet.expenses().size());
+    List<Money> expenseAmounts = new ArrayList<>(wallet.expenses().size());
+    long[] expenseChargedAt = new long[wallet.expenses().size()];
+    boolean chargedAtKnown = false;
+    for (Expense expense : wallet.expenses().values()) {
+      if (expense.chargedAt() != null) {
+        expenseChargedAt[expenseIds.size()] = expense.chargedAt().toEpochMilli();
+        chargedAtKnown = true;
+      }
+      expenseIds.add(expense.expenseId());
+      expenseAmounts.add(expense.amount());
+    }
+    List<String> holdIds = wallet.holds().keySet().toJavaList();
+    List<Money> holdAmounts = wallet.holds().values().map(Hold::amount).toJavaList();
+    CommandIds commandIds = wallet.commandIds();
+    return new WalletSnapshot(CURRENT_VERSION, wallet.id(), wallet.balance(), expenseIds, expenseAmounts,
+      chargedAtKnown ? expenseChargedAt : null, holdIds, holdAmounts,
+      commandIds.capacity(), commandIds.maxAge() == null ? null : commandIds.maxAge().toMillis(),
+      commandIds.toBytes(), commandIds.addedAt(), wallet.settledExpenseIds().toBytes());
+  }
+
+  public Wallet toWallet() {
+    if (version != CURRENT_VERSION) {
+      throw new IllegalStateException("Unsupported wallet snapshot version " + version);
+    }
+    LinkedHashMap<String, Expense> expenses = LinkedHashMap.empty();
+    for (int i = 0; i < expenseIds.size(); i++) {
+      Instant chargedAt = expenseChargedAt == null || expenseChargedAt[i] == 0 ? null : Instant.ofEpochMilli(expenseChargedAt[i]);
+      expenses = expenses.put(expenseIds.get(i), new Expense(expenseIds.get(i), expenseAmounts.get(i), chargedAt));
+    }
+    LinkedHashMap<String, Hold> holds = LinkedHashMap.empty();
+    for (int i = 0; holdIds != null && i < holdIds.size(); i++) {
+      holds = holds.put(holdIds.get(i), new Hold(holdIds.get(i), holdAmounts.get(i)));
+    }
+    Duration maxAge = commandIdsMaxAge == null ? null : Duration.ofMillis(commandIdsMaxAge);
+    return new Wallet(id, balance, expenses, holds, CommandIds.of(commandIdsCapacity, maxAge, commandIds, commandIdsAddedAt),
+      CommandIds.of(Wallet.SETTLED_EXPENSE_IDS_MAX_SIZE, settledExpenseIds == null ? new byte[0] : settledExpenseIds));
+  }
+
+  // Unversioned snapshots have expenses as a map and command ids as strings.
+  static Wallet migrate(JsonNode node) {
+    LinkedHashMap<String, Expense> expenses = LinkedHashMap.empty();
+    for (JsonNode expense : node.get("expenses")) {
+      String expenseId = expense.get("expenseId").asText();
+      expenses = expenses.put(expenseId, new Expense(expenseId, Money.of(expense.get("amount").decimalValue())));
+    }
+    CommandIds commandIds = CommandIds.empty(Wallet.COMMAND_IDS_MAX_SIZE);
+    node.get("commandIds").forEach(commandId -> commandIds.add(commandId.asText()));
+    return new Wallet(node.get("id").asText(), Money.of(node.get("balance").decimalValue()), expenses, LinkedHashMap.empty(), commandIds,
+      CommandIds.empty(Wallet.SETTLED_EXPENSE_IDS_MAX_SIZE));
+  }
+
+  public static class Serializer extends JsonSerializer<Wallet> {
+    @Override
+    public void serialize(Wallet wallet, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+      gen.writeObject(WalletSnapshot.of(wallet));
+    }
+  }
+
+  public static class Deserializer extends JsonDeserializer<Wallet> {
+    @Override
+    public Wallet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonNode node = p.getCodec().readTree(p);
+      if (node.has("version")) {
+        return p.getCodec().treeToValue(node, WalletSnapshot.class).toWallet();
+      } else {
+        return migrate(node);
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A striped wallet splits its balance across stripes, each stripe is a separate wallet entity that never overdraws,
+ * so charges of a busy wallet are processed by many entities at the same time.
+ * Wallets that are not striped have one stripe, addressed with the wallet id.
+ */
+public class WalletStripes {
+
+  public static final int MAX_STRIPES = 64;
+  private static final String STRIPE_SEPARATOR = "~";
+
+  public static String stripeId(String walletId, int stripe) {
+    return walletId + STRIPE_SEPARATOR + stripe;
+  }
+
+  public static boolean isValidWalletId(String walletId) {
+    return !walletId.contains(STRIPE_SEPARATOR);
+  }
+
+  public static String walletIdOf(String stripeId) {
+    int separator = stripeId.lastIndexOf(STRIPE_SEPARATOR);
+    return separator < 0 ? stripeId : stripeId.substring(0, separator);
+  }
+
+  /**
+   * The only stripe charged for an expense, so a retried charge is always deduplicated by the same stripe.
+   */
+  public static int stripeOf(String expenseId, int stripes) {
+    return Math.floorMod(expenseId.hashCode(), stripes);
+  }
+
+  /**
+   * Equal parts, the remainder in minor units goes to the first stripes.
+   */
+  public static List<Money> split(Money amount, int stripes) {
+    long part = amount.minorUnits() / stripes;
+    long remainder = amount.minorUnits() % stripes;
+    List<Money> parts = new ArrayList<>(stripes);
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      parts.add(Money.ofMinor(part + (stripe < remainder ? 1 : 0)));
+    }
+    return parts;
+  }
+
+  /**
+   * Command id of the part of a command sent to the stripe, the same for retries of the command.
+   */
+  public static String commandId(String commandId, int stripe) {
+    return UUID.nameUUIDFromBytes(stripeId(commandId, stripe).getBytes(UTF_8)).toString();
+  }
+}
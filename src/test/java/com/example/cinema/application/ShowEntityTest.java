@@ -7,6 +7,8 @@ import com.example.cinema.domain.ShowCommand.ConfirmReservationPayment;
 import com.example.cinema.domain.ShowEvent;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static com.example.cinema.domain.DomainGenerators.randomReservationId;
 import static com.example.cinema.domain.DomainGenerators.randomShowId;
 import static com.example.cinema.domain.DomainGenerators.randomWalletId;
@@ -35,4 +37,41 @@ class ShowEntityTest {
     assertThat(confirmedSeat.number()).isEqualTo(seatNumber);
     assertThat(confirmedSeat.status()).isEqualTo(PAID);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldReserveAndConfirmGroupOfSeats() {
+    //given
+    var reservationId = randomReservationId();
+    var seatNumbers = List.of(1, 2, 3);
+    EventSourcedTestKit<Show, ShowEvent, ShowEntity> testKit = EventSourcedTestKit.of(ShowEntity::new);
+    var reserveSeats = new ShowCommand.ReserveSeats(randomWalletId(), reservationId, seatNumbers);
+
+    //when
+    testKit.method(ShowEntity::create).invoke(new ShowCommand.CreateShow("title", 100));
+    var reserveResult = testKit.method(ShowEntity::reserveSeats).invoke(reserveSeats);
+    testKit.method(ShowEntity::confirmPayment).invoke(new ConfirmReservationPayment(reservationId));
+
+    //then
+    assertThat(reserveResult.getNextEventOfType(ShowEvent.SeatsReserved.class).seatNumbers()).isEqualTo(seatNumbers);
+    assertThat(seatNumbers).allMatch(seatNumber -> testKit.getState().seats().statusOf(seatNumber) == PAID);
+  }
+
+  @Test
+  public void shouldReplyWithPriceOfReservedSeats() {
+    //given
+    var reserveSeats = new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), List.of(1, 2));
+    EventSourcedTestKit<Show, ShowEvent, ShowEntity> testKit = EventSourcedTestKit.of(ShowEntity::new);
+    testKit.method(ShowEntity::create).invoke(new ShowCommand.CreateShow("title", 100));
+
+    //when
+    var reserveResult = testKit.method(ShowEntity::reserveSeatsWithPrice).invoke(reserveSeats);
+    var retryResult = testKit.method(ShowEntity::reserveSeatsWithPrice).invoke(reserveSeats);
+
+    //then
+    var price = reserveResult.getNextEventOfType(ShowEvent.SeatsReserved.class).price();
+    var expectedReply = new SeatsReservationResponse.Reserved(price, testKit.getState().seats().prices());
+    assertThat(reserveResult.getReply()).usingRecursiveComparison().isEqualTo(expectedReply);
+    assertThat(retryResult.getReply()).usingRecursiveComparison().isEqualTo(expectedReply);
+    assertThat(retryResult.didPersistEvents()).isFalse();
+  }
+}
@@ -1,12 +1,12 @@
 package com.example.cinema.domain;
 
-import java.math.BigDecimal;
+import com.example.common.Money;
+
 import java.util.Random;
 import java.util.UUID;
 
 import static com.example.cinema.domain.ShowBuilder.showBuilder;
 
-
 public class DomainGenerators {
 
   private static final Random random = new Random();
@@ -27,8 +27,8 @@ public class DomainGenerators {
     return UUID.randomUUID().toString();
   }
 
-  public static BigDecimal randomPrice() {
-    return BigDecimal.valueOf(random.nextInt(200) + 50);
+  public static Money randomPrice() {
+    return Money.ofUnits(random.nextInt(200) + 50);
   }
 
   public static String randomTitle() {
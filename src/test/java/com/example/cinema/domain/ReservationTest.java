@@ -0,0 +1,43 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static com.example.cinema.domain.DomainGenerators.randomReservationId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationTest {
+
+  @Test
+  public void shouldKeepFinishTimeOfRepeatedCancellation() {
+    //given
+    var reservation = new Reservation(randomReservationId(), "show1", "1", Money.ofUnits(100));
+    var cancelledAt = Instant.parse("2024-01-01T10:00:00Z");
+    var cancelled = reservation.asCancelled(cancelledAt);
+
+    //when
+    var cancelledAgain = cancelled.asCancelled(cancelledAt.plusSeconds(60));
+
+    //then
+    assertThat(cancelledAgain.status()).isEqualTo(Reservation.Status.CANCELLED);
+    assertThat(cancelledAgain.finishedAt()).isEqualTo(cancelledAt);
+  }
+
+  @Test
+  public void shouldBePendingUntilFinished() {
+    //given
+    var reservation = new Reservation(randomReservationId(), "show1", "1", Money.ofUnits(100));
+    var confirmedAt = Instant.parse("2024-01-01T10:00:00Z");
+
+    //when
+    var confirmed = reservation.asConfirmed(confirmedAt);
+
+    //then
+    assertThat(reservation.status()).isEqualTo(Reservation.Status.PENDING);
+    assertThat(reservation.finishedAt()).isNull();
+    assertThat(confirmed.status()).isEqualTo(Reservation.Status.CONFIRMED);
+    assertThat(confirmed.finishedAt()).isEqualTo(confirmedAt);
+  }
+}
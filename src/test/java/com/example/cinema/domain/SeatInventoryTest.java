@@ -0,0 +1,178 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.PAID;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
+import static com.example.cinema.domain.ShowCreator.createSeats;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatInventoryTest {
+
+  @Test
+  public void shouldCreateInventoryFromSeats() {
+    //given
+    var seats = createSeats(Money.ofUnits(100), 100);
+
+    //when
+    var inventory = SeatInventory.of(seats);
+
+    //then
+    assertThat(inventory.size()).isEqualTo(100);
+    assertThat(inventory.priceTiers()).containsExactly(Money.ofUnits(100));
+    assertThat(inventory.toList()).isEqualTo(seats);
+  }
+
+  @Test
+  public void shouldUpdateSeatStatusWithoutChangingPreviousVersion() {
+    //given
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 100));
+
+    //when
+    var reserved = inventory.update(33, RESERVED);
+    var paid = reserved.update(33, PAID).update(99, RESERVED);
+
+    //then
+    assertThat(inventory.statusOf(33)).isEqualTo(AVAILABLE);
+    assertThat(reserved.statusOf(33)).isEqualTo(RESERVED);
+    assertThat(paid.statusOf(33)).isEqualTo(PAID);
+    assertThat(paid.statusOf(32)).isEqualTo(AVAILABLE);
+    assertThat(paid.statusOf(34)).isEqualTo(AVAILABLE);
+    assertThat(paid.statusOf(99)).isEqualTo(RESERVED);
+  }
+
+  @Test
+  public void shouldKeepSeatPricesInTiers() {
+    //given
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 10));
+
+    //when
+    var updated = inventory.put(new Seat(2, RESERVED, Money.ofUnits(123)));
+
+    //then
+    assertThat(updated.priceTiers()).containsExactly(Money.ofUnits(100), Money.ofUnits(123));
+    assertThat(updated.get(2).get()).isEqualTo(new Seat(2, RESERVED, Money.ofUnits(123)));
+    assertThat(updated.get(3).get()).isEqualTo(new Seat(3, AVAILABLE, Money.ofUnits(100)));
+    assertThat(inventory.get(2).get()).isEqualTo(new Seat(2, AVAILABLE, Money.ofUnits(100)));
+  }
+
+  @Test
+  public void shouldSummarizeAvailability() {
+    //given
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 100, 40))
+      .update(List.of(100, 101, 110), RESERVED)
+      .update(List.of(120, 139), PAID);
+
+    //when
+    var availability = inventory.availability();
+
+    //then
+    assertThat(availability).isEqualTo(new SeatAvailability(35, 3, 2, new int[]{102, 8, 111, 9, 121, 18}));
+  }
+
+  @Test
+  public void shouldJoinFreeRunsOfAdjacentSections() {
+    //given
+    var first = SeatInventory.of(createSeats(Money.ofUnits(100), 0, 100)).update(List.of(0), RESERVED);
+    var second = SeatInventory.of(createSeats(Money.ofUnits(100), 100, 100)).update(List.of(150), PAID);
+
+    //when
+    var availability = first.availability().merge(second.availability());
+
+    //then
+    assertThat(availability).isEqualTo(new SeatAvailability(198, 1, 1, new int[]{1, 149, 151, 49}));
+  }
+
+  @Test
+  public void shouldNotFindNotExistingSeat() {
+    //given
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 10));
+
+    //when //then
+    assertThat(inventory.get(10).isEmpty()).isTrue();
+    assertThat(inventory.get(-1).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldSerializeAndDeserialize() throws Exception {
+    //given
+    var objectMapper = new ObjectMapper();
+    var inventory = SeatInventory.of(List.of(
+      new Seat(0, AVAILABLE, Money.ofUnits(100)),
+      new Seat(1, RESERVED, Money.ofUnits(150)),
+      new Seat(2, PAID, Money.ofUnits(100))));
+
+    //when
+    var json = objectMapper.writeValueAsString(inventory);
+    var deserialized = objectMapper.readValue(json, SeatInventory.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(inventory);
+  }
+
+  @Test
+  public void shouldFindFirstRunOfAdjacentAvailableSeats() {
+    //given
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 100))
+      .update(List.of(0, 3, 6, 7), RESERVED)
+      .update(List.of(9), PAID);
+
+    //when //then
+    assertThat(inventory.findAdjacentAvailable(1).get()).containsExactly(1);
+    assertThat(inventory.findAdjacentAvailable(2).get()).containsExactly(1, 2);
+    assertThat(inventory.findAdjacentAvailable(3).get()).containsExactly(10, 11, 12);
+    assertThat(inventory.findAdjacentAvailable(90).get()).hasSize(90).startsWith(10).endsWith(99);
+    assertThat(inventory.findAdjacentAvailable(91).isEmpty()).isTrue();
+    assertThat(inventory.update(6, AVAILABLE).update(7, AVAILABLE).findAdjacentAvailable(3).get()).containsExactly(4, 5, 6);
+  }
+
+  @Test
+  public void shouldKeepRunsOfPreviousVersion() {
+    //given
+    var previous = SeatInventory.of(createSeats(Money.ofUnits(100), 10)).update(List.of(5), RESERVED);
+
+    //when
+    var updated = previous.update(List.of(0, 1, 2), RESERVED);
+    var branched = previous.update(List.of(9), PAID);
+
+    //then
+    assertThat(updated.findAdjacentAvailable(4).get()).containsExactly(6, 7, 8, 9);
+    assertThat(previous.findAdjacentAvailable(5).get()).containsExactly(0, 1, 2, 3, 4);
+    assertThat(branched.longestFreeRun()).isEqualTo(5);
+    assertThat(branched.findAdjacentAvailable(4).get()).containsExactly(0, 1, 2, 3);
+  }
+
+  @Test
+  public void shouldFindSameRunsAsLinearScan() {
+    //given
+    var random = new Random(42);
+    var inventory = SeatInventory.of(createSeats(Money.ofUnits(100), 100));
+
+    for (int i = 0; i < 2000; i++) {
+      //when
+      inventory = inventory.update(random.nextInt(100), random.nextInt(3) == 0 ? AVAILABLE : RESERVED);
+      int numberOfSeats = random.nextInt(6) + 1;
+
+      //then
+      assertThat(inventory.findAdjacentAvailable(numberOfSeats).map(seats -> seats.get(0)).getOrElse(-1))
+        .isEqualTo(linearScan(inventory, numberOfSeats));
+    }
+  }
+
+  private int linearScan(SeatInventory inventory, int numberOfSeats) {
+    int run = 0;
+    for (int seatNumber = 0; seatNumber < inventory.size(); seatNumber++) {
+      run = inventory.isAvailable(seatNumber) ? run + 1 : 0;
+      if (run == numberOfSeats) {
+        return seatNumber - numberOfSeats + 1;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.cinema.domain;
+
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.example.cinema.domain.DomainGenerators.randomShowId;
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.PAID;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SectionSeatsTest {
+
+  @Test
+  public void shouldTrackSeatStatusesAndCounts() {
+    //given
+    var showId = randomShowId();
+    var sectionId = ShowSections.sectionId(showId, 1);
+    var showCreated = ShowCreator.createSection(sectionId, new CreateShowSection("title", 1, 250)).rightValue();
+
+    //when
+    var created = SectionSeats.of(showCreated);
+    var updated = created
+      .withStatus(List.of(100, 101, 102), RESERVED)
+      .withStatus(List.of(101), PAID)
+      .withStatus(List.of(102), AVAILABLE)
+      .withTierPrice(0, Money.ofUnits(150));
+
+    //then
+    assertThat(created.showId()).isEqualTo(showId);
+    assertThat(created.section()).isEqualTo(1);
+    assertThat(created.available()).isEqualTo(100);
+    assertThat(updated.version()).isEqualTo(created.version() + 4);
+    assertThat(updated.available()).isEqualTo(98);
+    assertThat(updated.reserved()).isEqualTo(1);
+    assertThat(updated.paid()).isEqualTo(1);
+    assertThat(updated.seats().get(101).get()).isEqualTo(new Seat(101, PAID, Money.ofUnits(150)));
+  }
+
+  @Test
+  public void shouldSerializeAndDeserializeRow() throws Exception {
+    //given
+    var objectMapper = new ObjectMapper();
+    var showCreated = ShowCreator.create(randomShowId(), new ShowCommand.CreateShow("title", 100)).rightValue();
+    var row = SectionSeats.of(showCreated).withStatus(List.of(5, 6), RESERVED);
+
+    //when
+    var deserialized = objectMapper.readValue(objectMapper.writeValueAsString(row), SectionSeats.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(row);
+    assertThat(deserialized.seats().findAdjacentAvailable(10).get()).startsWith(7);
+    assertThat(deserialized.longestFreeRun()).isEqualTo(93);
+  }
+}
@@ -1,9 +1,5 @@
 package com.example.cinema.domain;
 
-import io.vavr.Tuple2;
-import io.vavr.collection.HashMap;
-import io.vavr.collection.Map;
-
 import java.util.List;
 
 import static com.example.cinema.domain.DomainGenerators.randomPrice;
@@ -15,28 +11,26 @@ public class ShowBuilder {
   final static int MAX_SEATS = 100;
   private String id = randomShowId();
   private String title = "Random title";
-  private Map<Integer, Seat> seats = HashMap.empty();
-  private Map<String, Integer> pendingReservations = HashMap.empty();
+  private SeatInventory seats = SeatInventory.of(List.of());
+  private PendingReservations pendingReservations = PendingReservations.EMPTY;
 
   public static ShowBuilder showBuilder() {
     return new ShowBuilder();
   }
 
   public ShowBuilder withRandomSeats() {
-    List<Tuple2<Integer, Seat>> seatTuples = createSeats(randomPrice(), MAX_SEATS)
-      .stream().map(seat -> new Tuple2<>(seat.number(), seat)).toList();
-    this.seats = HashMap.ofEntries(seatTuples);
+    this.seats = SeatInventory.of(createSeats(randomPrice(), MAX_SEATS));
     return this;
   }
 
   public ShowBuilder withSeatReservation(Seat seat, String reservationId) {
-    seats = seats.put(seat.number(), seat);
-    pendingReservations = pendingReservations.put(reservationId, seat.number());
+    seats = seats.put(seat);
+    pendingReservations = pendingReservations.put(reservationId, PendingReservation.of(seat.number(), null));
     return this;
   }
 
   public Show build() {
-    return new Show(id, title, seats, pendingReservations, HashMap.empty());
+    return new Show(id, title, MAX_SEATS, seats, pendingReservations, FinishedReservations.EMPTY);
   }
 
 
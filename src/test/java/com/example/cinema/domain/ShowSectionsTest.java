@@ -0,0 +1,131 @@
+package com.example.cinema.domain;
+
+import com.example.cinema.domain.ShowCommand.CreateShow;
+import com.example.cinema.domain.ShowCommand.CreateShowSection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.example.cinema.domain.DomainGenerators.randomShowId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShowSectionsTest {
+
+  @Test
+  public void shouldSplitShowIntoSections() {
+    //given
+    var createShow = new CreateShow("title", 250);
+
+    //when
+    var sections = ShowSections.split(createShow);
+
+    //then
+    assertThat(sections).containsExactly(
+      new CreateShowSection("title", 0, 250),
+      new CreateShowSection("title", 1, 250),
+      new CreateShowSection("title", 2, 250));
+  }
+
+  @Test
+  public void shouldGetShowIdAndSectionFromSectionId() {
+    //given
+    var showId = randomShowId();
+
+    //when //then
+    assertThat(ShowSections.showSectionOf(ShowSections.sectionId(showId, 0), 0)).contains(new ShowSection(showId, 0));
+    assertThat(ShowSections.showSectionOf(ShowSections.sectionId(showId, 7), 7)).contains(new ShowSection(showId, 7));
+    assertThat(ShowSections.showSectionOf(ShowSections.sectionId(showId, 7), 8)).isEmpty();
+    assertThat(ShowSections.showSectionOf(ShowSections.sectionId(showId, 0))).isEqualTo(new ShowSection(showId, 0));
+    assertThat(ShowSections.showSectionOf(ShowSections.sectionId(showId, 7))).isEqualTo(new ShowSection(showId, 7));
+  }
+
+  @Test
+  public void shouldNotParseShowIdWithSeparatorAsSection() {
+    //given
+    var showId = "foo-section-x";
+
+    //when
+    var showCreated = ShowCreator.create(showId, new CreateShow("title", 10)).rightValue();
+    var legacyCreated = new ShowEvent.ShowCreated(showId, showCreated.initialShow(), null);
+
+    //then
+    assertThat(ShowSections.isValidShowId(showId)).isFalse();
+    assertThat(SectionSeats.of(showCreated).showId()).isEqualTo(showId);
+    assertThat(SectionSeats.of(legacyCreated).showId()).isEqualTo(showId);
+    assertThat(SectionSeats.of(legacyCreated).section()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRouteSeatToSection() {
+    //given
+    var showId = randomShowId();
+
+    //when //then
+    assertThat(ShowSections.entityId(showId, 0)).isEqualTo(showId);
+    assertThat(ShowSections.entityId(showId, 99)).isEqualTo(showId);
+    assertThat(ShowSections.entityId(showId, 100)).isEqualTo(ShowSections.sectionId(showId, 1));
+    assertThat(ShowSections.entityId(showId, 249)).isEqualTo(ShowSections.sectionId(showId, 2));
+  }
+
+  @Test
+  public void shouldCheckIfSeatsAreInTheSameSection() {
+    //when //then
+    assertThat(ShowSections.inSameSection(List.of(0, 5, 99))).isTrue();
+    assertThat(ShowSections.inSameSection(List.of(98, 99, 100))).isFalse();
+  }
+
+  @Test
+  public void shouldCreateSectionWithShowWideSeatNumbers() {
+    //given
+    var sectionId = ShowSections.sectionId(randomShowId(), 2);
+    var createShowSection = new CreateShowSection("title", 2, 250);
+
+    //when
+    var showCreated = ShowCreator.createSection(sectionId, createShowSection).rightValue();
+    var section = Show.create(showCreated);
+
+    //then
+    assertThat(section.id()).isEqualTo(sectionId);
+    assertThat(section.totalSeats()).isEqualTo(250);
+    assertThat(section.seats().size()).isEqualTo(50);
+    assertThat(section.getSeat(200)).isPresent();
+    assertThat(section.getSeat(249)).isPresent();
+    assertThat(section.getSeat(199)).isEmpty();
+  }
+
+  @Test
+  public void shouldReserveSeatInSection() {
+    //given
+    var sectionId = ShowSections.sectionId(randomShowId(), 1);
+    var section = Show.create(ShowCreator.createSection(sectionId, new CreateShowSection("title", 1, 250)).rightValue());
+    var reserveSeat = new ShowCommand.ReserveSeat("wallet", "reservation", 150);
+
+    //when
+    var event = section.process(reserveSeat).rightValue();
+    var updatedSection = section.apply(event);
+
+    //then
+    assertThat(updatedSection.getSeat(150).get().status()).isEqualTo(SeatStatus.RESERVED);
+  }
+
+  @Test
+  public void shouldAcceptRepeatedSectionCreation() {
+    //given
+    var sectionId = ShowSections.sectionId(randomShowId(), 1);
+    var section = Show.create(ShowCreator.createSection(sectionId, new CreateShowSection("title", 1, 250)).rightValue());
+
+    //when //then
+    assertThat(section.process(new CreateShowSection("title", 1, 250)).leftValue()).isEqualTo(ShowCommandError.DUPLICATED_COMMAND);
+    assertThat(section.process(new CreateShowSection("other title", 1, 250)).leftValue()).isEqualTo(ShowCommandError.SHOW_ALREADY_EXISTS);
+    assertThat(section.process(new CreateShowSection("title", 1, 300)).leftValue()).isEqualTo(ShowCommandError.SHOW_ALREADY_EXISTS);
+  }
+
+  @Test
+  public void shouldRejectTooBigShowAndNotExistingSection() {
+    //when //then
+    assertThat(ShowCreator.createSection("id", new CreateShowSection("title", 0, ShowSections.MAX_SEATS + 1)).leftValue())
+      .isEqualTo(ShowCommandError.TOO_MANY_SEATS);
+    assertThat(ShowCreator.createSection("id", new CreateShowSection("title", 3, 250)).leftValue())
+      .isEqualTo(ShowCommandError.SECTION_NOT_EXISTS);
+  }
+}
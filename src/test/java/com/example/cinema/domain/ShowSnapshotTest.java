@@ -0,0 +1,126 @@
+package com.example.cinema.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static com.example.cinema.domain.DomainGenerators.randomReservationId;
+import static com.example.cinema.domain.ReservationStatus.CANCELLED;
+import static com.example.cinema.domain.ReservationStatus.CONFIRMED;
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.PAID;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
+import static com.example.cinema.domain.ShowBuilder.showBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShowSnapshotTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldSerializeAndDeserializeShow() throws Exception {
+    //given
+    var show = showBuilder()
+      .withRandomSeats()
+      .withSeatReservation(new Seat(2, RESERVED, Money.of(new BigDecimal("123.5"))), randomReservationId())
+      .build()
+      .apply(new ShowEvent.SeatReserved("ignored", "wallet", "r1", 5, Money.ofUnits(100), null))
+      .apply(new ShowEvent.SeatReservationPaid("ignored", "r1", 5, Instant.ofEpochMilli(4_000)))
+      .apply(new ShowEvent.SeatReserved("ignored", "wallet", "r2", 6, Money.ofUnits(100), Instant.ofEpochMilli(1_000)))
+      .apply(new ShowEvent.SeatReservationCancelled("ignored", "r2", 6, null))
+      .apply(new ShowEvent.SeatsReserved("ignored", "wallet", "r3", java.util.List.of(7, 8, 9), Money.ofUnits(300), Instant.ofEpochMilli(2_000)))
+      .apply(new ShowEvent.SeatReserved("ignored", "wallet", "r4", 10, Money.ofUnits(100), Instant.ofEpochMilli(3_000)));
+
+    //when
+    var json = objectMapper.writeValueAsString(show);
+    var deserialized = objectMapper.readValue(json, Show.class);
+
+    //then
+    assertThat(objectMapper.readTree(json).get("version").asInt()).isEqualTo(ShowSnapshot.CURRENT_VERSION);
+    assertThat(deserialized).isEqualTo(show);
+    assertThat(deserialized.pendingReservations().nextDeadline()).contains(Instant.ofEpochMilli(2_000));
+    assertThat(deserialized.reservationPrice("r3")).contains(Money.ofUnits(300));
+    assertThat(deserialized.finishedReservations().get("r1").get().status()).isEqualTo(CONFIRMED);
+    assertThat(deserialized.finishedReservations().get("r2").get().status()).isEqualTo(CANCELLED);
+    assertThat(deserialized.finishedReservations().get("r1").get().finishedAt()).isEqualTo(Instant.ofEpochMilli(4_000));
+    assertThat(deserialized.finishedReservations().get("r2").get().finishedAt()).isNull();
+  }
+
+  @Test
+  public void shouldKeepPriceTiersWithTheSamePrice() throws Exception {
+    //given
+    byte[] seatTiers = new byte[100];
+    for (int i = 50; i < 100; i++) {
+      seatTiers[i] = 1;
+    }
+    var seats = SeatInventory.available(0, 100, java.util.List.of(Money.ofUnits(100), Money.ofUnits(100)), seatTiers).update(60, RESERVED);
+    var show = new Show("show1", "title", 100, seats, PendingReservations.EMPTY, FinishedReservations.EMPTY);
+
+    //when
+    var deserialized = objectMapper.readValue(objectMapper.writeValueAsString(show), Show.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(show);
+    assertThat(deserialized.seats().priceTiers()).containsExactly(Money.ofUnits(100), Money.ofUnits(100));
+    assertThat(deserialized.seats().tierOf(10)).isEqualTo(0);
+    assertThat(deserialized.seats().tierOf(60)).isEqualTo(1);
+    assertThat(deserialized.seats().statusOf(60)).isEqualTo(RESERVED);
+  }
+
+  @Test
+  public void shouldBeSmallerThanPlainRecordFormat() throws Exception {
+    //given
+    var show = showBuilder().withRandomSeats().build();
+    var snapshot = ShowSnapshot.of(show);
+
+    //when
+    var json = objectMapper.writeValueAsString(show);
+
+    //then
+    assertThat(json.length()).isLessThan(objectMapper.writeValueAsString(show.seats().toList()).length());
+    assertThat(snapshot.statuses()).isSameAs(show.seats().statuses());
+    assertThat(snapshot.seatTiers()).isNull();
+  }
+
+  @Test
+  public void shouldMigrateUnversionedSnapshot() throws Exception {
+    //given
+    var json = """
+      {"id":"show1","title":"title",
+       "seats":{"0":{"number":0,"status":"AVAILABLE","price":100},
+                "1":{"number":1,"status":"RESERVED","price":100},
+                "2":{"number":2,"status":"PAID","price":150.5}},
+       "pendingReservations":{"res1":1},
+       "finishedReservations":{"res2":{"reservationId":"res2","seatNumber":2,"status":"CONFIRMED","confirmed":true,"cancelled":false}}}
+      """;
+
+    //when
+    var show = objectMapper.readValue(json, Show.class);
+
+    //then
+    assertThat(show.id()).isEqualTo("show1");
+    assertThat(show.totalSeats()).isEqualTo(3);
+    assertThat(show.seats().toList()).containsExactly(
+      new Seat(0, AVAILABLE, Money.ofUnits(100)),
+      new Seat(1, RESERVED, Money.ofUnits(100)),
+      new Seat(2, PAID, Money.of(new BigDecimal("150.5"))));
+    assertThat(show.pendingReservations().get("res1").get()).isEqualTo(PendingReservation.of(1, null));
+    assertThat(show.finishedReservations().get("res2").get()).isEqualTo(new FinishedReservation("res2", 2, CONFIRMED, null));
+  }
+
+  @Test
+  public void shouldRejectUnknownVersion() {
+    //given
+    var json = """
+      {"version":99,"id":"show1"}
+      """;
+
+    //when //then
+    assertThatThrownBy(() -> objectMapper.readValue(json, Show.class))
+      .hasMessageContaining("Unsupported show snapshot version 99");
+  }
+}
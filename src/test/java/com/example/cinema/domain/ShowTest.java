@@ -1,16 +1,22 @@
 package com.example.cinema.domain;
 
 import com.example.cinema.domain.ShowCommand.CancelSeatReservation;
+import com.example.cinema.domain.ShowCommand.ChangeTierPrice;
 import com.example.cinema.domain.ShowCommand.ConfirmReservationPayment;
 import com.example.cinema.domain.ShowEvent.CancelledReservationConfirmed;
 import com.example.cinema.domain.ShowEvent.SeatReservationCancelled;
 import com.example.cinema.domain.ShowEvent.SeatReservationPaid;
 import com.example.cinema.domain.ShowEvent.SeatReserved;
+import com.example.cinema.domain.ShowEvent.SeatsReservationCancelled;
+import com.example.cinema.domain.ShowEvent.SeatsReservationPaid;
+import com.example.cinema.domain.ShowEvent.SeatsReserved;
+import com.example.cinema.domain.ShowEvent.TierPriceChanged;
+import com.example.common.Money;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 
 import static com.example.cinema.domain.DomainGenerators.randomReservationId;
 import static com.example.cinema.domain.DomainGenerators.randomShow;
@@ -22,12 +28,17 @@ import static com.example.cinema.domain.SeatStatus.RESERVED;
 import static com.example.cinema.domain.ShowBuilder.showBuilder;
 import static com.example.cinema.domain.ShowCommandError.CANCELLING_CONFIRMED_RESERVATION;
 import static com.example.cinema.domain.ShowCommandError.DUPLICATED_COMMAND;
+import static com.example.cinema.domain.ShowCommandError.INVALID_PRICE;
+import static com.example.cinema.domain.ShowCommandError.NOT_ENOUGH_ADJACENT_SEATS;
+import static com.example.cinema.domain.ShowCommandError.NO_SEATS_SELECTED;
+import static com.example.cinema.domain.ShowCommandError.PRICE_TIER_NOT_EXISTS;
 import static com.example.cinema.domain.ShowCommandError.RESERVATION_NOT_FOUND;
 import static com.example.cinema.domain.ShowCommandError.SEAT_NOT_AVAILABLE;
 import static com.example.cinema.domain.ShowCommandError.SEAT_NOT_EXISTS;
 import static com.example.cinema.domain.ShowCommandError.SHOW_ALREADY_EXISTS;
 import static com.example.cinema.domain.ShowCommandGenerators.randomCreateShow;
 import static com.example.cinema.domain.ShowCommandGenerators.randomReserveSeat;
+import static java.time.temporal.ChronoUnit.MILLIS;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class ShowTest {
@@ -45,7 +56,45 @@ class ShowTest {
     //then
     assertThat(show.id()).isEqualTo(showId);
     assertThat(show.title()).isEqualTo(createShow.title());
-    assertThat(show.seats()).hasSize(createShow.maxSeats());
+    assertThat(show.seats().size()).isEqualTo(createShow.maxSeats());
+  }
+
+  @Test
+  public void shouldCreateTheShowFromEventWithSeatList() {
+    //given
+    var seats = ShowCreator.createSeats(Money.ofUnits(50), 10, 5);
+    var initialShow = new InitialShow("show1", "title", 0, 0, 0, null, null, seats);
+
+    //when
+    var show = Show.create(new ShowEvent.ShowCreated("show1", initialShow, null));
+
+    //then
+    assertThat(show.seats().toList()).isEqualTo(seats);
+    assertThat(show.totalSeats()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldChangeTierPrice() {
+    //given
+    var show = showBuilder().withRandomSeats().build();
+    var reserveSeat = randomReserveSeat();
+    var reserved = (SeatReserved) show.process(reserveSeat).rightValue();
+    show = show.apply(reserved);
+    var newPrice = reserved.price().plus(Money.ofUnits(10));
+
+    //when
+    var event = show.process(new ChangeTierPrice(0, newPrice)).rightValue();
+    var updatedShow = show.apply(event);
+
+    //then
+    assertThat(event).isEqualTo(new TierPriceChanged(show.id(), 0, newPrice));
+    assertThat(updatedShow.seats().toList()).allMatch(seat -> seat.price().equals(newPrice));
+    var now = Instant.now();
+    assertThat(updatedShow.process(new ConfirmReservationPayment(reserveSeat.reservationId()), now).rightValue())
+      .isEqualTo(new SeatReservationPaid(show.id(), reserveSeat.reservationId(), reserveSeat.seatNumber(), now.truncatedTo(MILLIS)));
+    assertThat(updatedShow.process(new ChangeTierPrice(1, newPrice)).leftValue()).isEqualTo(PRICE_TIER_NOT_EXISTS);
+    assertThat(updatedShow.process(new ChangeTierPrice(0, Money.ofUnits(-1))).leftValue()).isEqualTo(INVALID_PRICE);
+    assertThat(updatedShow.process(new ChangeTierPrice(0, newPrice)).leftValue()).isEqualTo(DUPLICATED_COMMAND);
   }
 
   @Test
@@ -67,12 +116,14 @@ class ShowTest {
     var show = randomShow();
     var reserveSeat = randomReserveSeat();
     var seatToReserve = show.getSeat(reserveSeat.seatNumber()).get();
+    var now = Instant.now();
 
     //when
-    var event = show.process(reserveSeat).rightValue();
+    var event = show.process(reserveSeat, now).rightValue();
 
     //then
-    assertThat(event).isEqualTo(new SeatReserved(show.id(), reserveSeat.walletId(), reserveSeat.reservationId(), reserveSeat.seatNumber(), seatToReserve.price()));
+    var expiresAt = now.plus(Show.HOLD_TIMEOUT).truncatedTo(MILLIS);
+    assertThat(event).isEqualTo(new SeatReserved(show.id(), reserveSeat.walletId(), reserveSeat.reservationId(), reserveSeat.seatNumber(), seatToReserve.price(), expiresAt));
   }
 
   @Test
@@ -87,9 +138,12 @@ class ShowTest {
 
     //then
     var reservedSeat = updatedShow.seats().get(reserveSeat.seatNumber()).get();
+    var expiresAt = ((SeatReserved) event).expiresAt();
     assertThat(event).isInstanceOf(SeatReserved.class);
     assertThat(reservedSeat.status()).isEqualTo(RESERVED);
-    assertThat(updatedShow.pendingReservations()).contains(new Tuple2<>(reserveSeat.reservationId(), reserveSeat.seatNumber()));
+    assertThat(updatedShow.pendingReservations()).contains(new Tuple2<>(reserveSeat.reservationId(), PendingReservation.of(reserveSeat.seatNumber(), expiresAt, ((SeatReserved) event).price())));
+    assertThat(updatedShow.reservationPrice(reserveSeat.reservationId())).contains(((SeatReserved) event).price());
+    assertThat(updatedShow.pendingReservations().nextDeadline()).contains(expiresAt);
   }
 
   @Test
@@ -136,7 +190,7 @@ class ShowTest {
   @Test
   public void shouldRejectCancellationDuplicate() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var cancelSeatReservation = new CancelSeatReservation(reservationId);
@@ -158,7 +212,7 @@ class ShowTest {
   @Test
   public void shouldConfirmAfterCancellation() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var cancelSeatReservation = new CancelSeatReservation(reservationId);
@@ -173,10 +227,26 @@ class ShowTest {
     assertThat(result).isEqualTo(new CancelledReservationConfirmed(show.id(), reservationId, reservedSeat.number()));
   }
 
+  @Test
+  public void shouldConfirmAfterCancellationWithChargedWallet() {
+    //given
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
+    var reservationId = randomReservationId();
+    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
+    var updatedShow = show.apply(show.process(new CancelSeatReservation(reservationId)).rightValue());
+    var confirmReservationPayment = new ConfirmReservationPayment(reservationId, "wallet1", Money.ofUnits(123));
+
+    //when
+    var result = updatedShow.process(confirmReservationPayment).rightValue();
+
+    //then
+    assertThat(result).isEqualTo(new CancelledReservationConfirmed(show.id(), reservationId, reservedSeat.number(), "wallet1", Money.ofUnits(123)));
+  }
+
   @Test
   public void shouldRejectConfirmationDuplicate() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
@@ -198,7 +268,7 @@ class ShowTest {
   @Test
   public void shouldRejectCancellationAfterConfirmation() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
@@ -229,17 +299,18 @@ class ShowTest {
   @Test
   public void shouldCancelSeatReservation() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var cancelSeatReservation = new CancelSeatReservation(reservationId);
+    var now = Instant.now();
 
     //when
-    var event = show.process(cancelSeatReservation).rightValue();
+    var event = show.process(cancelSeatReservation, now).rightValue();
     var updatedShow = show.apply(event);
 
     //then
-    assertThat(event).isEqualTo(new SeatReservationCancelled(show.id(), reservationId, reservedSeat.number()));
+    assertThat(event).isEqualTo(new SeatReservationCancelled(show.id(), reservationId, reservedSeat.number(), now.truncatedTo(MILLIS)));
     assertThat(updatedShow.getSeat(reservedSeat.number()).get().status()).isEqualTo(AVAILABLE);
     assertThat(updatedShow.pendingReservations().get(reservationId).isEmpty()).isTrue();
   }
@@ -247,17 +318,18 @@ class ShowTest {
   @Test
   public void shouldConfirmSeatReservation() {
     //given
-    var reservedSeat = new Seat(2, SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Seat(2, SeatStatus.RESERVED, Money.ofUnits(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
+    var now = Instant.now();
 
     //when
-    var event = show.process(confirmReservationPayment).rightValue();
+    var event = show.process(confirmReservationPayment, now).rightValue();
     var updatedShow = show.apply(event);
 
     //then
-    assertThat(event).isEqualTo(new SeatReservationPaid(show.id(), reservationId, reservedSeat.number()));
+    assertThat(event).isEqualTo(new SeatReservationPaid(show.id(), reservationId, reservedSeat.number(), now.truncatedTo(MILLIS)));
     assertThat(updatedShow.getSeat(reservedSeat.number()).get().status()).isEqualTo(PAID);
     assertThat(updatedShow.pendingReservations().get(reservationId).isEmpty()).isTrue();
   }
@@ -275,6 +347,208 @@ class ShowTest {
     assertThat(result).isEqualTo(RESERVATION_NOT_FOUND);
   }
 
+  @Test
+  public void shouldReserveGroupOfSeats() {
+    //given
+    var show = randomShow();
+    var seatNumbers = java.util.List.of(3, 4, 5);
+    var reserveSeats = new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), seatNumbers);
+    var totalPrice = show.getSeat(3).get().price()
+      .plus(show.getSeat(4).get().price())
+      .plus(show.getSeat(5).get().price());
+
+    var now = Instant.now();
+
+    //when
+    var event = show.process(reserveSeats, now).rightValue();
+    var updatedShow = show.apply(event);
+
+    //then
+    var expiresAt = now.plus(Show.HOLD_TIMEOUT).truncatedTo(MILLIS);
+    assertThat(event).isEqualTo(new SeatsReserved(show.id(), reserveSeats.walletId(), reserveSeats.reservationId(), seatNumbers, totalPrice, expiresAt));
+    assertThat(seatNumbers).allMatch(seatNumber -> updatedShow.getSeat(seatNumber).get().status() == RESERVED);
+    assertThat(updatedShow.pendingReservations().get(reserveSeats.reservationId()).get()).isEqualTo(new PendingReservation(seatNumbers, expiresAt, totalPrice));
+  }
+
+  @Test
+  public void shouldNotReserveGroupIfAnySeatIsNotAvailable() {
+    //given
+    var reservedSeat = new Seat(4, SeatStatus.RESERVED, Money.ofUnits(123));
+    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, randomReservationId()).build();
+
+    //when
+    var notAvailable = show.process(new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), java.util.List.of(3, 4, 5))).leftValue();
+    var notExisting = show.process(new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), java.util.List.of(3, ShowBuilder.MAX_SEATS))).leftValue();
+    var selectedTwice = show.process(new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), java.util.List.of(3, 3))).leftValue();
+    var noSeats = show.process(new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), java.util.List.of())).leftValue();
+
+    //then
+    assertThat(notAvailable).isEqualTo(SEAT_NOT_AVAILABLE);
+    assertThat(notExisting).isEqualTo(SEAT_NOT_EXISTS);
+    assertThat(selectedTwice).isEqualTo(SEAT_NOT_AVAILABLE);
+    assertThat(noSeats).isEqualTo(NO_SEATS_SELECTED);
+  }
+
+  @Test
+  public void shouldReserveSingleSeatGroupAsSeat() {
+    //given
+    var show = randomShow();
+    var reserveSeats = new ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), java.util.List.of(3));
+    var now = Instant.now();
+
+    //when
+    var event = show.process(reserveSeats, now).rightValue();
+
+    //then
+    var expiresAt = now.plus(Show.HOLD_TIMEOUT).truncatedTo(MILLIS);
+    assertThat(event).isEqualTo(new SeatReserved(show.id(), reserveSeats.walletId(), reserveSeats.reservationId(), 3, show.getSeat(3).get().price(), expiresAt));
+  }
+
+  @Test
+  public void shouldReserveBestAdjacentSeats() {
+    //given
+    var show = showBuilder().withRandomSeats()
+      .withSeatReservation(new Seat(1, SeatStatus.RESERVED, Money.ofUnits(100)), randomReservationId())
+      .withSeatReservation(new Seat(4, SeatStatus.RESERVED, Money.ofUnits(100)), randomReservationId())
+      .build();
+    var reserveBestSeats = new ShowCommand.ReserveBestSeats(randomWalletId(), randomReservationId(), 3);
+
+    //when
+    var event = show.process(reserveBestSeats).rightValue();
+
+    //then
+    assertThat(event).isInstanceOf(SeatsReserved.class);
+    assertThat(((SeatsReserved) event).seatNumbers()).containsExactly(5, 6, 7);
+    assertThat(show.apply(event).findBestSeats(3).get()).containsExactly(8, 9, 10);
+  }
+
+  @Test
+  public void shouldRejectBestSeatsWhenThereIsNoRunLongEnough() {
+    //given
+    var show = randomShow();
+    var reserveBestSeats = new ShowCommand.ReserveBestSeats(randomWalletId(), randomReservationId(), ShowBuilder.MAX_SEATS + 1);
+
+    //when
+    var error = show.process(reserveBestSeats).leftValue();
+
+    //then
+    assertThat(error).isEqualTo(NOT_ENOUGH_ADJACENT_SEATS);
+  }
+
+  @Test
+  public void shouldConfirmAndCancelGroupReservation() {
+    //given
+    var show = randomShow();
+    var seatNumbers = java.util.List.of(10, 11);
+    var confirmedReservationId = randomReservationId();
+    var cancelledReservationId = randomReservationId();
+    var withReservations = apply(show, List.of(
+      show.process(new ShowCommand.ReserveSeats(randomWalletId(), confirmedReservationId, seatNumbers)).rightValue(),
+      show.process(new ShowCommand.ReserveSeats(randomWalletId(), cancelledReservationId, java.util.List.of(20, 21))).rightValue()));
+
+    var now = Instant.now();
+
+    //when
+    var paid = withReservations.process(new ConfirmReservationPayment(confirmedReservationId), now).rightValue();
+    var cancelled = withReservations.process(new CancelSeatReservation(cancelledReservationId), now).rightValue();
+    var updatedShow = apply(withReservations, List.of(paid, cancelled));
+
+    //then
+    var finishedAt = now.truncatedTo(MILLIS);
+    assertThat(paid).isEqualTo(new SeatsReservationPaid(show.id(), confirmedReservationId, seatNumbers, finishedAt));
+    assertThat(cancelled).isEqualTo(new SeatsReservationCancelled(show.id(), cancelledReservationId, java.util.List.of(20, 21), finishedAt));
+    assertThat(updatedShow.getSeat(10).get().status()).isEqualTo(PAID);
+    assertThat(updatedShow.getSeat(11).get().status()).isEqualTo(PAID);
+    assertThat(updatedShow.getSeat(20).get().status()).isEqualTo(AVAILABLE);
+    assertThat(updatedShow.getSeat(21).get().status()).isEqualTo(AVAILABLE);
+    assertThat(updatedShow.pendingReservations()).isEmpty();
+    assertThat(updatedShow.process(new ConfirmReservationPayment(cancelledReservationId)).rightValue())
+      .isEqualTo(new CancelledReservationConfirmed(show.id(), cancelledReservationId, 20));
+  }
+
+  @Test
+  public void shouldExpireHoldsPastTheirDeadline() {
+    //given
+    var show = randomShow();
+    var now = Instant.now();
+    var first = randomReservationId();
+    var second = randomReservationId();
+    var group = randomReservationId();
+    var notExpired = randomReservationId();
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), first, 1), now).rightValue());
+    show = show.apply(show.process(new ShowCommand.ReserveSeats(randomWalletId(), group, java.util.List.of(5, 6)), now.plusSeconds(1)).rightValue());
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), second, 2), now.plusSeconds(2)).rightValue());
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), notExpired, 3), now.plusSeconds(60)).rightValue());
+    var afterDeadlines = now.plus(Show.HOLD_TIMEOUT).plusSeconds(2);
+
+    //when
+    var firstBatch = show.expireHolds(afterDeadlines, 2);
+    var afterFirstBatch = apply(show, List.ofAll(firstBatch));
+    var secondBatch = afterFirstBatch.expireHolds(afterDeadlines, 2);
+    var updatedShow = apply(afterFirstBatch, List.ofAll(secondBatch));
+
+    //then
+    var finishedAt = afterDeadlines.truncatedTo(MILLIS);
+    assertThat(firstBatch).containsExactly(
+      new SeatReservationCancelled(show.id(), first, 1, finishedAt),
+      new SeatsReservationCancelled(show.id(), group, java.util.List.of(5, 6), finishedAt));
+    assertThat(secondBatch).containsExactly(new SeatReservationCancelled(show.id(), second, 2, finishedAt));
+    assertThat(updatedShow.expireHolds(afterDeadlines, 2)).isEmpty();
+    assertThat(updatedShow.pendingReservations().size()).isEqualTo(1);
+    assertThat(updatedShow.pendingReservations().containsKey(notExpired)).isTrue();
+    assertThat(updatedShow.getSeat(1).get().status()).isEqualTo(AVAILABLE);
+    assertThat(updatedShow.getSeat(5).get().status()).isEqualTo(AVAILABLE);
+    assertThat(updatedShow.getSeat(3).get().status()).isEqualTo(RESERVED);
+    assertThat(updatedShow.process(new ConfirmReservationPayment(first)).rightValue())
+      .isEqualTo(new CancelledReservationConfirmed(show.id(), first, 1));
+  }
+
+  @Test
+  public void shouldKeepFinishedReservationsBounded() {
+    //given
+    var show = randomShow();
+    var seatNumber = 7;
+    String lastReservationId = null;
+
+    //when
+    for (int i = 0; i < 200_000; i++) {
+      lastReservationId = randomReservationId();
+      show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), lastReservationId, seatNumber)).rightValue());
+      show = show.apply(show.process(new CancelSeatReservation(lastReservationId)).rightValue());
+    }
+
+    //then
+    assertThat(show.finishedReservations().size()).isEqualTo(FinishedReservations.MAX_SIZE);
+    assertThat(show.pendingReservations()).isEmpty();
+    assertThat(show.getSeat(seatNumber).get().status()).isEqualTo(AVAILABLE);
+    assertThat(show.process(new CancelSeatReservation(lastReservationId)).leftValue()).isEqualTo(DUPLICATED_COMMAND);
+  }
+
+  @Test
+  public void shouldEvictFinishedReservationsAfterRetention() {
+    //given
+    var show = randomShow();
+    var now = Instant.now();
+    var expired = randomReservationId();
+    var retained = randomReservationId();
+    var last = randomReservationId();
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), expired, 1), now).rightValue());
+    show = show.apply(show.process(new CancelSeatReservation(expired), now).rightValue());
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), retained, 2), now.plusSeconds(60)).rightValue());
+    show = show.apply(show.process(new ConfirmReservationPayment(retained), now.plusSeconds(60)).rightValue());
+    var afterRetention = now.plus(FinishedReservations.RETENTION).plusSeconds(1);
+
+    //when
+    show = show.apply(show.process(new ShowCommand.ReserveSeat(randomWalletId(), last, 3), afterRetention).rightValue());
+    show = show.apply(show.process(new CancelSeatReservation(last), afterRetention).rightValue());
+
+    //then
+    assertThat(show.finishedReservations().size()).isEqualTo(2);
+    assertThat(show.process(new CancelSeatReservation(expired), afterRetention).leftValue()).isEqualTo(RESERVATION_NOT_FOUND);
+    assertThat(show.process(new ConfirmReservationPayment(retained), afterRetention).leftValue()).isEqualTo(DUPLICATED_COMMAND);
+    assertThat(show.process(new CancelSeatReservation(last), afterRetention).leftValue()).isEqualTo(DUPLICATED_COMMAND);
+  }
+
   private Show apply(Show show, List<ShowEvent> events) {
     return events.foldLeft(show, Show::apply);
   }
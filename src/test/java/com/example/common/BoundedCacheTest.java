@@ -0,0 +1,76 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+  static class TestClock extends Clock {
+    private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntry() {
+    //given
+    var cache = new BoundedCache<String, Integer>(2, Duration.ofMinutes(1));
+    cache.put("a", 1);
+    cache.put("b", 2);
+
+    //when
+    cache.get("a");
+    cache.put("c", 3);
+
+    //then
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("a")).contains(1);
+    assertThat(cache.get("b")).isEmpty();
+    assertThat(cache.get("c")).contains(3);
+  }
+
+  @Test
+  public void shouldExpireEntriesAfterTimeToLive() {
+    //given
+    var clock = new TestClock();
+    var cache = new BoundedCache<String, Integer>(10, Duration.ofMinutes(1), clock);
+    cache.put("a", 1);
+
+    //when
+    clock.advance(Duration.ofSeconds(30));
+    cache.computeIfPresent("a", value -> value + 1);
+    cache.computeIfPresent("b", value -> value + 1);
+    var beforeExpiry = cache.get("a");
+    clock.advance(Duration.ofSeconds(30));
+
+    //then
+    assertThat(beforeExpiry).contains(2);
+    assertThat(cache.get("a")).isEmpty();
+    assertThat(cache.get("b")).isEmpty();
+    assertThat(cache.size()).isZero();
+  }
+}
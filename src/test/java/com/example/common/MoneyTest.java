@@ -0,0 +1,58 @@
+package com.example.common;
+
+import com.example.wallet.domain.WalletEvent.WalletCharged;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @Test
+  public void shouldAddAndSubtractInMinorUnits() {
+    //given
+    var balance = Money.of(new BigDecimal("100.25"));
+
+    //when
+    var updated = balance.minus(Money.of(new BigDecimal("10.5"))).plus(Money.ofUnits(1));
+
+    //then
+    assertThat(updated).isEqualTo(Money.ofMinor(9075));
+    assertThat(updated.toBigDecimal()).isEqualTo(new BigDecimal("90.75"));
+    assertThat(Money.ofUnits(3).isLessThan(Money.of(new BigDecimal("3.01")))).isTrue();
+  }
+
+  @Test
+  public void shouldRejectAmountWithMoreDecimalPlaces() {
+    assertThatThrownBy(() -> Money.of(new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  public void shouldValidateExternalAmounts() {
+    assertThat(Money.isValid(new BigDecimal("12.34"))).isTrue();
+    assertThat(Money.isValid(new BigDecimal("12.3400"))).isTrue();
+    assertThat(Money.isValid(new BigDecimal("12.345"))).isFalse();
+    assertThat(Money.isValid(new BigDecimal("1e20"))).isFalse();
+    assertThat(Money.isValid(null)).isFalse();
+  }
+
+  @Test
+  public void shouldKeepJsonFormatOfDecimalAmounts() throws Exception {
+    //given
+    var json = """
+      {"walletId":"1","amount":10.5,"expenseId":"e1","commandId":"c1","chargedAt":null}""";
+
+    //when
+    var charged = objectMapper.readValue(json, WalletCharged.class);
+
+    //then
+    assertThat(charged.amount()).isEqualTo(Money.ofMinor(1050));
+    assertThat(objectMapper.writeValueAsString(charged)).isEqualTo(json);
+    assertThat(objectMapper.writeValueAsString(Money.ofUnits(100))).isEqualTo("100");
+  }
+}
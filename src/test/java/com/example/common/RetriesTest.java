@@ -0,0 +1,124 @@
+package com.example.common;
+
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetriesTest {
+
+  private final Retries retries = new Retries(ConfigFactory.parseString("""
+    default {
+      max-attempts = 3
+      min-backoff = 10 millis
+      max-backoff = 40 millis
+      random-factor = 0.5
+      min-timeout = 50 millis
+      max-timeout = 200 millis
+      timeout-percentile = 0.99
+      timeout-factor = 2
+    }
+    charge-wallet {
+      max-attempts = 5
+    }
+    """));
+
+  @Test
+  public void shouldUseDefaultPolicyAsFallback() {
+    //when
+    var policy = retries.policy("charge-wallet");
+
+    //then
+    assertThat(policy.maxAttempts()).isEqualTo(5);
+    assertThat(policy.minBackoff()).isEqualTo(Duration.ofMillis(10));
+    assertThat(retries.policy("reserve-seat")).isEqualTo(retries.policy(Retries.DEFAULT_POLICY));
+  }
+
+  @Test
+  public void shouldBackOffExponentiallyWithJitterUpToMaxBackoff() {
+    //given
+    var policy = retries.policy(Retries.DEFAULT_POLICY);
+
+    //then
+    assertThat(policy.backoff(1, 0)).isEqualTo(Duration.ofMillis(10));
+    assertThat(policy.backoff(2, 0)).isEqualTo(Duration.ofMillis(20));
+    assertThat(policy.backoff(2, 0.99)).isBetween(Duration.ofMillis(20), Duration.ofMillis(30));
+    assertThat(policy.backoff(10, 0)).isEqualTo(Duration.ofMillis(40));
+    assertThat(policy.budget()).isEqualTo(Duration.ofMillis(3 * 200 + 15 + 30));
+  }
+
+  @Test
+  public void shouldDeriveTimeoutFromObservedLatency() {
+    //given
+    var policy = retries.policy(Retries.DEFAULT_POLICY);
+    var latencies = new LatencyWindow(100);
+
+    //when
+    var timeoutWithoutSamples = policy.timeout(latencies);
+    for (int i = 1; i <= 100; i++) {
+      latencies.record(Duration.ofMillis(i));
+    }
+
+    //then
+    assertThat(timeoutWithoutSamples).isEqualTo(policy.maxTimeout());
+    assertThat(latencies.percentile(0.5)).contains(Duration.ofMillis(50));
+    assertThat(policy.timeout(latencies)).isEqualTo(Duration.ofMillis(99 * 2));
+  }
+
+  @Test
+  public void shouldRetryFailedCallsOnly() {
+    //given
+    var calls = new AtomicInteger();
+
+    //when
+    var result = retries.call("charge-wallet", () -> calls.incrementAndGet() < 3
+      ? CompletableFuture.failedFuture(new IllegalStateException("failed"))
+      : CompletableFuture.completedFuture(Response.Failure.of("rejected")));
+
+    //then
+    assertThat(result.toCompletableFuture().join()).isEqualTo(Response.Failure.of("rejected"));
+    assertThat(calls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldFailAfterMaxAttemptsOfTimedOutCalls() {
+    //given
+    var calls = new AtomicInteger();
+
+    //when
+    CompletionStage<String> result = retries.call("reserve-seat", () -> {
+      calls.incrementAndGet();
+      return new CompletableFuture<>();
+    });
+
+    //then
+    assertThatThrownBy(() -> result.toCompletableFuture().join()).hasCauseInstanceOf(TimeoutException.class);
+    assertThat(calls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldRecordTimeoutAsLatencyOfFailedCalls() {
+    //given
+    var policy = retries.policy("seat-hold");
+    var latencies = retries.latencies("seat-hold");
+    for (int i = 0; i < LatencyWindow.MIN_SAMPLES; i++) {
+      latencies.record(Duration.ofMillis(10));
+    }
+    var timeoutOfFastCalls = policy.timeout(latencies);
+
+    //when
+    var result = retries.call("seat-hold", () -> CompletableFuture.failedFuture(new IllegalStateException("failed")));
+
+    //then
+    assertThatThrownBy(() -> result.toCompletableFuture().join()).hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(timeoutOfFastCalls).isEqualTo(policy.minTimeout());
+    assertThat(policy.timeout(latencies)).isEqualTo(policy.maxTimeout());
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.common;
+
+import com.example.cinema.domain.Seat;
+import com.example.wallet.domain.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import org.junit.jupiter.api.Test;
+
+import static com.example.cinema.domain.SeatStatus.AVAILABLE;
+import static com.example.cinema.domain.SeatStatus.RESERVED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VavrModuleTest {
+
+  record Seats(Map<Integer, Seat> seats) {
+  }
+
+  record Expenses(LinkedHashMap<String, Expense> expenses) {
+  }
+
+  record AnnotatedSeats(@JsonSerialize(using = VavrMapSerializer.class)
+                        @JsonDeserialize(using = VavrMapDeserializer.class)
+                        Map<Integer, Seat> seats) {
+  }
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new VavrModule());
+
+  @Test
+  public void shouldDeserializeTypedKeysAndValues() throws Exception {
+    //given
+    var seats = new Seats(HashMap.of(
+      1, new Seat(1, AVAILABLE, Money.ofUnits(100)),
+      2, new Seat(2, RESERVED, Money.ofUnits(150))));
+
+    //when
+    var json = objectMapper.writeValueAsString(seats);
+    var deserialized = objectMapper.readValue(json, Seats.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(seats);
+    assertThat(deserialized.seats().keySet().head()).isInstanceOf(Integer.class);
+    assertThat(deserialized.seats().values().head()).isInstanceOf(Seat.class);
+  }
+
+  @Test
+  public void shouldKeepMapImplementation() throws Exception {
+    //given
+    var expenses = new Expenses(LinkedHashMap.of(
+      "b", new Expense("b", Money.ofUnits(10)),
+      "a", new Expense("a", Money.ofUnits(20))));
+
+    //when
+    var deserialized = objectMapper.readValue(objectMapper.writeValueAsString(expenses), Expenses.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(expenses);
+    assertThat(deserialized.expenses().keySet().toJavaList()).containsExactly("b", "a");
+  }
+
+  @Test
+  public void shouldWorkWithAnnotationsWithoutModule() throws Exception {
+    //given
+    var plainObjectMapper = new ObjectMapper();
+    var seats = new AnnotatedSeats(HashMap.of(7, new Seat(7, AVAILABLE, Money.ofUnits(100))));
+
+    //when
+    var json = plainObjectMapper.writeValueAsString(seats);
+    var deserialized = plainObjectMapper.readValue(json, AnnotatedSeats.class);
+
+    //then
+    assertThat(json).isEqualTo("{\"seats\":{\"7\":{\"number\":7,\"status\":\"AVAILABLE\",\"price\":100}}}");
+    assertThat(deserialized).isEqualTo(seats);
+  }
+
+  @Test
+  public void shouldDeserializeWithoutDeclaredType() throws Exception {
+    //given
+    var ctxt = ((DefaultDeserializationContext) objectMapper.getDeserializationContext())
+      .createDummyInstance(objectMapper.getDeserializationConfig());
+    var parser = objectMapper.createParser("{\"a\":1}");
+    parser.nextToken();
+
+    //when
+    var deserializer = new VavrMapDeserializer().createContextual(ctxt, null);
+    var deserialized = deserializer.deserialize(parser, ctxt);
+
+    //then
+    assertThat(deserialized).isEqualTo(HashMap.of("a", 1));
+  }
+
+  @Test
+  public void shouldDeserializeEmptyAndNullValues() throws Exception {
+    //given
+    var json = "{\"seats\":{\"1\":null}}";
+
+    //when
+    var deserialized = objectMapper.readValue(json, Seats.class);
+    var empty = objectMapper.readValue("{\"seats\":{}}", Seats.class);
+
+    //then
+    assertThat(deserialized.seats().get(1).get()).isNull();
+    assertThat(empty.seats()).isEmpty();
+  }
+}
@@ -2,6 +2,7 @@ package com.example.wallet.application;
 
 import akka.javasdk.testkit.EventSourcedResult;
 import akka.javasdk.testkit.EventSourcedTestKit;
+import com.example.common.Money;
 import com.example.common.Response;
 import com.example.wallet.domain.Wallet;
 import com.example.wallet.domain.WalletCommand;
@@ -9,24 +10,25 @@ import com.example.wallet.domain.WalletCommand.CreateWallet;
 import com.example.wallet.domain.WalletEvent;
 import com.example.wallet.domain.WalletEvent.WalletCharged;
 import com.example.wallet.domain.WalletEvent.WalletCreated;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
-
 import static com.example.cinema.domain.DomainGenerators.randomCommandId;
 import static com.example.cinema.domain.DomainGenerators.randomWalletId;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class WalletEntityTest {
 
+  private final Config config = ConfigFactory.load();
 
   @Test
   public void shouldCreateWallet() {
     //given
     var walletId = randomWalletId();
     var initialBalance = 100;
-    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, WalletEntity::new);
-    CreateWallet createWallet = new CreateWallet(walletId, BigDecimal.valueOf(100));
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, () -> new WalletEntity(config));
+    CreateWallet createWallet = new CreateWallet(walletId, Money.ofUnits(100));
 
     //when
     EventSourcedResult<Response> result = testKit.method(WalletEntity::create).invoke(createWallet);
@@ -36,17 +38,17 @@ class WalletEntityTest {
     assertThat(result.isReply()).isTrue();
     assertThat(created.initialBalance()).isEqualTo(createWallet.initialBalance());
 //    assertThat(testKit.getState().id()).isEqualTo(walletId);
-    assertThat(testKit.getState().balance()).isEqualTo(BigDecimal.valueOf(initialBalance));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.ofUnits(initialBalance));
   }
 
   @Test
   public void shouldChargeWallet() {
     //given
     var walletId = randomWalletId();
-    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, WalletEntity::new);
-    CreateWallet createWallet = new CreateWallet(walletId, BigDecimal.valueOf(100));
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, () -> new WalletEntity(config));
+    CreateWallet createWallet = new CreateWallet(walletId, Money.ofUnits(100));
     testKit.method(WalletEntity::create).invoke(createWallet);
-    var chargeWallet = new WalletCommand.ChargeWallet(new BigDecimal(10), "r1", randomCommandId());
+    var chargeWallet = new WalletCommand.ChargeWallet(Money.ofUnits(10), "r1", randomCommandId());
 
     //when
     EventSourcedResult<Response> result = testKit.method(WalletEntity::charge).invoke(chargeWallet);
@@ -57,17 +59,17 @@ class WalletEntityTest {
     assertThat(charged.amount()).isEqualTo(chargeWallet.amount());
     assertThat(charged.expenseId()).isEqualTo(chargeWallet.expenseId());
 //    assertThat(testKit.getState().id()).isEqualTo(walletId);
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(90));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.ofUnits(90));
   }
 
   @Test
   public void shouldIgnoreChargeDuplicate() {
     //given
     var walletId = randomWalletId();
-    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, WalletEntity::new);
-    CreateWallet createWallet = new CreateWallet(walletId, BigDecimal.valueOf(100));
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, () -> new WalletEntity(config));
+    CreateWallet createWallet = new CreateWallet(walletId, Money.ofUnits(100));
     testKit.method(WalletEntity::create).invoke(createWallet);
-    var chargeWallet = new WalletCommand.ChargeWallet(new BigDecimal(10), "r1", randomCommandId());
+    var chargeWallet = new WalletCommand.ChargeWallet(Money.ofUnits(10), "r1", randomCommandId());
     testKit.method(WalletEntity::charge).invoke(chargeWallet);
 
     //when
@@ -76,17 +78,17 @@ class WalletEntityTest {
     //then
     assertThat(result.isReply()).isTrue();
     assertThat(result.didPersistEvents()).isFalse();
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(90));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.ofUnits(90));
   }
 
   @Test
   public void shouldRefundWallet() {
     //given
     var walletId = randomWalletId();
-    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, WalletEntity::new);
-    CreateWallet createWallet = new CreateWallet(walletId, BigDecimal.valueOf(100));
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, () -> new WalletEntity(config));
+    CreateWallet createWallet = new CreateWallet(walletId, Money.ofUnits(100));
     testKit.method(WalletEntity::create).invoke(createWallet);
-    var chargeWallet = new WalletCommand.ChargeWallet(new BigDecimal(10), "r1", randomCommandId());
+    var chargeWallet = new WalletCommand.ChargeWallet(Money.ofUnits(10), "r1", randomCommandId());
     testKit.method(WalletEntity::charge).invoke(chargeWallet);
     var refund = new WalletCommand.Refund("r1", randomCommandId());
 
@@ -96,6 +98,21 @@ class WalletEntityTest {
     //then
     assertThat(refundResult.isReply()).isTrue();
     assertThat(refundResult.didPersistEvents()).isTrue();
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(100));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.ofUnits(100));
+  }
+
+  @Test
+  public void shouldRejectRefundOfUnknownExpense() {
+    //given
+    var walletId = randomWalletId();
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(walletId, () -> new WalletEntity(config));
+    testKit.method(WalletEntity::create).invoke(new CreateWallet(walletId, Money.ofUnits(100)));
+
+    //when
+    EventSourcedResult<Response> refundResult = testKit.method(WalletEntity::refund).invoke(new WalletCommand.Refund("unknown", randomCommandId()));
+
+    //then
+    assertThat(refundResult.getReply()).isEqualTo(Response.Failure.of("EXPENSE_NOT_FOUND"));
+    assertThat(refundResult.didPersistEvents()).isFalse();
   }
-}
\ No newline at end of file
+}
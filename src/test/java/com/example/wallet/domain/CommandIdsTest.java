@@ -0,0 +1,113 @@
+package com.example.wallet.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandIdsTest {
+
+  @Test
+  public void shouldEvictOldestCommandIdWhenFull() {
+    //given
+    var commandIds = CommandIds.empty(3);
+
+    //when
+    commandIds.add("c1");
+    commandIds.add("c2");
+    commandIds.add("c3");
+    commandIds.add("c2");
+    commandIds.add("c4");
+
+    //then
+    assertThat(commandIds.size()).isEqualTo(3);
+    assertThat(commandIds.contains("c1")).isFalse();
+    assertThat(commandIds.contains("c2")).isTrue();
+    assertThat(commandIds.contains("c3")).isTrue();
+    assertThat(commandIds.contains("c4")).isTrue();
+  }
+
+  @Test
+  public void shouldEvictCommandIdsOlderThanMaxAge() {
+    //given
+    var commandIds = CommandIds.empty(10, Duration.ofMinutes(5));
+    var now = Instant.ofEpochMilli(1_000_000);
+
+    //when
+    commandIds.add("c1", now);
+    commandIds.add("c2", now.plus(Duration.ofMinutes(3)));
+    commandIds.add("c3", now.plus(Duration.ofMinutes(6)));
+
+    //then
+    assertThat(commandIds.size()).isEqualTo(2);
+    assertThat(commandIds.contains("c1")).isFalse();
+    assertThat(commandIds.contains("c2")).isTrue();
+    assertThat(commandIds.contains("c3")).isTrue();
+  }
+
+  @Test
+  public void shouldKeepNewestCommandIdsWithSmallerCapacity() {
+    //given
+    var commandIds = CommandIds.empty(3);
+    List.of("c1", "c2", "c3").forEach(commandIds::add);
+
+    //when
+    var limited = commandIds.withLimits(2, Duration.ofMinutes(5));
+
+    //then
+    assertThat(limited.capacity()).isEqualTo(2);
+    assertThat(limited.maxAge()).isEqualTo(Duration.ofMinutes(5));
+    assertThat(limited.contains("c1")).isFalse();
+    assertThat(limited.contains("c2")).isTrue();
+    assertThat(limited.contains("c3")).isTrue();
+  }
+
+  @Test
+  public void shouldBehaveLikeBoundedInsertionOrderedSet() {
+    //given
+    var random = new Random(42);
+    var commandIds = CommandIds.empty(100);
+    var expected = new LinkedHashSet<String>();
+    var allIds = new ArrayList<String>();
+
+    //when //then
+    for (int i = 0; i < 10_000; i++) {
+      String commandId = random.nextInt(4) == 0 && !allIds.isEmpty()
+        ? allIds.get(random.nextInt(allIds.size()))
+        : UUID.randomUUID().toString();
+      allIds.add(commandId);
+      assertThat(commandIds.contains(commandId)).isEqualTo(expected.contains(commandId));
+      if (!expected.contains(commandId)) {
+        if (expected.size() == 100) {
+          expected.removeFirst();
+        }
+        expected.add(commandId);
+      }
+      commandIds.add(commandId);
+    }
+    assertThat(allIds).allMatch(commandId -> commandIds.contains(commandId) == expected.contains(commandId));
+  }
+
+  @Test
+  public void shouldStoreEachCommandIdIn16Bytes() {
+    //given
+    var commandIds = CommandIds.empty(10);
+    List.of(UUID.randomUUID().toString(), "reservation-1", UUID.randomUUID().toString()).forEach(commandIds::add);
+
+    //when
+    var bytes = commandIds.toBytes();
+    var restored = CommandIds.of(10, bytes);
+
+    //then
+    assertThat(bytes).hasSize(3 * CommandIds.ID_BYTES);
+    assertThat(restored).isEqualTo(commandIds);
+    assertThat(restored.contains("reservation-1")).isTrue();
+  }
+}
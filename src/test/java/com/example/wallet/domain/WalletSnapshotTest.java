@@ -0,0 +1,97 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.example.cinema.domain.DomainGenerators.randomCommandId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletSnapshotTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldSerializeAndDeserializeWallet() throws Exception {
+    //given
+    var commandId = randomCommandId();
+    var wallet = new Wallet("1", Money.ofUnits(100))
+      .apply(new WalletEvent.WalletCharged("1", Money.of(new BigDecimal("10.5")), "expense1", commandId, null))
+      .apply(new WalletEvent.WalletCharged("1", Money.ofUnits(20), "expense2", "not-a-uuid", Instant.ofEpochMilli(1000)))
+      .apply(new WalletEvent.WalletCharged("1", Money.ofUnits(5), "expense3", randomCommandId(), Instant.ofEpochMilli(2000)))
+      .apply(new WalletEvent.ChargeAuthorized("1", Money.ofUnits(7), "expense4", randomCommandId(), Instant.ofEpochMilli(3000)));
+
+    //when
+    var json = objectMapper.writeValueAsString(wallet);
+    var deserialized = objectMapper.readValue(json, Wallet.class);
+
+    //then
+    assertThat(objectMapper.readTree(json).get("version").asInt()).isEqualTo(WalletSnapshot.CURRENT_VERSION);
+    assertThat(deserialized).isEqualTo(wallet);
+    assertThat(deserialized.commandIds().contains(commandId)).isTrue();
+    assertThat(deserialized.commandIds().contains("not-a-uuid")).isTrue();
+    assertThat(deserialized.expenses().keySet().toJavaList()).containsExactly("expense1", "expense2", "expense3");
+    assertThat(deserialized.expenses().get("expense1").get().chargedAt()).isEqualTo(Instant.ofEpochMilli(1000));
+    assertThat(deserialized.holds().get("expense4").get()).isEqualTo(new Hold("expense4", Money.ofUnits(7)));
+  }
+
+  @Test
+  public void shouldKeepCommandIdsLimits() throws Exception {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(100))
+      .withCommandIdsLimits(10, Duration.ofMinutes(5))
+      .apply(new WalletEvent.FundsDeposited("1", Money.ofUnits(10), "deposit1", Instant.ofEpochMilli(1000)));
+
+    //when
+    var deserialized = objectMapper.readValue(objectMapper.writeValueAsString(wallet), Wallet.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(wallet);
+    assertThat(deserialized.commandIds().capacity()).isEqualTo(10);
+    assertThat(deserialized.commandIds().maxAge()).isEqualTo(Duration.ofMinutes(5));
+    assertThat(deserialized.commandIds().addedAt()).containsExactly(1000);
+  }
+
+  @Test
+  public void shouldKeepSettledExpenseIds() throws Exception {
+    //given
+    var charged = Instant.ofEpochMilli(1000);
+    var wallet = new Wallet("1", Money.ofUnits(100))
+      .apply(new WalletEvent.WalletCharged("1", Money.ofUnits(10), "expense1", randomCommandId(), charged))
+      .apply(new WalletEvent.WalletCharged("1", Money.ofUnits(10), "expense2", randomCommandId(), charged.plus(Wallet.REFUND_WINDOW).plusMillis(1)));
+
+    //when
+    var deserialized = objectMapper.readValue(objectMapper.writeValueAsString(wallet), Wallet.class);
+
+    //then
+    assertThat(deserialized).isEqualTo(wallet);
+    assertThat(deserialized.process(new WalletCommand.Refund("expense1", randomCommandId())).leftValue())
+      .isEqualTo(WalletCommandError.EXPENSE_SETTLED);
+  }
+
+  @Test
+  public void shouldMigrateUnversionedSnapshot() throws Exception {
+    //given
+    var json = """
+      {"id":"1","balance":69.5,
+       "expenses":{"expense1":{"expenseId":"expense1","amount":10.5},"expense2":{"expenseId":"expense2","amount":20}},
+       "commandIds":["c1","c2"]}
+      """;
+
+    //when
+    var wallet = objectMapper.readValue(json, Wallet.class);
+
+    //then
+    assertThat(wallet.id()).isEqualTo("1");
+    assertThat(wallet.balance()).isEqualTo(Money.of(new BigDecimal("69.5")));
+    assertThat(wallet.expenses().get("expense1").get()).isEqualTo(new Expense("expense1", Money.of(new BigDecimal("10.5"))));
+    assertThat(wallet.expenses().get("expense2").get()).isEqualTo(new Expense("expense2", Money.ofUnits(20)));
+    assertThat(wallet.commandIds().size()).isEqualTo(2);
+    assertThat(wallet.commandIds().contains("c1")).isTrue();
+    assertThat(wallet.commandIds().contains("c2")).isTrue();
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.wallet.domain;
+
+import com.example.common.Money;
+import com.example.wallet.domain.WalletRebalance.Transfer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletStripesTest {
+
+  @Test
+  public void shouldSplitAmountBetweenStripes() {
+    //when
+    var parts = WalletStripes.split(Money.of(new BigDecimal("100.01")), 3);
+
+    //then
+    assertThat(parts).containsExactly(Money.ofMinor(3334), Money.ofMinor(3334), Money.ofMinor(3333));
+    assertThat(parts.stream().reduce(Money.ZERO, Money::plus)).isEqualTo(Money.of(new BigDecimal("100.01")));
+  }
+
+  @Test
+  public void shouldPinExpenseToOneStripe() {
+    //when
+    var stripe = WalletStripes.stripeOf("expense-1", 4);
+
+    //then
+    assertThat(stripe).isBetween(0, 3);
+    assertThat(WalletStripes.stripeOf("expense-1", 4)).isEqualTo(stripe);
+  }
+
+  @Test
+  public void shouldResolveWalletIdOfStripe() {
+    //given
+    var stripeId = WalletStripes.stripeId("w1", 7);
+
+    //when
+    var walletId = WalletStripes.walletIdOf(stripeId);
+
+    //then
+    assertThat(walletId).isEqualTo("w1");
+    assertThat(WalletStripes.walletIdOf("w1")).isEqualTo("w1");
+    assertThat(WalletStripes.isValidWalletId(stripeId)).isFalse();
+  }
+
+  @Test
+  public void shouldPlanTransfersFromStripesAboveEqualBalance() {
+    //given
+    var rebalance = WalletRebalance.of("w1", 4);
+    var balances = List.of(Money.ofUnits(70), Money.ZERO, Money.ofUnits(30), Money.ZERO);
+
+    //when
+    var planned = rebalance.withPlan(balances);
+
+    //then
+    assertThat(planned.transfers()).containsExactly(
+      new Transfer(0, 1, Money.ofUnits(25)),
+      new Transfer(0, 3, Money.ofUnits(20)),
+      new Transfer(2, 3, Money.ofUnits(5)));
+    assertThat(planned.next().next().next().isDone()).isTrue();
+  }
+
+  @Test
+  public void shouldConsolidateFundsForChargeLargerThanStripe() {
+    //given
+    var consolidation = WalletRebalance.consolidation("w1", 4, 1, Money.ofUnits(60));
+    var balances = List.of(Money.ofUnits(10), Money.ofUnits(20), Money.ofUnits(25), Money.ofUnits(15));
+
+    //when
+    var planned = consolidation.withPlan(balances);
+
+    //then
+    assertThat(consolidation.isDone()).isFalse();
+    assertThat(planned.transfers()).containsExactly(
+      new Transfer(2, 1, Money.ofUnits(25)),
+      new Transfer(3, 1, Money.ofUnits(15)));
+  }
+
+  @Test
+  public void shouldNotConsolidateWhenTotalBalanceIsTooLow() {
+    //when
+    var planned = WalletRebalance.consolidation("w1", 2, 0, Money.ofUnits(30)).withPlan(List.of(Money.ofUnits(10), Money.ofUnits(15)));
+
+    //then
+    assertThat(planned.isDone()).isTrue();
+  }
+
+  @Test
+  public void shouldNotPlanTransfersForEvenBalances() {
+    //when
+    var planned = WalletRebalance.of("w1", 2).withPlan(List.of(Money.ofUnits(5), Money.ofUnits(5)));
+
+    //then
+    assertThat(planned.isDone()).isTrue();
+  }
+}
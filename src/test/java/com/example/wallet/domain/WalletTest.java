@@ -1,14 +1,29 @@
 package com.example.wallet.domain;
 
+import com.example.common.Money;
+import com.example.wallet.domain.WalletCommand.AuthorizeCharge;
+import com.example.wallet.domain.WalletCommand.CaptureCharge;
 import com.example.wallet.domain.WalletCommand.ChargeWallet;
 import com.example.wallet.domain.WalletCommand.CreateWallet;
 import com.example.wallet.domain.WalletCommand.DepositFunds;
+import com.example.wallet.domain.WalletCommand.Refund;
+import com.example.wallet.domain.WalletCommand.VoidCharge;
+import com.example.wallet.domain.WalletCommand.WithdrawFunds;
+import com.example.wallet.domain.WalletEvent.WalletChargeRejected;
+import com.example.wallet.domain.WalletEvent.WalletCharged;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
 
 import static com.example.cinema.domain.DomainGenerators.randomCommandId;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static com.example.wallet.domain.WalletCommandError.DUPLICATED_COMMAND;
+import static com.example.wallet.domain.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.EXPENSE_SETTLED;
+import static com.example.wallet.domain.WalletCommandError.HOLD_NOT_FOUND;
+import static com.example.wallet.domain.WalletCommandError.NOT_SUFFICIENT_FUNDS;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class WalletTest {
@@ -17,7 +32,7 @@ class WalletTest {
   public void shouldCreateWallet() {
     //given
     var wallet = Wallet.EMPTY;
-    var createWallet = new CreateWallet("1", BigDecimal.TEN);
+    var createWallet = new CreateWallet("1", Money.ofUnits(10));
 
     //when
     var event = wallet.process(createWallet).rightValue();
@@ -31,8 +46,8 @@ class WalletTest {
   @Test
   public void shouldRejectCommandIfWalletExists() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var createWallet = new CreateWallet("1", BigDecimal.TEN);
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var createWallet = new CreateWallet("1", Money.ofUnits(10));
 
     //when
     var error = wallet.process(createWallet).leftValue();
@@ -44,22 +59,22 @@ class WalletTest {
   @Test
   public void shouldDepositFunds() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var depositFunds = new DepositFunds(BigDecimal.TEN, randomCommandId());
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var depositFunds = new DepositFunds(Money.ofUnits(10), randomCommandId());
 
     //when
     var event = wallet.process(depositFunds).rightValue();
     var updatedWallet = wallet.apply(event);
 
     //then
-    assertThat(updatedWallet.balance()).isEqualTo(BigDecimal.valueOf(20));
+    assertThat(updatedWallet.balance()).isEqualTo(Money.ofUnits(20));
   }
 
   @Test
   public void shouldRejectDuplicatedDeposit() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var depositFunds = new DepositFunds(BigDecimal.TEN, randomCommandId());
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var depositFunds = new DepositFunds(Money.ofUnits(10), randomCommandId());
 
     var event = wallet.process(depositFunds).rightValue();
     var updatedWallet = wallet.apply(event);
@@ -71,25 +86,71 @@ class WalletTest {
     assertThat(error).isEqualTo(DUPLICATED_COMMAND);
   }
 
+  @Test
+  public void shouldWithdrawFunds() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var withdrawFunds = new WithdrawFunds(Money.ofUnits(4), randomCommandId());
+
+    //when
+    var event = wallet.process(withdrawFunds).rightValue();
+    var updatedWallet = wallet.apply(event);
+
+    //then
+    assertThat(updatedWallet.balance()).isEqualTo(Money.ofUnits(6));
+    assertThat(updatedWallet.process(withdrawFunds).leftValue()).isEqualTo(DUPLICATED_COMMAND);
+  }
+
+  @Test
+  public void shouldRejectWithdrawalAboveBalance() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var withdrawFunds = new WithdrawFunds(Money.ofUnits(11), randomCommandId());
+
+    //when
+    var error = wallet.process(withdrawFunds).leftValue();
+
+    //then
+    assertThat(error).isEqualTo(NOT_SUFFICIENT_FUNDS);
+  }
+
   @Test
   public void shouldChargeWallet() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var chargeWallet = new ChargeWallet(BigDecimal.valueOf(3), "abc", randomCommandId());
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var chargeWallet = new ChargeWallet(Money.ofUnits(3), "abc", randomCommandId());
 
     //when
     var event = wallet.process(chargeWallet).rightValue();
     var updatedWallet = wallet.apply(event);
 
     //then
-    assertThat(updatedWallet.balance()).isEqualTo(BigDecimal.valueOf(7));
+    assertThat(updatedWallet.balance()).isEqualTo(Money.ofUnits(7));
+  }
+
+  @Test
+  public void shouldCarryChargeContextToEvents() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var context = Map.of("showId", "show1");
+    var charge = new ChargeWallet(Money.ofUnits(3), "abc", randomCommandId(), context);
+    var chargeAboveBalance = new ChargeWallet(Money.ofUnits(30), "def", randomCommandId(), context);
+
+    //when
+    var charged = wallet.process(charge).rightValue();
+    var rejected = wallet.process(chargeAboveBalance).rightValue();
+
+    //then
+    assertThat(charged).isInstanceOf(WalletCharged.class);
+    assertThat(((WalletCharged) charged).context()).isEqualTo(context);
+    assertThat(rejected).isEqualTo(new WalletChargeRejected("1", "def", context));
   }
 
   @Test
   public void shouldRejectDuplicatedCharge() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var chargeWallet = new ChargeWallet(BigDecimal.valueOf(3), "abc", randomCommandId());
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var chargeWallet = new ChargeWallet(Money.ofUnits(3), "abc", randomCommandId());
 
     var event = wallet.process(chargeWallet).rightValue();
     var updatedWallet = wallet.apply(event);
@@ -100,4 +161,114 @@ class WalletTest {
     //then
     assertThat(error).isEqualTo(DUPLICATED_COMMAND);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldRefundExpenseWithinRefundWindow() {
+    //given
+    var now = Instant.now();
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var charged = wallet.apply(wallet.process(new ChargeWallet(Money.ofUnits(3), "abc", randomCommandId()), now).rightValue());
+    var chargedLater = charged.apply(charged.process(new ChargeWallet(Money.ofUnits(1), "def", randomCommandId()), now.plus(Wallet.REFUND_WINDOW)).rightValue());
+
+    //when
+    var event = chargedLater.process(new Refund("abc", randomCommandId())).rightValue();
+    var updatedWallet = chargedLater.apply(event);
+
+    //then
+    assertThat(updatedWallet.balance()).isEqualTo(Money.ofUnits(9));
+    assertThat(updatedWallet.expenses().keySet().toJavaList()).containsExactly("def");
+  }
+
+  @Test
+  public void shouldRefundChargeWithNonUuidCommandId() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var charged = wallet.apply(wallet.process(new ChargeWallet(Money.ofUnits(3), "reservation-1", "reservation-1")).rightValue());
+    var refundCommandId = UUID.nameUUIDFromBytes("reservation-1".getBytes(UTF_8)).toString();
+
+    //when
+    var event = charged.process(new Refund("reservation-1", refundCommandId)).rightValue();
+    var updatedWallet = charged.apply(event);
+
+    //then
+    assertThat(event).isInstanceOf(WalletEvent.WalletRefunded.class);
+    assertThat(updatedWallet.balance()).isEqualTo(Money.ofUnits(10));
+  }
+
+  @Test
+  public void shouldSettleExpensesOutsideRefundWindow() {
+    //given
+    var now = Instant.now();
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var charged = wallet.apply(wallet.process(new ChargeWallet(Money.ofUnits(3), "abc", randomCommandId()), now).rightValue());
+
+    //when
+    var chargedLater = charged.apply(charged.process(new ChargeWallet(Money.ofUnits(1), "def", randomCommandId()), now.plus(Wallet.REFUND_WINDOW).plusMillis(1)).rightValue());
+
+    //then
+    assertThat(chargedLater.expenses().keySet().toJavaList()).containsExactly("def");
+    assertThat(chargedLater.process(new Refund("abc", randomCommandId())).leftValue()).isEqualTo(EXPENSE_SETTLED);
+    assertThat(chargedLater.process(new Refund("unknown", randomCommandId())).leftValue()).isEqualTo(EXPENSE_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldSettleExpensesWithoutChargeTime() {
+    //given
+    var now = Instant.now();
+    var wallet = new Wallet("1", Money.ofUnits(10))
+      .apply(new WalletCharged("1", Money.ofUnits(1), "legacy", randomCommandId(), null));
+
+    //when
+    var charged = wallet.apply(new WalletCharged("1", Money.ofUnits(1), "abc", randomCommandId(), now));
+    var chargedLater = charged.apply(new WalletCharged("1", Money.ofUnits(1), "def", randomCommandId(), now.plus(Wallet.REFUND_WINDOW).plusMillis(1)));
+
+    //then
+    assertThat(charged.expenses().get("legacy").get().chargedAt()).isEqualTo(now);
+    assertThat(chargedLater.expenses().keySet().toJavaList()).containsExactly("def");
+  }
+
+  @Test
+  public void shouldHoldFundsUntilCaptured() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var authorizeCharge = new AuthorizeCharge(Money.ofUnits(3), "expense1", randomCommandId());
+    var authorized = wallet.apply(wallet.process(authorizeCharge).rightValue());
+
+    //when
+    var captured = authorized.apply(authorized.process(new CaptureCharge("expense1", randomCommandId())).rightValue());
+
+    //then
+    assertThat(authorized.balance()).isEqualTo(Money.ofUnits(7));
+    assertThat(captured.balance()).isEqualTo(Money.ofUnits(7));
+    assertThat(captured.holds().isEmpty()).isTrue();
+    assertThat(captured.expenses().get("expense1").get().amount()).isEqualTo(Money.ofUnits(3));
+    assertThat(captured.process(new Refund("expense1", randomCommandId())).rightValue()).isInstanceOf(WalletEvent.WalletRefunded.class);
+  }
+
+  @Test
+  public void shouldReleaseFundsOfVoidedHold() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+    var authorized = wallet.apply(wallet.process(new AuthorizeCharge(Money.ofUnits(3), "expense1", randomCommandId())).rightValue());
+
+    //when
+    var voided = authorized.apply(authorized.process(new VoidCharge("expense1", randomCommandId())).rightValue());
+
+    //then
+    assertThat(voided.balance()).isEqualTo(Money.ofUnits(10));
+    assertThat(voided.expenses().isEmpty()).isTrue();
+    assertThat(voided.process(new CaptureCharge("expense1", randomCommandId())).leftValue()).isEqualTo(HOLD_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldRejectAuthorizationAboveBalance() {
+    //given
+    var wallet = new Wallet("1", Money.ofUnits(10));
+
+    //when
+    var error = wallet.process(new AuthorizeCharge(Money.ofUnits(11), "expense1", randomCommandId())).leftValue();
+
+    //then
+    assertThat(error).isEqualTo(NOT_SUFFICIENT_FUNDS);
+  }
+}